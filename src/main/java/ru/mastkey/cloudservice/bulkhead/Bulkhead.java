@@ -0,0 +1,59 @@
+package ru.mastkey.cloudservice.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.mastkey.cloudservice.configuration.properties.BulkheadProperties;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// bounded share of request threads for one RequestLane
+public class Bulkhead {
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    public Bulkhead(RequestLane lane, BulkheadProperties.Lane properties, MeterRegistry meterRegistry) {
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.maxWait = properties.getMaxWait();
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.waitTimer = Timer.builder("bulkhead.wait")
+                .tag("lane", lane.tag())
+                .register(meterRegistry);
+        this.rejections = Counter.builder("bulkhead.rejections")
+                .tag("lane", lane.tag())
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.active", this, Bulkhead::getActive)
+                .tag("lane", lane.tag())
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.max", this, bulkhead -> bulkhead.maxConcurrent)
+                .tag("lane", lane.tag())
+                .register(meterRegistry);
+    }
+
+    public boolean tryEnter() throws InterruptedException {
+        var startedAt = System.nanoTime();
+        // without a wait the request thread is never parked, a full lane is rejected at once
+        var entered = maxWait.isZero()
+                ? permits.tryAcquire()
+                : permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (!entered) {
+            rejections.increment();
+        }
+        return entered;
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.mastkey.cloudservice.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.mastkey.cloudservice.configuration.properties.BulkheadProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.model.ErrorResponse;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_LANE_SATURATED;
+
+// transfers and metadata calls run in separate bulkheads, so slow transfers cannot take the threads listings and auth need
+@Slf4j
+@Component
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final BulkheadProperties bulkheadProperties;
+    private final ObjectMapper objectMapper;
+    private final Map<RequestLane, Bulkhead> bulkheads = new EnumMap<>(RequestLane.class);
+
+    public BulkheadFilter(BulkheadProperties bulkheadProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.bulkheadProperties = bulkheadProperties;
+        this.objectMapper = objectMapper;
+        bulkheads.put(RequestLane.TRANSFER, new Bulkhead(RequestLane.TRANSFER, bulkheadProperties.getTransfer(), meterRegistry));
+        bulkheads.put(RequestLane.METADATA, new Bulkhead(RequestLane.METADATA, bulkheadProperties.getMetadata(), meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !bulkheadProperties.getEnabled() || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        var lane = RequestLane.of(request);
+        var bulkhead = bulkheads.get(lane);
+
+        boolean entered;
+        try {
+            entered = bulkhead.tryEnter();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entered = false;
+        }
+        if (!entered) {
+            log.warn("Bulkhead saturated: lane={}, uri={}", lane.tag(), request.getRequestURI());
+            writeRejection(response, lane);
+            return;
+        }
+
+        var exit = new AtomicBoolean();
+        Runnable release = () -> {
+            if (exit.compareAndSet(false, true)) {
+                bulkhead.exit();
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // a streamed body is still being written by another thread
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private void writeRejection(HttpServletResponse response, RequestLane lane) throws IOException {
+        var errorResponse = new ErrorResponse()
+                .status(ErrorType.SERVICE_UNAVAILABLE.getStatus())
+                .code(ErrorType.SERVICE_UNAVAILABLE.getCode())
+                .message(MSG_LANE_SATURATED.formatted(lane.tag()));
+        response.setStatus(ErrorType.SERVICE_UNAVAILABLE.getStatus());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
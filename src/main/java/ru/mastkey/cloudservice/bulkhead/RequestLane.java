@@ -0,0 +1,37 @@
+package ru.mastkey.cloudservice.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Map;
+
+public enum RequestLane {
+    TRANSFER,
+    METADATA;
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final Map<String, HttpMethod> TRANSFER_ENDPOINTS = Map.of(
+            "/api/v1/files/workspaces/*", HttpMethod.POST,
+            "/api/v1/files/*/workspaces/*", HttpMethod.GET,
+            "/api/v2/files/workspaces/*", HttpMethod.PUT,
+            "/api/v2/files/*/workspaces/*", HttpMethod.GET,
+            "/api/v2/files/*/workspaces/*/append", HttpMethod.POST,
+            "/api/v1/files/*/workspaces/*/copy", HttpMethod.POST,
+            "/api/v1/files/*/workspaces/*/move", HttpMethod.POST,
+            "/api/v1/files/workspaces/*/copy", HttpMethod.POST,
+            "/api/v1/files/workspaces/*/move", HttpMethod.POST
+    );
+
+    public static RequestLane of(HttpServletRequest request) {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        var isTransfer = TRANSFER_ENDPOINTS.entrySet().stream()
+                .anyMatch(endpoint -> endpoint.getValue().matches(request.getMethod())
+                        && PATH_MATCHER.match(endpoint.getKey(), path));
+        return isTransfer ? TRANSFER : METADATA;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.mastkey.cloudservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.cache.model.InvalidationMessage;
+import ru.mastkey.cloudservice.configuration.properties.CacheProperties;
+import ru.mastkey.cloudservice.util.TransactionUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationBus {
+    private static final String NOTIFY_QUERY = "SELECT pg_notify(?, ?)";
+
+    private final UUID nodeId = UUID.randomUUID();
+
+    private final List<InvalidatableCache> caches;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheProperties cacheProperties;
+
+    public void publish(CacheInvalidationEvent event) {
+        if (cacheProperties.getInvalidation().getEnabled()) {
+            notifyNodes(event);
+        }
+        TransactionUtils.runAfterCommit(() -> invalidateLocal(event));
+    }
+
+    public void onMessage(String payload) {
+        InvalidationMessage message;
+        try {
+            message = objectMapper.readValue(payload, InvalidationMessage.class);
+        } catch (JsonProcessingException e) {
+            log.error("Unreadable cache invalidation message, flushing local caches: {}", payload);
+            invalidateAllLocal();
+            return;
+        }
+
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        log.debug("Received cache invalidation from node {}: {}", message.origin(), message.event());
+        invalidateLocal(message.event());
+    }
+
+    public void invalidateAllLocal() {
+        log.info("Flushing all local caches");
+        caches.forEach(InvalidatableCache::invalidateAll);
+    }
+
+    private void notifyNodes(CacheInvalidationEvent event) {
+        try {
+            var payload = objectMapper.writeValueAsString(new InvalidationMessage(nodeId, event));
+            jdbcTemplate.queryForObject(NOTIFY_QUERY, Object.class, cacheProperties.getInvalidation().getChannel(), payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize cache invalidation event", e);
+        }
+    }
+
+    private void invalidateLocal(CacheInvalidationEvent event) {
+        caches.forEach(cache -> cache.invalidate(event));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.mastkey.cloudservice.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.Workspace;
+
+@Slf4j
+@Component
+public class HibernateSecondLevelCache implements InvalidatableCache {
+    static final String USER_WORKSPACES_ROLE = User.class.getName() + ".workspaces";
+    static final String WORKSPACE_USERS_ROLE = Workspace.class.getName() + ".users";
+
+    private final Cache cache;
+
+    public HibernateSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    // user_workspaces is written through UserWorkspace, which Hibernate does not map back onto the cached collections
+    @Override
+    public void invalidate(CacheInvalidationEvent event) {
+        log.debug("Evicting second-level cache: {}", event);
+        switch (event.type()) {
+            case MEMBERSHIP -> {
+                cache.evictCollectionData(USER_WORKSPACES_ROLE, event.userId());
+                cache.evictCollectionData(WORKSPACE_USERS_ROLE, event.workspaceId());
+            }
+            case WORKSPACE -> {
+                cache.evictEntityData(Workspace.class, event.workspaceId());
+                cache.evictCollectionData(WORKSPACE_USERS_ROLE, event.workspaceId());
+                cache.evictCollectionData(USER_WORKSPACES_ROLE);
+            }
+            case USER -> {
+                cache.evictEntityData(User.class, event.userId());
+                cache.evictCollectionData(USER_WORKSPACES_ROLE, event.userId());
+                cache.evictCollectionData(WORKSPACE_USERS_ROLE);
+            }
+        }
+        cache.evictQueryRegions();
+    }
+
+    @Override
+    public void invalidateAll() {
+        log.debug("Evicting all second-level cache regions");
+        cache.evictAllRegions();
+    }
+}
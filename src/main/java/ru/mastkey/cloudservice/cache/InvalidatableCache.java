@@ -0,0 +1,9 @@
+package ru.mastkey.cloudservice.cache;
+
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+
+public interface InvalidatableCache {
+    void invalidate(CacheInvalidationEvent event);
+
+    void invalidateAll();
+}
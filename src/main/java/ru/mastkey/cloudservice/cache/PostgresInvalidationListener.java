@@ -0,0 +1,125 @@
+package ru.mastkey.cloudservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.CacheProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "cache.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PostgresInvalidationListener implements SmartLifecycle {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final CacheProperties cacheProperties;
+    private final DataSourceProperties dataSourceProperties;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::listen, "cache-invalidation-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        var properties = cacheProperties.getInvalidation();
+        var reconnectDelay = properties.getMinReconnectDelay();
+        var subscribedBefore = false;
+
+        while (running) {
+            try (var connection = openConnection()) {
+                subscribe(connection, properties.getChannel());
+                if (subscribedBefore) {
+                    log.warn("Resubscribed to '{}' after a gap, notifications may have been missed", properties.getChannel());
+                    cacheInvalidationBus.invalidateAllLocal();
+                }
+                subscribedBefore = true;
+                reconnectDelay = properties.getMinReconnectDelay();
+                receive(connection, properties.getPollTimeout());
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Cache invalidation listener disconnected, retrying in {}: {}", reconnectDelay, e.getMessage());
+                cacheInvalidationBus.invalidateAllLocal();
+                if (!sleep(reconnectDelay)) {
+                    return;
+                }
+                reconnectDelay = min(reconnectDelay.multipliedBy(2), properties.getMaxReconnectDelay());
+            }
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+    }
+
+    private void subscribe(Connection connection, String channel) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("LISTEN " + channel);
+        }
+        log.info("Listening for cache invalidations on channel '{}'", channel);
+    }
+
+    private void receive(Connection connection, Duration pollTimeout) throws SQLException {
+        var pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            var notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+            if (notifications == null || notifications.length == 0) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Listener connection is no longer valid");
+                }
+                continue;
+            }
+            for (var notification : notifications) {
+                cacheInvalidationBus.onMessage(notification.getParameter());
+            }
+        }
+    }
+
+    private boolean sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.mastkey.cloudservice.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.cache.model.WorkspaceMembership;
+import ru.mastkey.cloudservice.configuration.properties.CacheProperties;
+import ru.mastkey.cloudservice.datasource.ReplicaRoutingDataSource;
+import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Component
+public class WorkspaceMembershipCache implements InvalidatableCache {
+    private static final String CACHE_NAME = "workspace-membership";
+
+    private final UserWorkspaceRepository userWorkspaceRepository;
+    private final TransactionTemplate primaryLookup;
+    private final AsyncCache<MembershipKey, WorkspaceMembership> cache;
+
+    public WorkspaceMembershipCache(UserWorkspaceRepository userWorkspaceRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    CacheProperties cacheProperties,
+                                    MeterRegistry meterRegistry) {
+        this.userWorkspaceRepository = userWorkspaceRepository;
+        // the caller's transaction may already hold a replica connection, so the lookup gets its own
+        this.primaryLookup = new TransactionTemplate(transactionManager);
+        this.primaryLookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryLookup.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMembership().getMaxSize())
+                .expireAfterWrite(cacheProperties.getMembership().getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    }
+
+    public Optional<WorkspaceMembership> getMembership(UUID userId, UUID workspaceId) {
+        var key = new MembershipKey(userId, workspaceId);
+        var loading = new CompletableFuture<WorkspaceMembership>();
+        var membership = cache.get(key, (k, executor) -> loading);
+        if (membership == loading) {
+            // the query runs outside of the map lock, blocking inside it would pin a virtual thread
+            try {
+                loading.complete(load(key));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return Optional.ofNullable(membership.join());
+    }
+
+    @Override
+    public void invalidate(CacheInvalidationEvent event) {
+        log.debug("Invalidating memberships: {}", event);
+        switch (event.type()) {
+            case MEMBERSHIP -> cache.synchronous().invalidate(new MembershipKey(event.userId(), event.workspaceId()));
+            case WORKSPACE -> cache.synchronous().asMap().keySet().removeIf(key -> key.workspaceId().equals(event.workspaceId()));
+            case USER -> cache.synchronous().asMap().keySet().removeIf(key -> key.userId().equals(event.userId()));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        log.debug("Invalidating all memberships");
+        cache.synchronous().invalidateAll();
+    }
+
+    private WorkspaceMembership load(MembershipKey key) {
+        log.debug("Loading membership: userId={}, workspaceId={}", key.userId(), key.workspaceId());
+        // a membership is kept for the whole ttl, one read from a lagging replica would outlive a revocation
+        return ReplicaRoutingDataSource.readFromPrimary(() -> primaryLookup.execute(status ->
+                userWorkspaceRepository.findByUserIdAndWorkspaceId(key.userId(), key.workspaceId())
+                        .map(WorkspaceMembership::of)
+                        .orElse(null)));
+    }
+
+    private record MembershipKey(UUID userId, UUID workspaceId) {
+    }
+}
@@ -0,0 +1,27 @@
+package ru.mastkey.cloudservice.cache.model;
+
+import java.util.UUID;
+
+public record CacheInvalidationEvent(
+        Type type,
+        UUID userId,
+        UUID workspaceId
+) {
+    public static CacheInvalidationEvent membership(UUID userId, UUID workspaceId) {
+        return new CacheInvalidationEvent(Type.MEMBERSHIP, userId, workspaceId);
+    }
+
+    public static CacheInvalidationEvent workspace(UUID workspaceId) {
+        return new CacheInvalidationEvent(Type.WORKSPACE, null, workspaceId);
+    }
+
+    public static CacheInvalidationEvent user(UUID userId) {
+        return new CacheInvalidationEvent(Type.USER, userId, null);
+    }
+
+    public enum Type {
+        MEMBERSHIP,
+        WORKSPACE,
+        USER
+    }
+}
@@ -0,0 +1,9 @@
+package ru.mastkey.cloudservice.cache.model;
+
+import java.util.UUID;
+
+public record InvalidationMessage(
+        UUID origin,
+        CacheInvalidationEvent event
+) {
+}
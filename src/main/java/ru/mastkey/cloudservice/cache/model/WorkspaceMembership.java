@@ -0,0 +1,23 @@
+package ru.mastkey.cloudservice.cache.model;
+
+import ru.mastkey.cloudservice.entity.UserWorkspace;
+
+import java.util.UUID;
+
+public record WorkspaceMembership(
+        UUID userId,
+        UUID workspaceId,
+        boolean owner,
+        String ownerBucketName
+) {
+    public static WorkspaceMembership of(UserWorkspace userWorkspace) {
+        var userId = userWorkspace.getUser().getId();
+        var workspace = userWorkspace.getWorkspace();
+        return new WorkspaceMembership(
+                userId,
+                workspace.getId(),
+                workspace.getOwner().getId().equals(userId),
+                workspace.getOwner().getBucketName()
+        );
+    }
+}
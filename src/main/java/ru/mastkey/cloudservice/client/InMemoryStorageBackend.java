@@ -0,0 +1,153 @@
+package ru.mastkey.cloudservice.client;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static ru.mastkey.cloudservice.util.Constants.*;
+
+// objects live on the heap, for tests and benchmarks, contents are lost on restart
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "memory")
+public class InMemoryStorageBackend implements StorageBackend {
+    private static final String MISSING_OBJECT = "Object %s does not exist";
+
+    private final Map<String, ConcurrentNavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public void createBucketIfNotExists(String bucketName) {
+        buckets.computeIfAbsent(bucketName, name -> new ConcurrentSkipListMap<>());
+    }
+
+    @Override
+    public void uploadFile(MultipartFile file, String bucketName, String path) {
+        try (var inputStream = file.getInputStream()) {
+            bucket(bucketName).put(path, new StoredObject(inputStream.readAllBytes(), now()));
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_UPLOAD_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void createFolder(String bucketName, String folderPath) {
+        var key = folderPath.endsWith("/") ? folderPath : folderPath + "/";
+        bucket(bucketName).put(key, new StoredObject(new byte[0], now()));
+    }
+
+    @Override
+    public void deleteFolder(String bucketName, String folderPath) {
+        bucket(bucketName).remove(folderPath);
+    }
+
+    @Override
+    public void deleteFile(String bucketName, String filePath) {
+        bucket(bucketName).remove(filePath);
+    }
+
+    @Override
+    public InputStream getFileStream(String bucketName, String filePath) {
+        return getFileStream(bucketName, filePath, 0, -1);
+    }
+
+    @Override
+    public InputStream getFileStream(String bucketName, String filePath, long offset, long length) {
+        var object = bucket(bucketName).get(filePath);
+        if (object == null) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_DOWNLOAD_ERROR, MISSING_OBJECT.formatted(filePath));
+        }
+        var data = object.data();
+        var start = (int) Math.min(offset, data.length);
+        var end = length < 0 ? data.length : (int) Math.min(data.length, start + length);
+        return new ByteArrayInputStream(data, start, end - start);
+    }
+
+    @Override
+    public Optional<String> getPresignedDownloadUrl(String bucketName, String filePath, String fileName) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Iterable<S3ObjectSummary> listObjects(String bucketName, String prefix, String startAfter) {
+        var objects = bucket(bucketName).tailMap(startAfter != null && startAfter.compareTo(prefix) > 0 ? startAfter : prefix,
+                startAfter == null || startAfter.compareTo(prefix) < 0);
+        return objects.entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(prefix))
+                .map(entry -> summary(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    public void removeObjects(String bucketName, List<String> keys) {
+        var bucket = bucket(bucketName);
+        keys.forEach(bucket::remove);
+    }
+
+    @Override
+    public Optional<S3ObjectSummary> stat(String bucketName, String key) {
+        return Optional.ofNullable(bucket(bucketName).get(key))
+                .map(object -> summary(key, object));
+    }
+
+    @Override
+    public void copyObject(String bucketName, String sourceKey, String targetKey) {
+        copyObject(bucketName, sourceKey, bucketName, targetKey);
+    }
+
+    @Override
+    public void copyObject(String sourceBucket, String sourceKey, String targetBucket, String targetKey) {
+        var source = bucket(sourceBucket).get(sourceKey);
+        if (source == null) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_COPY_ERROR, MISSING_OBJECT.formatted(sourceKey));
+        }
+        bucket(targetBucket).put(targetKey, new StoredObject(source.data(), now()));
+    }
+
+    @Override
+    public void appendObject(String bucketName, String key, MultipartFile segment) {
+        byte[] appended;
+        try (var inputStream = segment.getInputStream()) {
+            appended = inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, e.getMessage());
+        }
+        var updated = bucket(bucketName).computeIfPresent(key, (name, current) -> {
+            var data = Arrays.copyOf(current.data(), current.data().length + appended.length);
+            System.arraycopy(appended, 0, data, current.data().length, appended.length);
+            return new StoredObject(data, now());
+        });
+        if (updated == null) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, MISSING_OBJECT.formatted(key));
+        }
+    }
+
+    private ConcurrentNavigableMap<String, StoredObject> bucket(String bucketName) {
+        return buckets.computeIfAbsent(bucketName, name -> new ConcurrentSkipListMap<>());
+    }
+
+    private static S3ObjectSummary summary(String key, StoredObject object) {
+        return new S3ObjectSummary(key, object.data().length, object.lastModified());
+    }
+
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
+    private record StoredObject(byte[] data, ZonedDateTime lastModified) {
+    }
+}
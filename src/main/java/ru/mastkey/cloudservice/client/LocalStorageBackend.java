@@ -0,0 +1,334 @@
+package ru.mastkey.cloudservice.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static ru.mastkey.cloudservice.util.Constants.*;
+
+// objects are files under storage.local.root/<bucket>/<key>, for single-node deployments and CI,
+// written to a temporary file next to the target and moved into place, so readers never see partial data
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+    private static final String TEMP_PREFIX = ".upload-";
+
+    private final Path root;
+
+    @Autowired
+    public LocalStorageBackend(StorageProperties storageProperties) {
+        this.root = storageProperties.getLocal().getRoot().toAbsolutePath().normalize();
+    }
+
+    public LocalStorageBackend(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void createBucketIfNotExists(String bucketName) {
+        try {
+            Files.createDirectories(bucket(bucketName));
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_BUCKET_CREATE_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void uploadFile(MultipartFile file, String bucketName, String path) {
+        var target = resolve(bucketName, path);
+        try (var source = Channels.newChannel(file.getInputStream())) {
+            writeAtomically(target, channel -> receive(source, channel, 0, file.getSize()));
+            log.debug("File '{}' successfully stored in bucket '{}'", path, bucketName);
+        } catch (IOException e) {
+            log.error("Error storing file on disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_UPLOAD_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void createFolder(String bucketName, String folderPath) {
+        try {
+            Files.createDirectories(resolve(bucketName, folderPath));
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FOLDER_CREATE_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteFolder(String bucketName, String folderPath) {
+        try {
+            Files.deleteIfExists(resolve(bucketName, folderPath));
+        } catch (DirectoryNotEmptyException e) {
+            // like the folder marker in S3, removing the folder leaves the objects inside it in place
+            log.debug("Folder '{}' in bucket '{}' is not empty, keeping it", folderPath, bucketName);
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FOLDER_DELETE_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteFile(String bucketName, String filePath) {
+        try {
+            Files.deleteIfExists(resolve(bucketName, filePath));
+        } catch (IOException e) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_DELETE_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream getFileStream(String bucketName, String filePath) {
+        return getFileStream(bucketName, filePath, 0, -1);
+    }
+
+    @Override
+    public InputStream getFileStream(String bucketName, String filePath, long offset, long length) {
+        try {
+            var channel = FileChannel.open(resolve(bucketName, filePath), StandardOpenOption.READ);
+            channel.position(offset);
+            var stream = Channels.newInputStream(channel);
+            return length < 0 ? stream : new RangeInputStream(stream, length);
+        } catch (IOException e) {
+            log.error("Error reading file from disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_DOWNLOAD_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<String> getPresignedDownloadUrl(String bucketName, String filePath, String fileName) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Iterable<S3ObjectSummary> listObjects(String bucketName, String prefix, String startAfter) {
+        var bucket = bucket(bucketName);
+        var prefixDirectory = prefix.lastIndexOf('/') < 0 ? bucket : resolve(bucketName, prefix.substring(0, prefix.lastIndexOf('/')));
+        if (!Files.isDirectory(prefixDirectory)) {
+            return List.of();
+        }
+
+        try (var files = Files.walk(prefixDirectory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith(TEMP_PREFIX))
+                    .map(file -> summary(toKey(bucket, file), file))
+                    .flatMap(Optional::stream)
+                    .filter(object -> object.key().startsWith(prefix))
+                    .filter(object -> startAfter == null || object.key().compareTo(startAfter) > 0)
+                    .sorted(Comparator.comparing(S3ObjectSummary::key))
+                    .toList();
+        } catch (IOException e) {
+            log.error("Error listing files on disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECTS_LIST_ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public void removeObjects(String bucketName, List<String> keys) {
+        var failed = 0;
+        for (var key : keys) {
+            try {
+                Files.deleteIfExists(resolve(bucketName, key));
+            } catch (IOException e) {
+                log.error("Error deleting object '{}' from bucket '{}': {}", key, bucketName, e.getMessage());
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECTS_DELETE_ERROR,
+                    "%d of %d objects were not deleted".formatted(failed, keys.size()));
+        }
+    }
+
+    @Override
+    public Optional<S3ObjectSummary> stat(String bucketName, String key) {
+        return summary(key, resolve(bucketName, key));
+    }
+
+    @Override
+    public void copyObject(String bucketName, String sourceKey, String targetKey) {
+        copyObject(bucketName, sourceKey, bucketName, targetKey);
+    }
+
+    @Override
+    public void copyObject(String sourceBucket, String sourceKey, String targetBucket, String targetKey) {
+        var target = resolve(targetBucket, targetKey);
+        try (var source = FileChannel.open(resolve(sourceBucket, sourceKey), StandardOpenOption.READ)) {
+            writeAtomically(target, channel -> copy(source, channel));
+            log.debug("Object '{}/{}' successfully copied to '{}/{}'", sourceBucket, sourceKey, targetBucket, targetKey);
+        } catch (IOException e) {
+            log.error("Error copying file on disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_COPY_ERROR, e.getMessage());
+        }
+    }
+
+    // written in place so the cost follows the segment, a failed append is cut off again
+    @Override
+    public void appendObject(String bucketName, String key, MultipartFile segment) {
+        var target = resolve(bucketName, key);
+        try (var channel = FileChannel.open(target, StandardOpenOption.WRITE);
+             var source = Channels.newChannel(segment.getInputStream())) {
+            var end = channel.size();
+            try {
+                receive(source, channel, end, segment.getSize());
+            } catch (IOException | RuntimeException e) {
+                channel.truncate(end);
+                throw e;
+            }
+            log.debug("Appended {} bytes to object '{}' in bucket '{}'", segment.getSize(), key, bucketName);
+        } catch (IOException e) {
+            log.error("Error appending to file on disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, e.getMessage());
+        }
+    }
+
+    // a file-backed source is copied by the kernel without passing through the heap
+    private static void receive(ReadableByteChannel source, FileChannel target, long start, long size) throws IOException {
+        var position = 0L;
+        while (position < size) {
+            var transferred = target.transferFrom(source, start + position, size - position);
+            if (transferred == 0) {
+                throw new EOFException("Upload ended after %d of %d bytes".formatted(position, size));
+            }
+            position += transferred;
+        }
+    }
+
+    private static long copy(FileChannel source, FileChannel target) throws IOException {
+        var size = source.size();
+        var position = 0L;
+        while (position < size) {
+            var transferred = source.transferTo(position, size - position, target);
+            if (transferred == 0) {
+                throw new EOFException("Source ended after %d of %d bytes".formatted(position, size));
+            }
+            position += transferred;
+        }
+        return size;
+    }
+
+    private void writeAtomically(Path target, ChannelWriter writer) throws IOException {
+        Files.createDirectories(target.getParent());
+        var temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writer.write(channel);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Optional<S3ObjectSummary> summary(String key, Path file) {
+        try {
+            var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            var lastModified = attributes.lastModifiedTime().toInstant().atZone(ZoneOffset.UTC);
+            return Optional.of(new S3ObjectSummary(key, attributes.size(), lastModified));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.error("Error reading file metadata on disk: {}", e.getMessage());
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_STAT_ERROR, e.getMessage());
+        }
+    }
+
+    private Path bucket(String bucketName) {
+        return resolve(root, bucketName);
+    }
+
+    private Path resolve(String bucketName, String key) {
+        return resolve(bucket(bucketName), key);
+    }
+
+    private static Path resolve(Path parent, String name) {
+        var path = parent.resolve(name).normalize();
+        if (!path.startsWith(parent) || path.equals(parent)) {
+            throw new ServiceException(ErrorType.BAD_REQUEST, MSG_OBJECT_KEY_INVALID, name);
+        }
+        return path;
+    }
+
+    private static String toKey(Path bucket, Path file) {
+        return bucket.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+    }
+
+    @FunctionalInterface
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            var value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            var read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
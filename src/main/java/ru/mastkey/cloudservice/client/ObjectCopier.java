@@ -0,0 +1,64 @@
+package ru.mastkey.cloudservice.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_OBJECT_COPY_ERROR;
+
+// server-side copies of a bulk request run in parallel, at most s3.transfer.copy-parallelism at a time
+@Slf4j
+@Component
+public class ObjectCopier {
+
+    private final StorageBackend storageBackend;
+    private final ExecutorService copyExecutor;
+
+    public ObjectCopier(StorageBackend storageBackend, S3Properties s3Properties) {
+        this.storageBackend = storageBackend;
+        this.copyExecutor = Executors.newFixedThreadPool(s3Properties.getTransfer().getCopyParallelism(),
+                new CustomizableThreadFactory("s3-copy-"));
+    }
+
+    // the first failure is rethrown once every copy settled, so none is still running when the caller rolls back
+    public void copyAll(List<ObjectCopy> copies) {
+        if (copies.size() == 1) {
+            copy(copies.get(0));
+            return;
+        }
+        var futures = copies.stream()
+                .map(copy -> CompletableFuture.runAsync(() -> copy(copy), copyExecutor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ServiceException serviceException) {
+                throw serviceException;
+            }
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_COPY_ERROR, e.getCause().getMessage());
+        }
+        log.debug("Copied {} objects", copies.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        copyExecutor.shutdownNow();
+    }
+
+    private void copy(ObjectCopy copy) {
+        storageBackend.copyObject(copy.sourceBucket(), copy.sourceKey(), copy.targetBucket(), copy.targetKey());
+    }
+
+    public record ObjectCopy(String sourceBucket, String sourceKey, String targetBucket, String targetKey) {
+    }
+}
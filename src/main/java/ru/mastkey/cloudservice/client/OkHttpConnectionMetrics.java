@@ -0,0 +1,43 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+// how often calls to S3 open a new connection instead of reusing a pooled one
+public class OkHttpConnectionMetrics extends EventListener {
+    private final Counter opened;
+    private final Counter failed;
+    private final Counter acquired;
+
+    public OkHttpConnectionMetrics(MeterRegistry meterRegistry) {
+        this.opened = Counter.builder("s3.http.connections.opened")
+                .register(meterRegistry);
+        this.failed = Counter.builder("s3.http.connections.failed")
+                .register(meterRegistry);
+        this.acquired = Counter.builder("s3.http.connections.acquired")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        opened.increment();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        failed.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        acquired.increment();
+    }
+}
@@ -0,0 +1,67 @@
+package ru.mastkey.cloudservice.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// the buffer is borrowed from TransferMemoryGovernor and given back on close
+class PooledBufferInputStream extends InputStream {
+    private final InputStream source;
+    private final TransferMemoryGovernor.BufferLease lease;
+    private final byte[] buffer;
+    private int position;
+    private int count;
+
+    PooledBufferInputStream(InputStream source, TransferMemoryGovernor.BufferLease lease) {
+        this.source = source;
+        this.lease = lease;
+        this.buffer = lease.buffer();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= count && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= count) {
+            // a caller with a bigger buffer gains nothing from an extra copy
+            if (length >= buffer.length) {
+                return source.read(target, offset, length);
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+        var read = Math.min(length, count - position);
+        System.arraycopy(buffer, position, target, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (count - position) + source.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            lease.close();
+        }
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        count = Math.max(source.read(buffer, 0, buffer.length), 0);
+        return count > 0;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.mastkey.cloudservice.client;
+
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+
+@Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "minio", matchIfMissing = true)
+public class PresignedUrlSigner {
+    private final MinioClient minioClient;
+
+    // the signature covers the host, so urls are signed for the endpoint clients reach rather than s3.url.
+    // the region is fixed so that signing never calls the public endpoint from the service
+    public PresignedUrlSigner(S3Properties s3Properties) {
+        this.minioClient = StringUtils.hasText(s3Properties.getPublicUrl())
+                ? MinioClient.builder()
+                .endpoint(s3Properties.getPublicUrl())
+                .region(s3Properties.getRegion())
+                .credentials(s3Properties.getAccessKey(), s3Properties.getSecretKey())
+                .build()
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return minioClient != null;
+    }
+
+    public String sign(GetPresignedObjectUrlArgs args) throws Exception {
+        return minioClient.getPresignedObjectUrl(args);
+    }
+}
@@ -1,127 +1,473 @@
 package ru.mastkey.cloudservice.client;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
 import static ru.mastkey.cloudservice.util.Constants.*;
 
 @Component
+@ConditionalOnProperty(prefix = "storage", name = "backend", havingValue = "minio", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class S3Client {
+public class S3Client implements StorageBackend {
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    private static final String SEGMENT_SUFFIX = ".segment-";
+
     private final MinioClient minioClient;
+    private final TransferMemoryGovernor transferMemoryGovernor;
+    private final S3Properties s3Properties;
+    private final S3Metrics s3Metrics;
+    private final S3Resilience s3Resilience;
+    private final PresignedUrlSigner presignedUrlSigner;
 
+    @Override
     public void createBucketIfNotExists(String bucketName) {
+        var sample = s3Metrics.start();
         try {
-            boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder()
-                    .bucket(bucketName)
-                    .build());
-            if (!bucketExists) {
-                minioClient.makeBucket(MakeBucketArgs.builder()
+            s3Resilience.execute(S3Operation.CREATE_BUCKET, () -> {
+                boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder()
                         .bucket(bucketName)
                         .build());
-                log.debug("Bucket '{}' successfully created", bucketName);
-            }
+                if (!bucketExists) {
+                    minioClient.makeBucket(MakeBucketArgs.builder()
+                            .bucket(bucketName)
+                            .build());
+                    log.debug("Bucket '{}' successfully created", bucketName);
+                }
+                return null;
+            });
+            s3Metrics.success(S3Operation.CREATE_BUCKET, sample);
         } catch (Exception e) {
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_BUCKET_CREATE_ERROR, e.getMessage());
+            s3Metrics.failure(S3Operation.CREATE_BUCKET, sample, e);
+            throw toServiceException(e, MSG_BUCKET_CREATE_ERROR);
         }
     }
 
+    @Override
     public void uploadFile(MultipartFile file, String bucketName, String path) {
-        try {
-            InputStream inputStream = file.getInputStream();
-            long fileSize = file.getSize();
-            String contentType = file.getContentType();
-
-            if (Objects.isNull(contentType)) {
-                contentType = "application/octet-stream";
-            }
+        long fileSize = file.getSize();
+        var partSize = s3Properties.getTransfer().getPartSize().toBytes();
+        // MinIO keeps one part of the object in memory while it is sent
+        try (var lease = transferMemoryGovernor.reserve(Math.min(fileSize, partSize))) {
+            uploadWithinBudget(file, bucketName, path, partSize);
+        }
+    }
 
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(path)
-                            .stream(inputStream, fileSize, -1)
-                            .contentType(contentType)
-                            .build()
-            );
+    private void uploadWithinBudget(MultipartFile file, String bucketName, String path, long partSize) {
+        long fileSize = file.getSize();
+        var sample = s3Metrics.start();
+        try {
+            putObject(bucketName, path, file.getInputStream(), fileSize, file.getContentType(), partSize);
+            s3Metrics.success(S3Operation.UPLOAD, sample);
+            s3Metrics.bytes(S3Operation.UPLOAD, fileSize);
             log.debug("File '{}' successfully uploaded to bucket '{}'", path, bucketName);
         } catch (Exception e) {
+            s3Metrics.failure(S3Operation.UPLOAD, sample, e);
             log.error("Error uploading file to S3: {}", e.getMessage());
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_UPLOAD_ERROR, e.getMessage());
+            throw toServiceException(e, MSG_FILE_UPLOAD_ERROR);
         }
     }
 
+    private void putObject(String bucketName, String path, InputStream inputStream, long size, String contentType,
+                           long partSize) throws Exception {
+        if (Objects.isNull(contentType)) {
+            contentType = "application/octet-stream";
+        }
+
+        var putObjectArgs = PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(path)
+                .stream(inputStream, size, partSize)
+                .contentType(contentType)
+                .build();
+        s3Resilience.execute(S3Operation.UPLOAD, () -> minioClient.putObject(putObjectArgs));
+    }
+
+    @Override
     public void createFolder(String bucketName, String folderPath) {
+        var sample = s3Metrics.start();
         try {
             if (!folderPath.endsWith("/")) {
                 folderPath += "/";
             }
 
-            minioClient.putObject(
+            var objectName = folderPath;
+            s3Resilience.execute(S3Operation.CREATE_FOLDER, () -> minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(bucketName)
-                            .object(folderPath)
+                            .object(objectName)
                             .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
                             .build()
-            );
+            ));
             log.debug("Folder '{}' successfully created in bucket '{}'", folderPath, bucketName);
+            s3Metrics.success(S3Operation.CREATE_FOLDER, sample);
         } catch (Exception e) {
+            s3Metrics.failure(S3Operation.CREATE_FOLDER, sample, e);
             log.error("Error creating folder in S3: {}", e.getMessage());
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FOLDER_CREATE_ERROR, e.getMessage());
+            throw toServiceException(e, MSG_FOLDER_CREATE_ERROR);
         }
     }
 
+    @Override
     public void deleteFolder(String bucketName, String folderPath) {
+        var sample = s3Metrics.start();
         try {
-            minioClient.removeObject(
-                    RemoveObjectArgs.builder()
-                            .object(folderPath)
-                            .bucket(bucketName)
-                            .build()
-            );
+            s3Resilience.execute(S3Operation.DELETE_FOLDER, () -> {
+                minioClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .object(folderPath)
+                                .bucket(bucketName)
+                                .build()
+                );
+                return null;
+            });
             log.debug("Folder '{}' successfully deleted from bucket '{}'", folderPath, bucketName);
+            s3Metrics.success(S3Operation.DELETE_FOLDER, sample);
         } catch (Exception e) {
+            s3Metrics.failure(S3Operation.DELETE_FOLDER, sample, e);
             log.error("Error deleting folder in S3: {}", e.getMessage());
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FOLDER_DELETE_ERROR, e.getMessage());
+            throw toServiceException(e, MSG_FOLDER_DELETE_ERROR);
         }
     }
 
+    @Override
     public void deleteFile(String bucketName, String filePath) {
+        var sample = s3Metrics.start();
         try {
-            minioClient.removeObject(
-                    RemoveObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(filePath)
-                            .build()
-            );
+            s3Resilience.execute(S3Operation.DELETE, () -> {
+                minioClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(filePath)
+                                .build()
+                );
+                return null;
+            });
             log.debug("File '{}' successfully deleted from bucket '{}'", filePath, bucketName);
+            s3Metrics.success(S3Operation.DELETE, sample);
         } catch (Exception e) {
+            s3Metrics.failure(S3Operation.DELETE, sample, e);
             log.error("Error deleting file in S3: {}", e.getMessage());
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_DELETE_ERROR, e.getMessage());
+            throw toServiceException(e, MSG_FILE_DELETE_ERROR);
         }
     }
 
+    @Override
     public InputStream getFileStream(String bucketName, String filePath) {
+        return getFileStream(bucketName, filePath, 0, -1);
+    }
+
+    @Override
+    public InputStream getFileStream(String bucketName, String filePath, long offset, long length) {
+        var buffer = transferMemoryGovernor.borrowBuffer();
+        var startNanos = System.nanoTime();
+        var sample = s3Metrics.start();
+        try {
+            var args = GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(filePath);
+            if (offset > 0 || length >= 0) {
+                args.offset(offset);
+            }
+            if (length >= 0) {
+                args.length(length);
+            }
+            var getObjectArgs = args.build();
+            var stream = s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> minioClient.getObject(getObjectArgs));
+            s3Metrics.success(S3Operation.DOWNLOAD, sample);
+            return new PooledBufferInputStream(s3Metrics.meterDownload(stream, startNanos), buffer);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.DOWNLOAD, sample, e);
+            buffer.close();
+            log.error("Error retrieving file from S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_FILE_DOWNLOAD_ERROR);
+        }
+    }
+
+    // the client downloads the object from S3 without going through the service, if S3 is published to clients
+    @Override
+    public Optional<String> getPresignedDownloadUrl(String bucketName, String filePath, String fileName) {
+        if (!presignedUrlSigner.isEnabled()) {
+            return Optional.empty();
+        }
+        var sample = s3Metrics.start();
         try {
-            return minioClient.getObject(
-                    GetObjectArgs.builder()
+            var contentDisposition = "attachment; filename*=UTF-8''%s".formatted(URLEncoder.encode(fileName, StandardCharsets.UTF_8));
+            var url = s3Resilience.execute(S3Operation.PRESIGN, () -> presignedUrlSigner.sign(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
                             .bucket(bucketName)
                             .object(filePath)
+                            .expiry((int) s3Properties.getTransfer().getPresignedUrlExpiry().toSeconds())
+                            .extraQueryParams(Map.of("response-content-disposition", contentDisposition))
                             .build()
-            );
+            ));
+            s3Metrics.success(S3Operation.PRESIGN, sample);
+            return Optional.of(url);
         } catch (Exception e) {
-            log.error("Error retrieving file from S3: {}", e.getMessage());
-            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_FILE_DOWNLOAD_ERROR, e.getMessage());
+            s3Metrics.failure(S3Operation.PRESIGN, sample, e);
+            log.error("Error signing download URL in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_FILE_DOWNLOAD_ERROR);
+        }
+    }
+
+    @Override
+    public Iterable<S3ObjectSummary> listObjects(String bucketName, String prefix, String startAfter) {
+        var args = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(true);
+        if (startAfter != null) {
+            args.startAfter(startAfter);
+        }
+        var results = minioClient.listObjects(args.build());
+
+        return () -> new Iterator<>() {
+            private final Iterator<Result<Item>> iterator = results.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public S3ObjectSummary next() {
+                try {
+                    var item = iterator.next().get();
+                    return new S3ObjectSummary(item.objectName(), item.size(), item.lastModified());
+                } catch (Exception e) {
+                    log.error("Error listing objects in S3: {}", e.getMessage());
+                    throw toServiceException(e, MSG_OBJECTS_LIST_ERROR);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void removeObjects(String bucketName, List<String> keys) {
+        int failed;
+        var sample = s3Metrics.start();
+        try {
+            failed = s3Resilience.execute(S3Operation.REMOVE_OBJECTS, () -> {
+                var failures = 0;
+                var results = minioClient.removeObjects(
+                        RemoveObjectsArgs.builder()
+                                .bucket(bucketName)
+                                .objects(keys.stream().map(DeleteObject::new).toList())
+                                .build()
+                );
+                // removal is lazy: the request is only sent while the results are being iterated
+                for (var result : results) {
+                    var error = result.get();
+                    log.error("Error deleting object '{}' from bucket '{}': {}", error.objectName(), bucketName, error.message());
+                    failures++;
+                }
+                return failures;
+            });
+            s3Metrics.success(S3Operation.REMOVE_OBJECTS, sample);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.REMOVE_OBJECTS, sample, e);
+            log.error("Error deleting objects in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECTS_DELETE_ERROR);
+        }
+
+        if (failed > 0) {
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECTS_DELETE_ERROR,
+                    "%d of %d objects were not deleted".formatted(failed, keys.size()));
+        }
+        log.debug("{} objects successfully deleted from bucket '{}'", keys.size(), bucketName);
+    }
+
+    @Override
+    public Optional<S3ObjectSummary> stat(String bucketName, String key) {
+        var sample = s3Metrics.start();
+        try {
+            var response = s3Resilience.execute(S3Operation.STAT, () -> minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(key)
+                            .build()
+            ));
+            s3Metrics.success(S3Operation.STAT, sample);
+            return Optional.of(new S3ObjectSummary(response.object(), response.size(), response.lastModified()));
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                s3Metrics.success(S3Operation.STAT, sample);
+                return Optional.empty();
+            }
+            s3Metrics.failure(S3Operation.STAT, sample, e);
+            log.error("Error reading object metadata in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_STAT_ERROR);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.STAT, sample, e);
+            log.error("Error reading object metadata in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_STAT_ERROR);
+        }
+    }
+
+    @Override
+    public boolean objectExists(String bucketName, String key) {
+        var sample = s3Metrics.start();
+        try {
+            s3Resilience.execute(S3Operation.STAT, () -> minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(key)
+                            .build()
+            ));
+            s3Metrics.success(S3Operation.STAT, sample);
+            return true;
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                s3Metrics.success(S3Operation.STAT, sample);
+                return false;
+            }
+            s3Metrics.failure(S3Operation.STAT, sample, e);
+            log.error("Error reading object metadata in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_STAT_ERROR);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.STAT, sample, e);
+            log.error("Error reading object metadata in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_STAT_ERROR);
+        }
+    }
+
+    @Override
+    public void copyObject(String bucketName, String sourceKey, String targetKey) {
+        var sample = s3Metrics.start();
+        try {
+            s3Resilience.execute(S3Operation.COPY, () -> minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(targetKey)
+                            .source(CopySource.builder()
+                                    .bucket(bucketName)
+                                    .object(sourceKey)
+                                    .build())
+                            .build()
+            ));
+            log.debug("Object '{}' successfully copied to '{}' in bucket '{}'", sourceKey, targetKey, bucketName);
+            s3Metrics.success(S3Operation.COPY, sample);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.COPY, sample, e);
+            log.error("Error copying object in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_COPY_ERROR);
+        }
+    }
+
+    @Override
+    public void copyObject(String sourceBucket, String sourceKey, String targetBucket, String targetKey) {
+        var sample = s3Metrics.start();
+        try {
+            // compose copies on the server as well and splits sources above the 5 GiB copy limit into part copies
+            s3Resilience.execute(S3Operation.COPY, () -> minioClient.composeObject(
+                    ComposeObjectArgs.builder()
+                            .bucket(targetBucket)
+                            .object(targetKey)
+                            .sources(List.of(ComposeSource.builder()
+                                    .bucket(sourceBucket)
+                                    .object(sourceKey)
+                                    .build()))
+                            .build()
+            ));
+            log.debug("Object '{}/{}' successfully copied to '{}/{}'", sourceBucket, sourceKey, targetBucket, targetKey);
+            s3Metrics.success(S3Operation.COPY, sample);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.COPY, sample, e);
+            log.error("Error copying object in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_COPY_ERROR);
+        }
+    }
+
+    // only the segment is uploaded and stitched onto the object on the server side
+    @Override
+    public void appendObject(String bucketName, String key, MultipartFile segment) {
+        var current = stat(bucketName, key).orElseThrow(() -> new ServiceException(
+                ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, "object %s does not exist".formatted(key)));
+        // S3 composes only sources of at least 5 MiB ahead of the last one, a smaller object is rewritten whole
+        if (current.size() < ObjectWriteArgs.MIN_MULTIPART_SIZE) {
+            rewriteWithSegment(bucketName, key, current.size(), segment);
+            return;
+        }
+
+        var segmentKey = key + SEGMENT_SUFFIX + UUID.randomUUID();
+        uploadFile(segment, bucketName, segmentKey);
+        var sample = s3Metrics.start();
+        try {
+            s3Resilience.execute(S3Operation.COMPOSE, () -> minioClient.composeObject(
+                    ComposeObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(key)
+                            .sources(List.of(
+                                    ComposeSource.builder().bucket(bucketName).object(key).build(),
+                                    ComposeSource.builder().bucket(bucketName).object(segmentKey).build()))
+                            .build()
+            ));
+            log.debug("Appended {} bytes to object '{}' in bucket '{}'", segment.getSize(), key, bucketName);
+            s3Metrics.success(S3Operation.COMPOSE, sample);
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.COMPOSE, sample, e);
+            log.error("Error appending to object in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_APPEND_ERROR);
+        } finally {
+            deleteSegment(bucketName, segmentKey);
+        }
+    }
+
+    private void rewriteWithSegment(String bucketName, String key, long currentSize, MultipartFile segment) {
+        var size = currentSize + segment.getSize();
+        var partSize = s3Properties.getTransfer().getPartSize().toBytes();
+        var sample = s3Metrics.start();
+        try (var lease = transferMemoryGovernor.reserve(Math.min(size, partSize));
+             var current = getFileStream(bucketName, key)) {
+            putObject(bucketName, key, new SequenceInputStream(current, segment.getInputStream()), size,
+                    segment.getContentType(), partSize);
+            s3Metrics.success(S3Operation.UPLOAD, sample);
+            s3Metrics.bytes(S3Operation.UPLOAD, size);
+            log.debug("Rewrote object '{}' in bucket '{}' with {} appended bytes", key, bucketName, segment.getSize());
+        } catch (Exception e) {
+            s3Metrics.failure(S3Operation.UPLOAD, sample, e);
+            log.error("Error appending to object in S3: {}", e.getMessage());
+            throw toServiceException(e, MSG_OBJECT_APPEND_ERROR);
+        }
+    }
+
+    private void deleteSegment(String bucketName, String segmentKey) {
+        try {
+            deleteFile(bucketName, segmentKey);
+        } catch (ServiceException e) {
+            log.warn("Unable to delete appended segment '{}' in bucket '{}': {}", segmentKey, bucketName, e.getMessage());
+        }
+    }
+
+    private static ServiceException toServiceException(Exception e, String message) {
+        if (e instanceof ServiceException serviceException) {
+            return serviceException;
         }
+        return new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, message, e.getMessage());
     }
-}
\ No newline at end of file
+}
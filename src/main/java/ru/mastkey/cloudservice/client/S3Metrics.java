@@ -0,0 +1,131 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.errors.ErrorResponseException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// tags are limited to the operation, the outcome and the S3 error code, never the bucket or the key
+@Component
+public class S3Metrics {
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer timeToFirstByte;
+
+    public S3Metrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.timeToFirstByte = Timer.builder("s3.client.download.ttfb")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void success(S3Operation operation, Timer.Sample sample) {
+        sample.stop(timer(operation, SUCCESS));
+    }
+
+    public void failure(S3Operation operation, Timer.Sample sample, Exception e) {
+        sample.stop(timer(operation, ERROR));
+        Counter.builder("s3.client.errors")
+                .tag("operation", operation.tag())
+                .tag("error", errorCode(e))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void bytes(S3Operation operation, long bytes) {
+        DistributionSummary.builder("s3.client.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation.tag())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    // the time to the first byte is measured from startNanos
+    InputStream meterDownload(InputStream stream, long startNanos) {
+        return new MeteredInputStream(stream, startNanos);
+    }
+
+    private Timer timer(S3Operation operation, String outcome) {
+        return Timer.builder("s3.client.requests")
+                .tag("operation", operation.tag())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String errorCode(Exception e) {
+        if (e instanceof ErrorResponseException errorResponse && errorResponse.errorResponse() != null) {
+            return errorResponse.errorResponse().code();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    private class MeteredInputStream extends InputStream {
+        private final InputStream source;
+        private final long startNanos;
+        private long bytes;
+        private boolean firstByteSeen;
+        private boolean closed;
+
+        private MeteredInputStream(InputStream source, long startNanos) {
+            this.source = source;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var value = source.read();
+            if (value >= 0) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            var read = source.read(target, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return source.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    bytes(S3Operation.DOWNLOAD, bytes);
+                }
+            }
+        }
+
+        private void count(int read) {
+            if (!firstByteSeen) {
+                firstByteSeen = true;
+                timeToFirstByte.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+            bytes += read;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.mastkey.cloudservice.client;
+
+public enum S3Operation {
+    CREATE_BUCKET(true),
+    UPLOAD(false),
+    CREATE_FOLDER(true),
+    DELETE_FOLDER(true),
+    DELETE(true),
+    DOWNLOAD(true),
+    PRESIGN(true),
+    REMOVE_OBJECTS(true),
+    STAT(true),
+    COPY(true),
+    // the target is one of its own sources, so a repeated compose would append the segment twice
+    COMPOSE(false);
+
+    private final boolean idempotent;
+
+    S3Operation(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    // an upload streams its body once, so it is never retried
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,219 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_S3_CIRCUIT_OPEN;
+
+// retries transient failures of idempotent operations with jittered backoff, stops calling S3 while it keeps failing
+// and optionally hedges slow reads with a second request
+@Slf4j
+@Component
+public class S3Resilience {
+    private static final Set<String> TRANSIENT_ERROR_CODES =
+            Set.of("InternalError", "SlowDown", "ServiceUnavailable", "RequestTimeout");
+
+    private final S3Properties.Resilience properties;
+    private final S3CircuitBreaker circuitBreaker;
+    private final ExecutorService hedgeExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter circuitRejections;
+
+    public S3Resilience(S3Properties s3Properties, MeterRegistry meterRegistry) {
+        this.properties = s3Properties.getResilience();
+        this.circuitBreaker = new S3CircuitBreaker(properties.getCircuitBreaker().getFailureThreshold(),
+                properties.getCircuitBreaker().getOpenDuration());
+        this.hedgeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-hedge-", 0).factory());
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("s3.client.circuit.open", circuitBreaker,
+                        breaker -> breaker.getState() == S3CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+        this.circuitRejections = Counter.builder("s3.client.circuit.rejections")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    public <T> T execute(S3Operation operation, S3Call<T> call) throws Exception {
+        if (!properties.getEnabled()) {
+            return call.call();
+        }
+        var maxAttempts = maxAttempts(operation);
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                circuitRejections.increment();
+                throw new ServiceException(ErrorType.SERVICE_UNAVAILABLE, MSG_S3_CIRCUIT_OPEN);
+            }
+            try {
+                var result = call.call();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted() || e instanceof InterruptedException) {
+                    // cancelled by the caller, e.g. a hedge that lost, which says nothing about S3
+                    circuitBreaker.onAbort();
+                    throw e;
+                }
+                if (!isTransient(e)) {
+                    // S3 answered, so it is up even though the call failed
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                var backoff = backoff(attempt);
+                log.warn("Transient S3 error on {} attempt {}, retrying in {} ms: {}",
+                        operation.tag(), attempt, backoff.toMillis(), e.getMessage());
+                meterRegistry.counter("s3.client.retries", "operation", operation.tag()).increment();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } catch (Error e) {
+                circuitBreaker.onAbort();
+                throw e;
+            }
+        }
+    }
+
+    // a second request is sent when the first has not answered within the hedge delay, the loser is cancelled
+    public <T extends Closeable> T executeHedged(S3Operation operation, S3Call<T> call) throws Exception {
+        var hedge = properties.getHedge();
+        if (!properties.getEnabled() || !hedge.getEnabled()) {
+            return execute(operation, call);
+        }
+
+        var primary = new HedgedAttempt<>(operation, call);
+        try {
+            return primary.response.get(hedge.getDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.debug("S3 {} did not answer within {} ms, sending a hedged request", operation.tag(), hedge.getDelay().toMillis());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.cancel();
+            throw e;
+        }
+
+        var secondary = new HedgedAttempt<>(operation, call);
+        var result = new CompletableFuture<T>();
+        var failures = new AtomicInteger();
+        race(operation, primary, secondary, "primary", result, failures);
+        race(operation, secondary, primary, "hedge", result, failures);
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.cancel();
+            secondary.cancel();
+            throw e;
+        }
+    }
+
+    private <T extends Closeable> void race(S3Operation operation, HedgedAttempt<T> attempt, HedgedAttempt<T> other,
+                                            String name, CompletableFuture<T> result, AtomicInteger failures) {
+        attempt.response.whenComplete((value, error) -> {
+            if (error == null && result.complete(value)) {
+                meterRegistry.counter("s3.client.hedges", "operation", operation.tag(), "winner", name).increment();
+                // the loser is aborted while it waits for S3, or its response is closed if it already arrived
+                other.cancel();
+            } else if (error != null && failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private int maxAttempts(S3Operation operation) {
+        if (!operation.isIdempotent()) {
+            return 1;
+        }
+        var retry = properties.getRetry();
+        return Math.max(1, retry.getMaxAttemptsByOperation().getOrDefault(operation, retry.getMaxAttempts()));
+    }
+
+    private Duration backoff(int attempt) {
+        var retry = properties.getRetry();
+        var ceiling = Math.min(retry.getMaxBackoff().toMillis(),
+                retry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    static boolean isTransient(Exception e) {
+        if (e instanceof ErrorResponseException errorResponse) {
+            return TRANSIENT_ERROR_CODES.contains(errorResponse.errorResponse().code());
+        }
+        return e instanceof IOException || e instanceof ServerException;
+    }
+
+    private static Exception unwrap(Throwable error) {
+        var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Exception exception ? exception : new IllegalStateException(cause);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Failed to close losing S3 response: {}", e.getMessage());
+        }
+    }
+
+    // one request of a hedged read, run on its own virtual thread so that interrupting it aborts the blocked socket call
+    private final class HedgedAttempt<T extends Closeable> {
+        private final CompletableFuture<T> response = new CompletableFuture<>();
+        private final Future<?> task;
+
+        private HedgedAttempt(S3Operation operation, S3Call<T> call) {
+            this.task = hedgeExecutor.submit(() -> {
+                try {
+                    response.complete(execute(operation, call));
+                } catch (Exception e) {
+                    response.completeExceptionally(e);
+                }
+            });
+        }
+
+        private void cancel() {
+            task.cancel(true);
+            response.thenAccept(S3Resilience::closeQuietly);
+        }
+    }
+
+    @FunctionalInterface
+    public interface S3Call<T> {
+        T call() throws Exception;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.mastkey.cloudservice.client;
+
+import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+// keys are '/'-separated paths inside a bucket, the backend is chosen with storage.backend
+public interface StorageBackend {
+
+    void createBucketIfNotExists(String bucketName);
+
+    void uploadFile(MultipartFile file, String bucketName, String path);
+
+    void createFolder(String bucketName, String folderPath);
+
+    void deleteFolder(String bucketName, String folderPath);
+
+    void deleteFile(String bucketName, String filePath);
+
+    InputStream getFileStream(String bucketName, String filePath);
+
+    // a negative length reads up to the end of the object
+    InputStream getFileStream(String bucketName, String filePath, long offset, long length);
+
+    // empty when the backend cannot issue a URL the client downloads from directly
+    Optional<String> getPresignedDownloadUrl(String bucketName, String filePath, String fileName);
+
+    Iterable<S3ObjectSummary> listObjects(String bucketName, String prefix, String startAfter);
+
+    void removeObjects(String bucketName, List<String> keys);
+
+    Optional<S3ObjectSummary> stat(String bucketName, String key);
+
+    default boolean objectExists(String bucketName, String key) {
+        return stat(bucketName, key).isPresent();
+    }
+
+    void copyObject(String bucketName, String sourceKey, String targetKey);
+
+    // possibly into another bucket, without streaming the content through the service
+    void copyObject(String sourceBucket, String sourceKey, String targetBucket, String targetKey);
+
+    // appends to the same object are serialized by the caller
+    void appendObject(String bucketName, String key, MultipartFile segment);
+}
@@ -0,0 +1,135 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_TRANSFER_MEMORY_EXHAUSTED;
+
+// node-wide budget for memory held by S3 transfers, counted in kilobytes so it is not limited by the int range of the semaphore
+@Slf4j
+@Component
+public class TransferMemoryGovernor {
+    private static final long UNIT = 1024;
+
+    private final Semaphore budget;
+    private final int budgetUnits;
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final Duration acquireTimeout;
+    private final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private final Counter rejections;
+
+    public TransferMemoryGovernor(S3Properties s3Properties, MeterRegistry meterRegistry) {
+        var transfer = s3Properties.getTransfer();
+        this.budgetUnits = Math.toIntExact(toUnits(transfer.getMemoryBudget().toBytes()));
+        this.budget = new Semaphore(budgetUnits, true);
+        this.bufferSize = Math.toIntExact(transfer.getBufferSize().toBytes());
+        this.maxPooledBuffers = transfer.getMaxPooledBuffers();
+        this.acquireTimeout = transfer.getAcquireTimeout();
+
+        Gauge.builder("s3.transfer.memory.used", this, TransferMemoryGovernor::getUsedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("s3.transfer.memory.budget", this, governor -> governor.budgetUnits * UNIT)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("s3.transfer.memory.rejections")
+                .register(meterRegistry);
+    }
+
+    // a request larger than the whole budget waits for the budget to drain and then runs alone
+    public Lease reserve(long bytes) {
+        var units = (int) Math.min(toUnits(bytes), budgetUnits);
+        try {
+            if (!budget.tryAcquire(units, acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejections.increment();
+                log.warn("Transfer memory budget exhausted: requested={}, used={}", bytes, getUsedBytes());
+                throw new ServiceException(ErrorType.SERVICE_UNAVAILABLE, MSG_TRANSFER_MEMORY_EXHAUSTED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ErrorType.SERVICE_UNAVAILABLE, MSG_TRANSFER_MEMORY_EXHAUSTED);
+        }
+        return new Lease(units);
+    }
+
+    public BufferLease borrowBuffer() {
+        var lease = reserve(bufferSize);
+        var buffer = pool.poll();
+        if (buffer == null) {
+            buffer = new byte[bufferSize];
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+        return new BufferLease(lease, buffer);
+    }
+
+    public long getUsedBytes() {
+        return (budgetUnits - budget.availablePermits()) * UNIT;
+    }
+
+    private void recycle(byte[] buffer) {
+        if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+            pool.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    private static long toUnits(long bytes) {
+        return (bytes + UNIT - 1) / UNIT;
+    }
+
+    public class Lease implements AutoCloseable {
+        private final int units;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(int units) {
+            this.units = units;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                budget.release(units);
+            }
+        }
+    }
+
+    public class BufferLease implements AutoCloseable {
+        private final Lease lease;
+        private final byte[] buffer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private BufferLease(Lease lease, byte[] buffer) {
+            this.lease = lease;
+            this.buffer = buffer;
+        }
+
+        public byte[] buffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                recycle(buffer);
+                lease.close();
+            }
+        }
+    }
+}
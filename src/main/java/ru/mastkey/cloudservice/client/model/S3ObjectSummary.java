@@ -0,0 +1,10 @@
+package ru.mastkey.cloudservice.client.model;
+
+import java.time.ZonedDateTime;
+
+public record S3ObjectSummary(
+        String key,
+        long size,
+        ZonedDateTime lastModified
+) {
+}
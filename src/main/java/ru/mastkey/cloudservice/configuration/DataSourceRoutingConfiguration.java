@@ -0,0 +1,72 @@
+package ru.mastkey.cloudservice.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.mastkey.cloudservice.configuration.properties.DataSourceRoutingProperties;
+import ru.mastkey.cloudservice.datasource.ReadYourWritesTracker;
+import ru.mastkey.cloudservice.datasource.ReplicaDataSource;
+import ru.mastkey.cloudservice.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.stream.IntStream;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final DataSourceRoutingProperties routingProperties;
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             MeterRegistry meterRegistry) {
+        var replicas = IntStream.range(0, routingProperties.getReplicas().size())
+                .mapToObj(index -> new ReplicaDataSource("replica-" + index,
+                        createReplicaPool("replica-" + index, routingProperties.getReplicas().get(index), meterRegistry)))
+                .toList();
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker, meterRegistry);
+    }
+
+    // connections are fetched on first statement, after the transaction has marked them read-only
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    private HikariDataSource createReplicaPool(String name,
+                                               DataSourceRoutingProperties.Replica replica,
+                                               MeterRegistry meterRegistry) {
+        var pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(replica.getUrl());
+        pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+        pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+        pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+        pool.setReadOnly(true);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
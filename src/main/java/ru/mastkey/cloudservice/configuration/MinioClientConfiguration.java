@@ -1,11 +1,21 @@
 package ru.mastkey.cloudservice.configuration;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
 import lombok.RequiredArgsConstructor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.mastkey.cloudservice.client.OkHttpConnectionMetrics;
 import ru.mastkey.cloudservice.configuration.properties.S3Properties;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @RequiredArgsConstructor
 public class MinioClientConfiguration {
@@ -13,10 +23,45 @@ public class MinioClientConfiguration {
     private final S3Properties s3Properties;
 
     @Bean
-    public MinioClient minioClient() {
+    public OkHttpClient minioHttpClient(MeterRegistry meterRegistry) {
+        var http = s3Properties.getHttp();
+        var connectionPool = new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        // MinIO sends every call through the dispatcher, whose default allows only 5 calls per host
+        var dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+
+        Gauge.builder("s3.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .register(meterRegistry);
+        Gauge.builder("s3.http.pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .register(meterRegistry);
+        Gauge.builder("s3.http.calls.running", dispatcher, Dispatcher::runningCallsCount)
+                .register(meterRegistry);
+        Gauge.builder("s3.http.calls.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .register(meterRegistry);
+
+        // HTTP/2 multiplexes every transfer over one connection per host, bypassing the pool and dispatcher limits,
+        // so it is opt-in and negotiated over TLS only
+        var protocols = http.getHttp2Enabled()
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_1_1);
+        return new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(protocols)
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .eventListener(new OkHttpConnectionMetrics(meterRegistry))
+                .build();
+    }
+
+    @Bean
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
         return MinioClient.builder()
                 .endpoint(s3Properties.getUrl())
                 .credentials(s3Properties.getAccessKey(), s3Properties.getSecretKey())
+                .httpClient(minioHttpClient)
                 .build();
     }
 }
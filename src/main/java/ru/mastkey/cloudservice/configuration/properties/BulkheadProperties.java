@@ -0,0 +1,30 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("bulkhead")
+@Data
+public class BulkheadProperties {
+    private Boolean enabled = true;
+    private Lane transfer = new Lane(150, Duration.ZERO);
+    private Lane metadata = new Lane(200, Duration.ofSeconds(2));
+
+    @Data
+    public static class Lane {
+        private Integer maxConcurrent;
+        private Duration maxWait;
+
+        public Lane() {
+        }
+
+        public Lane(Integer maxConcurrent, Duration maxWait) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWait = maxWait;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+@Component
+public class CacheProperties {
+    private Membership membership = new Membership();
+    private Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class Membership {
+        private Long maxSize = 10_000L;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Invalidation {
+        private Boolean enabled = true;
+        private String channel = "cache_invalidation";
+        private Duration pollTimeout = Duration.ofSeconds(5);
+        private Duration minReconnectDelay = Duration.ofSeconds(1);
+        private Duration maxReconnectDelay = Duration.ofSeconds(30);
+    }
+}
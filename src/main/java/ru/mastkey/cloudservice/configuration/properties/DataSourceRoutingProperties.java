@@ -0,0 +1,28 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "datasource.routing")
+@Component
+public class DataSourceRoutingProperties {
+    private Boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    private Duration maxReplicationLag = Duration.ofSeconds(10);
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private Integer maximumPoolSize = 10;
+    }
+}
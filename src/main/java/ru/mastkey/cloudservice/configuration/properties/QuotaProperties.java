@@ -0,0 +1,31 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("quota")
+@Data
+public class QuotaProperties {
+    private Boolean enabled = true;
+    private DataSize userMaxBytes = DataSize.ofGigabytes(10);
+    private Long userMaxObjects = 100_000L;
+    private DataSize workspaceMaxBytes = DataSize.ofGigabytes(5);
+    private Long workspaceMaxObjects = 50_000L;
+    private Duration counterIdleTimeout = Duration.ofMinutes(30);
+    private Duration usageRefreshInterval = Duration.ofSeconds(30);
+    private Double nearLimitRatio = 0.9;
+    private Reconcile reconcile = new Reconcile();
+
+    @Data
+    public static class Reconcile {
+        private Boolean enabled = true;
+        private Integer batchSize = 10;
+        private Integer pageSize = 1000;
+        private Duration interval = Duration.ofHours(6);
+    }
+}
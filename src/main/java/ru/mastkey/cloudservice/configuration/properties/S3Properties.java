@@ -3,12 +3,94 @@ package ru.mastkey.cloudservice.configuration.properties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.mastkey.cloudservice.client.S3Operation;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Component
 @ConfigurationProperties("s3")
 @Data
 public class S3Properties {
     private String url;
+    private String publicUrl;
+    private String region = "us-east-1";
     private String accessKey;
     private String secretKey;
-}
\ No newline at end of file
+    private Purge purge = new Purge();
+    private KeyMigration keyMigration = new KeyMigration();
+    private Transfer transfer = new Transfer();
+    private Http http = new Http();
+    private Resilience resilience = new Resilience();
+
+    @Data
+    public static class Purge {
+        private Integer batchSize = 1000;
+        private Integer parallelBatches = 4;
+        private Integer concurrentTasks = 2;
+        private Double batchesPerSecond = 20.0;
+        private Duration leaseDuration = Duration.ofMinutes(5);
+        private Duration pollInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class KeyMigration {
+        private Boolean enabled = true;
+        private Integer batchSize = 100;
+        private Integer parallelism = 8;
+        private Duration interval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Transfer {
+        private DataSize memoryBudget = DataSize.ofMegabytes(256);
+        private DataSize partSize = DataSize.ofMegabytes(5);
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+        private Integer maxPooledBuffers = 128;
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+        private Duration presignedUrlExpiry = Duration.ofMinutes(15);
+        private Integer copyParallelism = 8;
+    }
+
+    @Data
+    public static class Http {
+        private Integer maxIdleConnections = 64;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private Integer maxRequests = 256;
+        private Integer maxRequestsPerHost = 128;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofMinutes(5);
+        private Duration writeTimeout = Duration.ofMinutes(5);
+        private Boolean http2Enabled = false;
+    }
+
+    @Data
+    public static class Resilience {
+        private Boolean enabled = true;
+        private Retry retry = new Retry();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Hedge hedge = new Hedge();
+    }
+
+    @Data
+    public static class Retry {
+        private Integer maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private Map<S3Operation, Integer> maxAttemptsByOperation = new EnumMap<>(S3Operation.class);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private Integer failureThreshold = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Hedge {
+        private Boolean enabled = false;
+        private Duration delay = Duration.ofMillis(300);
+    }
+}
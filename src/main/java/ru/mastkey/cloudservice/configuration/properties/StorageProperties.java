@@ -0,0 +1,51 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("storage")
+@Data
+public class StorageProperties {
+    private Backend backend = Backend.MINIO;
+    private Local local = new Local();
+    private Tiering tiering = new Tiering();
+    private Reconcile reconcile = new Reconcile();
+
+    public enum Backend {
+        MINIO,
+        LOCAL,
+        MEMORY
+    }
+
+    @Data
+    public static class Local {
+        private Path root = Path.of("data", "storage");
+    }
+
+    @Data
+    public static class Tiering {
+        private Boolean enabled = false;
+        private Boolean drain = false;
+        private Path root = Path.of("data", "hot");
+        private Duration demoteAfter = Duration.ofDays(7);
+        private Duration replicationInterval = Duration.ofSeconds(5);
+        private Duration demotionInterval = Duration.ofHours(1);
+        private Integer batchSize = 100;
+    }
+
+    @Data
+    public static class Reconcile {
+        private Boolean enabled = true;
+        private Boolean repair = false;
+        private Duration interval = Duration.ofHours(24);
+        private Integer parallelism = 4;
+        private Integer pageSize = 1000;
+        private Duration gracePeriod = Duration.ofHours(1);
+        private Duration leaseDuration = Duration.ofMinutes(10);
+    }
+}
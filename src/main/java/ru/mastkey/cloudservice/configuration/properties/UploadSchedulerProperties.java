@@ -0,0 +1,19 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("upload-scheduler")
+@Data
+public class UploadSchedulerProperties {
+    private Boolean enabled = true;
+    private Integer maxConcurrentUploads = 32;
+    private Integer maxConcurrentUploadsPerUser = 4;
+    private DataSize quantum = DataSize.ofMegabytes(5);
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,21 @@
+package ru.mastkey.cloudservice.configuration.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties("workspace-stats")
+@Data
+public class WorkspaceStatsProperties {
+    private Reconcile reconcile = new Reconcile();
+
+    @Data
+    public static class Reconcile {
+        private Boolean enabled = true;
+        private Integer batchSize = 500;
+        private Duration interval = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.mastkey.cloudservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mastkey.cloudservice.aop.StructuralLogWithRequestIdFieldAnnotation;
+import ru.mastkey.cloudservice.controller.model.FileCopyRequest;
+import ru.mastkey.cloudservice.service.FileService;
+import ru.mastkey.model.FileResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+// copies are made by the storage itself, so the content never passes through the service
+@RestController
+@RequiredArgsConstructor
+@StructuralLogWithRequestIdFieldAnnotation
+public class FileCopyController {
+
+    private final FileService fileService;
+
+    @PostMapping("/api/v1/files/{fileId}/workspaces/{workspaceId}/copy")
+    public ResponseEntity<FileResponse> copyFile(@PathVariable UUID fileId,
+                                                 @PathVariable UUID workspaceId,
+                                                 @RequestParam UUID targetWorkspaceId) {
+        return ResponseEntity.ok(fileService.copyFiles(workspaceId, List.of(fileId), targetWorkspaceId).get(0));
+    }
+
+    @PostMapping("/api/v1/files/{fileId}/workspaces/{workspaceId}/move")
+    public ResponseEntity<FileResponse> moveFile(@PathVariable UUID fileId,
+                                                 @PathVariable UUID workspaceId,
+                                                 @RequestParam UUID targetWorkspaceId) {
+        return ResponseEntity.ok(fileService.moveFiles(workspaceId, List.of(fileId), targetWorkspaceId).get(0));
+    }
+
+    @PostMapping("/api/v1/files/workspaces/{workspaceId}/copy")
+    public ResponseEntity<List<FileResponse>> copyFiles(@PathVariable UUID workspaceId,
+                                                        @RequestBody FileCopyRequest request) {
+        return ResponseEntity.ok(fileService.copyFiles(workspaceId, request.fileIds(), request.targetWorkspaceId()));
+    }
+
+    @PostMapping("/api/v1/files/workspaces/{workspaceId}/move")
+    public ResponseEntity<List<FileResponse>> moveFiles(@PathVariable UUID workspaceId,
+                                                        @RequestBody FileCopyRequest request) {
+        return ResponseEntity.ok(fileService.moveFiles(workspaceId, request.fileIds(), request.targetWorkspaceId()));
+    }
+}
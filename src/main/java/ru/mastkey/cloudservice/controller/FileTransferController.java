@@ -0,0 +1,75 @@
+package ru.mastkey.cloudservice.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.mastkey.cloudservice.aop.StructuralLogWithRequestIdFieldAnnotation;
+import ru.mastkey.cloudservice.controller.model.RequestBodyFile;
+import ru.mastkey.cloudservice.service.FileService;
+import ru.mastkey.cloudservice.util.ResponseFactory;
+import ru.mastkey.model.FileResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+// transfer endpoints that do not tie a request thread to the whole transfer, outside of the api contract
+@RestController
+@RequiredArgsConstructor
+@StructuralLogWithRequestIdFieldAnnotation
+public class FileTransferController {
+
+    private final FileService fileService;
+
+    @PutMapping("/api/v2/files/workspaces/{workspaceId}")
+    public ResponseEntity<Void> uploadFile(@PathVariable UUID workspaceId,
+                                           @RequestParam String fileName,
+                                           @RequestHeader(HttpHeaders.CONTENT_LENGTH) long contentLength,
+                                           @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                           HttpServletRequest request) throws IOException {
+        // the upload path decodes names the way multipart clients send them
+        var encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
+        var file = new RequestBodyFile(encodedFileName, contentType, contentLength, request.getInputStream());
+        fileService.uploadFiles(workspaceId, List.of(file));
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/api/v2/files/{fileId}/workspaces/{workspaceId}")
+    public ResponseEntity<StreamingResponseBody> getFile(@PathVariable UUID fileId, @PathVariable UUID workspaceId) {
+        return ResponseFactory.createStreamingFileResponse(fileService.downloadFile(fileId, workspaceId));
+    }
+
+    @PostMapping("/api/v2/files/{fileId}/workspaces/{workspaceId}/append")
+    public ResponseEntity<FileResponse> appendToFile(@PathVariable UUID fileId,
+                                                     @PathVariable UUID workspaceId,
+                                                     @RequestHeader(HttpHeaders.CONTENT_LENGTH) long contentLength,
+                                                     @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                     HttpServletRequest request) throws IOException {
+        // only the new segment is sent, the stored content is extended on the storage side
+        var segment = new RequestBodyFile("segment", contentType, contentLength, request.getInputStream());
+        return ResponseEntity.ok(fileService.appendToFile(fileId, workspaceId, segment));
+    }
+
+    @GetMapping("/api/v2/files/{fileId}/workspaces/{workspaceId}/link")
+    public ResponseEntity<Void> getFileLink(@PathVariable UUID fileId, @PathVariable UUID workspaceId) {
+        // backends without presigned URLs serve the file through the streaming endpoint
+        var url = fileService.getDownloadUrl(fileId, workspaceId)
+                .orElseGet(() -> "/api/v2/files/%s/workspaces/%s".formatted(fileId, workspaceId));
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(URI.create(url))
+                .build();
+    }
+}
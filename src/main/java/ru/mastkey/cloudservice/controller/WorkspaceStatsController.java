@@ -0,0 +1,26 @@
+package ru.mastkey.cloudservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mastkey.cloudservice.aop.StructuralLogWithRequestIdFieldAnnotation;
+import ru.mastkey.cloudservice.controller.model.WorkspaceStatsResponse;
+import ru.mastkey.cloudservice.service.WorkspaceStatsService;
+
+import java.util.UUID;
+
+// WorkspaceResponse comes from the api contract, so the stats get an endpoint of their own
+@RestController
+@RequiredArgsConstructor
+@StructuralLogWithRequestIdFieldAnnotation
+public class WorkspaceStatsController {
+
+    private final WorkspaceStatsService workspaceStatsService;
+
+    @GetMapping("/api/v1/workspaces/{workspaceId}/stats")
+    public ResponseEntity<WorkspaceStatsResponse> getWorkspaceStats(@PathVariable UUID workspaceId) {
+        return ResponseEntity.ok(workspaceStatsService.getStats(workspaceId));
+    }
+}
@@ -0,0 +1,7 @@
+package ru.mastkey.cloudservice.controller.model;
+
+import java.util.List;
+import java.util.UUID;
+
+public record FileCopyRequest(UUID targetWorkspaceId, List<UUID> fileIds) {
+}
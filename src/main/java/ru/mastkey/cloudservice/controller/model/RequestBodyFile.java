@@ -0,0 +1,63 @@
+package ru.mastkey.cloudservice.controller.model;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// raw request body that goes through the upload path as a MultipartFile, its content can be read only once
+public class RequestBodyFile implements MultipartFile {
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final InputStream content;
+
+    public RequestBodyFile(String originalFilename, String contentType, long size, InputStream content) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return content.readAllBytes();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return content;
+    }
+
+    @Override
+    public void transferTo(java.io.File dest) throws IOException {
+        Files.copy(content, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.mastkey.cloudservice.controller.model;
+
+import java.util.UUID;
+
+public record WorkspaceStatsResponse(UUID workspaceId, long fileCount, long totalBytes) {
+}
@@ -0,0 +1,63 @@
+package ru.mastkey.cloudservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import ru.mastkey.cloudservice.configuration.properties.DataSourceRoutingProperties;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+    private static final long MAX_TRACKED_WRITERS = 100_000L;
+
+    private final Cache<String, Boolean> recentWriters;
+    private final long windowNanos;
+    private volatile long lastAnonymousWrite;
+
+    public ReadYourWritesTracker(DataSourceRoutingProperties routingProperties) {
+        this.windowNanos = routingProperties.getReadYourWritesWindow().toNanos();
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_WRITERS)
+                .expireAfterWrite(routingProperties.getReadYourWritesWindow())
+                .build();
+        this.lastAnonymousWrite = System.nanoTime() - windowNanos;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            recordWrite();
+        }
+    }
+
+    public void recordWrite() {
+        var subject = currentSubject();
+        if (subject == null) {
+            lastAnonymousWrite = System.nanoTime();
+        } else {
+            recentWriters.put(subject, Boolean.TRUE);
+        }
+        log.debug("Write recorded for {}", subject);
+    }
+
+    // anonymous writes are sign-ups, whose author is unknown until the next authenticated request
+    public boolean hasRecentWrite() {
+        if (System.nanoTime() - lastAnonymousWrite < windowNanos) {
+            return true;
+        }
+        var subject = currentSubject();
+        return subject != null && recentWriters.getIfPresent(subject) != null;
+    }
+
+    private String currentSubject() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
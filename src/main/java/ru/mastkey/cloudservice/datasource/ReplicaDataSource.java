@@ -0,0 +1,36 @@
+package ru.mastkey.cloudservice.datasource;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Slf4j
+@Getter
+@RequiredArgsConstructor
+public class ReplicaDataSource {
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean healthy = true;
+    private volatile Duration lag = Duration.ZERO;
+
+    public void recordLag(Duration lag) {
+        this.lag = lag;
+    }
+
+    public void markHealthy() {
+        if (!healthy) {
+            log.info("Replica {} is back in rotation, lag: {}", name, lag);
+        }
+        this.healthy = true;
+    }
+
+    public void markUnhealthy(String reason) {
+        if (healthy) {
+            log.warn("Replica {} is ejected from rotation: {}", name, reason);
+        }
+        this.healthy = false;
+    }
+}
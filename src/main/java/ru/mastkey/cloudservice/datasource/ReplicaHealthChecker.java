@@ -0,0 +1,53 @@
+package ru.mastkey.cloudservice.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.DataSourceRoutingProperties;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaHealthChecker {
+    // a replica that has replayed everything it received is current even if the primary has been idle for a while
+    static final String REPLICATION_LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+    private static final int CHECK_TIMEOUT_SECONDS = 5;
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    private final DataSourceRoutingProperties routingProperties;
+
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval:10s}")
+    public void checkReplicas() {
+        replicaRoutingDataSource.getReplicas().forEach(this::check);
+    }
+
+    void check(ReplicaDataSource replica) {
+        try (var connection = replica.getDataSource().getConnection();
+             var statement = connection.prepareStatement(REPLICATION_LAG_QUERY)) {
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (var resultSet = statement.executeQuery()) {
+                resultSet.next();
+                var lag = Duration.ofMillis(Math.round(resultSet.getDouble(1) * 1000));
+                replica.recordLag(lag);
+                if (lag.compareTo(routingProperties.getMaxReplicationLag()) > 0) {
+                    replica.markUnhealthy("replication lag " + lag);
+                } else {
+                    replica.markHealthy();
+                }
+            }
+        } catch (SQLException e) {
+            replica.markUnhealthy(e.getMessage());
+        }
+    }
+}
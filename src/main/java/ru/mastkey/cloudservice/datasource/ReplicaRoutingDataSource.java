@@ -0,0 +1,141 @@
+package ru.mastkey.cloudservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private static final String ROUTED_CONNECTIONS_METRIC = "datasource.routing.connections";
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    @Getter
+    private final List<ReplicaDataSource> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final Counter replicaConnections;
+    private final Counter recentWriteConnections;
+    private final Counter primaryOnlyConnections;
+    private final Counter noReplicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<ReplicaDataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaConnections = routedConnections(meterRegistry, "replica", "healthy");
+        this.recentWriteConnections = routedConnections(meterRegistry, "primary", "recent-write");
+        this.primaryOnlyConnections = routedConnections(meterRegistry, "primary", "primary-only");
+        this.noReplicaConnections = routedConnections(meterRegistry, "primary", "no-healthy-replica");
+
+        this.replicas.forEach(replica -> {
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.getLag().toMillis() / 1000.0)
+                    .tag("replica", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        });
+    }
+
+    // for reads whose result outlives the request, where a lagging replica would keep serving stale data
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        var outermost = PRIMARY_ONLY.get() == null;
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (outermost) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (var replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection route(ConnectionSource connectionSource) throws SQLException {
+        if (PRIMARY_ONLY.get() != null) {
+            primaryOnlyConnections.increment();
+            return connectionSource.get(primary);
+        }
+        if (readYourWritesTracker.hasRecentWrite()) {
+            recentWriteConnections.increment();
+            return connectionSource.get(primary);
+        }
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            var replica = nextHealthyReplica();
+            if (replica == null) {
+                break;
+            }
+            try {
+                var connection = connectionSource.get(replica.getDataSource());
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markUnhealthy(e.getMessage());
+            }
+        }
+
+        log.debug("No healthy replica available, reading from primary");
+        noReplicaConnections.increment();
+        return connectionSource.get(primary);
+    }
+
+    private ReplicaDataSource nextHealthyReplica() {
+        var size = replicas.size();
+        var start = Math.floorMod(cursor.getAndIncrement(), size == 0 ? 1 : size);
+        for (int i = 0; i < size; i++) {
+            var replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Counter routedConnections(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder(ROUTED_CONNECTIONS_METRIC)
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
@@ -3,6 +3,10 @@ package ru.mastkey.cloudservice.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.springframework.data.domain.Persistable;
+import ru.mastkey.cloudservice.util.UuidUtils;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -15,15 +19,15 @@ import java.util.UUID;
 @NoArgsConstructor
 @Entity
 @Table(name = "files")
-public class File {
+public class File implements Persistable<UUID> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workspace_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Workspace workspace;
 
     @Column(name = "file_name", nullable = false)
@@ -35,11 +39,46 @@ public class File {
     @Column(name = "file_extension", nullable = false)
     private String fileExtension;
 
+    @Column(name = "size", nullable = false)
+    private Long size;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier", nullable = false)
+    private StorageTier storageTier;
+
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt;
+
+    // the id is part of the object key, so it is assigned before the upload rather than on insert
+    @Transient
+    @Builder.Default
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     @PrePersist
     void prePersist() {
+        if (this.id == null) {
+            this.id = UuidUtils.randomV7();
+        }
+        if (this.size == null) {
+            this.size = 0L;
+        }
+        if (this.storageTier == null) {
+            this.storageTier = StorageTier.COLD;
+        }
         this.createdAt = LocalDateTime.now();
     }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package ru.mastkey.cloudservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.Accessors;
+import ru.mastkey.cloudservice.util.UuidUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Accessors(chain = true)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "s3_purge_tasks")
+public class S3PurgeTask {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private UUID id;
+
+    @Column(name = "bucket_name", nullable = false)
+    private String bucketName;
+
+    @Column(name = "prefix", nullable = false)
+    private String prefix;
+
+    // the prefix is a single key, objects that merely start with it are kept
+    @Builder.Default
+    @Column(name = "exact_key", nullable = false)
+    private Boolean exactKey = false;
+
+    @Column(name = "last_key")
+    private String lastKey;
+
+    @Builder.Default
+    @Column(name = "deleted_objects", nullable = false)
+    private Long deletedObjects = 0L;
+
+    @Builder.Default
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void prePersist() {
+        this.id = UuidUtils.randomV7();
+        this.createdAt = LocalDateTime.now();
+    }
+}
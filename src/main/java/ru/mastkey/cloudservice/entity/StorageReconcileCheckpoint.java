@@ -0,0 +1,31 @@
+package ru.mastkey.cloudservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Accessors(chain = true)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "storage_reconcile_checkpoints")
+public class StorageReconcileCheckpoint {
+
+    @Id
+    @Column(name = "bucket_name", nullable = false, updatable = false, unique = true)
+    private String bucketName;
+
+    @Column(name = "last_key")
+    private String lastKey;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
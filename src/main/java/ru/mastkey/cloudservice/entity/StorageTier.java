@@ -0,0 +1,11 @@
+package ru.mastkey.cloudservice.entity;
+
+// where the content of a file currently lives when storage tiering is enabled
+public enum StorageTier {
+    // only on the local hot tier, not yet replicated to S3
+    HOT,
+    // on both tiers, reads are served locally
+    REPLICATED,
+    // only in S3
+    COLD
+}
@@ -3,10 +3,13 @@ package ru.mastkey.cloudservice.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.mastkey.cloudservice.util.UuidUtils;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Getter
@@ -16,6 +19,8 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 public class User {
 
@@ -41,11 +46,12 @@ public class User {
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "workspace_id")
     )
-    private List<Workspace> workspaces = new ArrayList<>();
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<Workspace> workspaces = new HashSet<>();
 
     @PrePersist
     void prePersist() {
-        var uuid = UUID.randomUUID();
+        var uuid = UuidUtils.randomV7();
         this.id = uuid;
         this.bucketName = uuid.toString();
         this.createdAt = LocalDateTime.now();
@@ -2,6 +2,8 @@ package ru.mastkey.cloudservice.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import ru.mastkey.cloudservice.util.UuidUtils;
+
 import java.util.UUID;
 
 @Getter
@@ -14,7 +16,6 @@ import java.util.UUID;
 public class UserWorkspace {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "id", nullable = false, unique = true, updatable = false)
     private UUID id;
 
@@ -25,4 +26,9 @@ public class UserWorkspace {
     @ManyToOne
     @JoinColumn(name = "workspace_id", nullable = false)
     private Workspace workspace;
+
+    @PrePersist
+    void prePersist() {
+        this.id = UuidUtils.randomV7();
+    }
 }
\ No newline at end of file
@@ -3,10 +3,15 @@ package ru.mastkey.cloudservice.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.mastkey.cloudservice.util.UuidUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Getter
@@ -16,16 +21,18 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "workspaces")
 public class Workspace {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
     private UUID id;
 
     @ManyToMany(mappedBy = "workspaces", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
-    private List<User> users = new ArrayList<>();
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<User> users = new HashSet<>();
 
     @Column(name = "name", nullable = false)
     private String name;
@@ -37,11 +44,12 @@ public class Workspace {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    @OneToMany(mappedBy = "workspace", cascade = CascadeType.REMOVE)
+    @OneToMany(mappedBy = "workspace")
     private List<File> files = new ArrayList<>();
 
     @PrePersist
     void prePersist() {
+        this.id = UuidUtils.randomV7();
         this.createdAt = LocalDateTime.now();
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package ru.mastkey.cloudservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// maintained by the trigger on files, the application only reads it
+@Getter
+@Setter
+@Accessors(chain = true)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "workspace_stats")
+public class WorkspaceStats {
+
+    @Id
+    @Column(name = "workspace_id", nullable = false, updatable = false)
+    private UUID workspaceId;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    private Long totalBytes;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
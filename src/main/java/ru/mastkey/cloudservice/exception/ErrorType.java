@@ -13,6 +13,7 @@ public enum ErrorType {
     SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE.value(), "ServiceUnavailable"),
     CONFLICT(HttpStatus.CONFLICT.value(), "Conflict"),
     FORBIDDEN(HttpStatus.FORBIDDEN.value(), "Forbidden"),
+    PAYLOAD_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE.value(), "PayloadTooLarge"),
     UNAUTHORIZED(HttpStatus.UNAUTHORIZED.value(), "Unauthorized" );
 
     private final int status;
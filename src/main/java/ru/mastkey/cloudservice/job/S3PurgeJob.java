@@ -0,0 +1,145 @@
+package ru.mastkey.cloudservice.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+import ru.mastkey.cloudservice.service.S3PurgeService;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
+import ru.mastkey.cloudservice.util.RateLimiter;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class S3PurgeJob {
+
+    private final S3PurgeService s3PurgeService;
+    private final StorageBackend storageBackend;
+    private final HotTierStorage hotTierStorage;
+    private final S3Properties.Purge purgeProperties;
+    private final RateLimiter rateLimiter;
+    private final ExecutorService taskExecutor;
+    private final ExecutorService batchExecutor;
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
+    public S3PurgeJob(S3PurgeService s3PurgeService, StorageBackend storageBackend, HotTierStorage hotTierStorage,
+                      S3Properties s3Properties) {
+        this.s3PurgeService = s3PurgeService;
+        this.storageBackend = storageBackend;
+        this.hotTierStorage = hotTierStorage;
+        this.purgeProperties = s3Properties.getPurge();
+        this.rateLimiter = new RateLimiter(purgeProperties.getBatchesPerSecond());
+        this.taskExecutor = Executors.newFixedThreadPool(purgeProperties.getConcurrentTasks(),
+                new CustomizableThreadFactory("s3-purge-"));
+        this.batchExecutor = Executors.newFixedThreadPool(
+                purgeProperties.getConcurrentTasks() * purgeProperties.getParallelBatches(),
+                new CustomizableThreadFactory("s3-purge-batch-"));
+    }
+
+    @Scheduled(fixedDelayString = "${s3.purge.poll-interval:5s}")
+    public void pollTasks() {
+        var freeSlots = purgeProperties.getConcurrentTasks() - runningTasks.get();
+        if (freeSlots <= 0) {
+            return;
+        }
+
+        for (var task : s3PurgeService.claimTasks(freeSlots)) {
+            runningTasks.incrementAndGet();
+            try {
+                taskExecutor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                runningTasks.decrementAndGet();
+                log.warn("S3 purge {} not started, executor is shut down", task.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        taskExecutor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    private void run(S3PurgeTask task) {
+        try {
+            purge(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("S3 purge {} failed on attempt {}, will retry after its lease expires: {}",
+                    task.getId(), task.getAttempts(), e.getMessage());
+        } finally {
+            runningTasks.decrementAndGet();
+        }
+    }
+
+    void purge(S3PurgeTask task) throws InterruptedException {
+        log.info("Purging prefix '{}' in bucket '{}', resuming after '{}'",
+                task.getPrefix(), task.getBucketName(), task.getLastKey());
+        // objects written after the purge was requested belong to whatever reused the prefix
+        var cutoff = task.getCreatedAt().atZone(ZoneId.systemDefault());
+        var window = new ArrayList<List<String>>();
+        var batch = new ArrayList<String>(purgeProperties.getBatchSize());
+
+        for (var object : storageBackend.listObjects(task.getBucketName(), task.getPrefix(), task.getLastKey())) {
+            if (object.lastModified() != null && object.lastModified().isAfter(cutoff)
+                    || task.getExactKey() && !object.key().equals(task.getPrefix())) {
+                continue;
+            }
+            batch.add(object.key());
+            if (batch.size() == purgeProperties.getBatchSize()) {
+                window.add(batch);
+                batch = new ArrayList<>(purgeProperties.getBatchSize());
+                if (window.size() == purgeProperties.getParallelBatches()) {
+                    deleteWindow(task, window);
+                    window.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            window.add(batch);
+        }
+        deleteWindow(task, window);
+        if (task.getExactKey()) {
+            hotTierStorage.delete(task.getBucketName(), task.getPrefix());
+        } else {
+            hotTierStorage.deletePrefix(task.getBucketName(), task.getPrefix());
+        }
+
+        s3PurgeService.complete(task.getId());
+        log.info("Purged {} objects from prefix '{}' in bucket '{}'",
+                task.getDeletedObjects(), task.getPrefix(), task.getBucketName());
+    }
+
+    private void deleteWindow(S3PurgeTask task, List<List<String>> window) throws InterruptedException {
+        if (window.isEmpty()) {
+            return;
+        }
+
+        var deletions = new ArrayList<CompletableFuture<Void>>(window.size());
+        for (var keys : window) {
+            rateLimiter.acquire();
+            deletions.add(CompletableFuture.runAsync(
+                    () -> storageBackend.removeObjects(task.getBucketName(), keys), batchExecutor));
+        }
+        CompletableFuture.allOf(deletions.toArray(CompletableFuture[]::new)).join();
+
+        var lastBatch = window.get(window.size() - 1);
+        var deleted = window.stream().mapToLong(List::size).sum();
+        task.setLastKey(lastBatch.get(lastBatch.size() - 1))
+                .setDeletedObjects(task.getDeletedObjects() + deleted);
+        s3PurgeService.checkpoint(task);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.mastkey.cloudservice.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.service.StorageConsistencyService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage.reconcile", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StorageConsistencyJob {
+
+    private final StorageConsistencyService storageConsistencyService;
+
+    @Scheduled(fixedDelayString = "${storage.reconcile.interval:24h}", initialDelayString = "${storage.reconcile.initial-delay:10m}")
+    public void reconcile() {
+        log.info("Reconciling the files table with object storage");
+        storageConsistencyService.reconcileAll();
+    }
+}
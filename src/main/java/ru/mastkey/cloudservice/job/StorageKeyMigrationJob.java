@@ -0,0 +1,29 @@
+package ru.mastkey.cloudservice.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.service.StorageKeyMigrationService;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "s3.key-migration", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StorageKeyMigrationJob {
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final StorageKeyMigrationService storageKeyMigrationService;
+
+    // rows that are already migrated drop out of the query, so every run resumes where the last one stopped
+    @Scheduled(fixedDelayString = "${s3.key-migration.interval:1m}")
+    public void migrate() {
+        var cursor = storageKeyMigrationService.migrateBatch(MIN_ID);
+        while (cursor.isPresent() && !Thread.currentThread().isInterrupted()) {
+            cursor = storageKeyMigrationService.migrateBatch(cursor.get());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.mastkey.cloudservice.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.service.StorageTieringService;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage.tiering", name = "enabled", havingValue = "true")
+public class StorageTieringJob {
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final StorageTieringService storageTieringService;
+
+    @Scheduled(fixedDelayString = "${storage.tiering.replication-interval:5s}")
+    public void replicate() {
+        var cursor = storageTieringService.replicateBatch(MIN_ID);
+        while (cursor.isPresent() && !Thread.currentThread().isInterrupted()) {
+            cursor = storageTieringService.replicateBatch(cursor.get());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.tiering.demotion-interval:1h}")
+    public void demote() {
+        storageTieringService.flushAccesses();
+        var cursor = storageTieringService.demoteBatch(MIN_ID);
+        while (cursor.isPresent() && !Thread.currentThread().isInterrupted()) {
+            cursor = storageTieringService.demoteBatch(cursor.get());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.mastkey.cloudservice.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.service.StorageUsageReconcileService;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "quota.reconcile", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StorageUsageReconcileJob {
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final StorageUsageReconcileService storageUsageReconcileService;
+
+    @Scheduled(fixedDelayString = "${quota.reconcile.interval:6h}")
+    public void reconcile() {
+        log.info("Reconciling stored sizes with S3");
+        var cursor = storageUsageReconcileService.reconcileBatch(MIN_ID);
+        while (cursor.isPresent() && !Thread.currentThread().isInterrupted()) {
+            cursor = storageUsageReconcileService.reconcileBatch(cursor.get());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.mastkey.cloudservice.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.service.WorkspaceStatsService;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "workspace-stats.reconcile", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WorkspaceStatsReconcileJob {
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final WorkspaceStatsService workspaceStatsService;
+
+    @Scheduled(fixedDelayString = "${workspace-stats.reconcile.interval:1h}")
+    public void reconcile() {
+        log.info("Reconciling workspace stats");
+        var cursor = workspaceStatsService.reconcileBatch(MIN_ID);
+        while (cursor.isPresent() && !Thread.currentThread().isInterrupted()) {
+            cursor = workspaceStatsService.reconcileBatch(cursor.get());
+        }
+    }
+}
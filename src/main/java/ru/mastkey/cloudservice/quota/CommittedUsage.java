@@ -0,0 +1,32 @@
+package ru.mastkey.cloudservice.quota;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// usage committed to workspace_stats as last read, plus the uploads this node finished since then
+class CommittedUsage {
+    private final AtomicLong bytes;
+    private final AtomicLong objects;
+
+    CommittedUsage(long bytes, long objects) {
+        this.bytes = new AtomicLong(bytes);
+        this.objects = new AtomicLong(objects);
+    }
+
+    void add(long bytes, long objects) {
+        this.bytes.addAndGet(bytes);
+        this.objects.addAndGet(objects);
+    }
+
+    void set(long bytes, long objects) {
+        this.bytes.set(bytes);
+        this.objects.set(objects);
+    }
+
+    long bytes() {
+        return bytes.get();
+    }
+
+    long objects() {
+        return objects.get();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.mastkey.cloudservice.quota;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// after the transaction the rows are counted by workspace_stats, so the reservation is released either way.
+// the cached usage counts a released upload even if it failed, which only sends the next check to the database sooner
+public class QuotaReservation {
+    private final List<ReservedUsage> usages;
+    private final List<CommittedUsage> committedUsages;
+    private final long bytes;
+    private final long objects;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    QuotaReservation(List<ReservedUsage> usages, List<CommittedUsage> committedUsages, long bytes, long objects) {
+        this.usages = usages;
+        this.committedUsages = committedUsages;
+        this.bytes = bytes;
+        this.objects = objects;
+        usages.forEach(usage -> usage.add(bytes, objects));
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            usages.forEach(usage -> usage.add(-bytes, -objects));
+            committedUsages.forEach(usage -> usage.add(bytes, objects));
+        }
+    }
+
+    void cancel() {
+        if (released.compareAndSet(false, true)) {
+            usages.forEach(usage -> usage.add(-bytes, -objects));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.mastkey.cloudservice.quota;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// striped counters, concurrent uploads to the same user do not contend on one cache line
+class ReservedUsage {
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+
+    void add(long bytes, long objects) {
+        this.bytes.add(bytes);
+        this.objects.add(objects);
+    }
+
+    long bytes() {
+        return bytes.sum();
+    }
+
+    long objects() {
+        return objects.sum();
+    }
+}
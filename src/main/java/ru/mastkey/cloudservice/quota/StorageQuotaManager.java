@@ -0,0 +1,138 @@
+package ru.mastkey.cloudservice.quota;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.QuotaProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.WorkspaceStatsRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_USER_QUOTA_EXCEEDED;
+import static ru.mastkey.cloudservice.util.Constants.MSG_WORKSPACE_QUOTA_EXCEEDED;
+
+@Slf4j
+@Component
+public class StorageQuotaManager {
+
+    private final WorkspaceStatsRepository workspaceStatsRepository;
+    private final QuotaProperties quotaProperties;
+    private final Cache<UUID, ReservedUsage> userReservations;
+    private final Cache<UUID, ReservedUsage> workspaceReservations;
+    private final Cache<UUID, CommittedUsage> userUsage;
+    private final Cache<UUID, CommittedUsage> workspaceUsage;
+    private final Counter userRejections;
+    private final Counter workspaceRejections;
+
+    public StorageQuotaManager(WorkspaceStatsRepository workspaceStatsRepository,
+                               QuotaProperties quotaProperties,
+                               MeterRegistry meterRegistry) {
+        this.workspaceStatsRepository = workspaceStatsRepository;
+        this.quotaProperties = quotaProperties;
+        // a reservation keeps its own reference, so evicting an idle entry never loses a release
+        this.userReservations = Caffeine.newBuilder()
+                .expireAfterAccess(quotaProperties.getCounterIdleTimeout())
+                .build();
+        this.workspaceReservations = Caffeine.newBuilder()
+                .expireAfterAccess(quotaProperties.getCounterIdleTimeout())
+                .build();
+        // uploads committed by other nodes are only seen once the entry is read again
+        this.userUsage = Caffeine.newBuilder()
+                .expireAfterWrite(quotaProperties.getUsageRefreshInterval())
+                .build();
+        this.workspaceUsage = Caffeine.newBuilder()
+                .expireAfterWrite(quotaProperties.getUsageRefreshInterval())
+                .build();
+        this.userRejections = Counter.builder("quota.rejections")
+                .tag("scope", "user")
+                .register(meterRegistry);
+        this.workspaceRejections = Counter.builder("quota.rejections")
+                .tag("scope", "workspace")
+                .register(meterRegistry);
+    }
+
+    // taken before the check, so two racing uploads can both be rejected but never both admitted.
+    // the cached usage is enough far from the limit, near it the check is made against workspace_stats
+    public QuotaReservation reserve(UUID ownerId, UUID workspaceId, long bytes, long objects) {
+        if (!quotaProperties.getEnabled()) {
+            return new QuotaReservation(List.of(), List.of(), bytes, objects);
+        }
+
+        var committed = committedUsage(ownerId, workspaceId);
+        var userReserved = userReservations.get(ownerId, id -> new ReservedUsage());
+        var workspaceReserved = workspaceReservations.get(workspaceId, id -> new ReservedUsage());
+        var reservation = new QuotaReservation(List.of(userReserved, workspaceReserved),
+                List.of(committed.user(), committed.workspace()), bytes, objects);
+
+        var nearLimitRatio = quotaProperties.getNearLimitRatio();
+        if (exceedsUserQuota(committed, userReserved, nearLimitRatio)
+                || exceedsWorkspaceQuota(committed, workspaceReserved, nearLimitRatio)) {
+            committed = refreshUsage(ownerId, workspaceId);
+        }
+        if (exceedsUserQuota(committed, userReserved, 1.0)) {
+            reservation.cancel();
+            userRejections.increment();
+            log.warn("User quota exceeded: userId={}, bytes={}, objects={}", ownerId, bytes, objects);
+            throw new ServiceException(ErrorType.PAYLOAD_TOO_LARGE, MSG_USER_QUOTA_EXCEEDED, ownerId);
+        }
+        if (exceedsWorkspaceQuota(committed, workspaceReserved, 1.0)) {
+            reservation.cancel();
+            workspaceRejections.increment();
+            log.warn("Workspace quota exceeded: workspaceId={}, bytes={}, objects={}", workspaceId, bytes, objects);
+            throw new ServiceException(ErrorType.PAYLOAD_TOO_LARGE, MSG_WORKSPACE_QUOTA_EXCEEDED, workspaceId);
+        }
+        return reservation;
+    }
+
+    // the next reservation reads workspace_stats again
+    public void invalidate(UUID ownerId, UUID workspaceId) {
+        userUsage.invalidate(ownerId);
+        workspaceUsage.invalidate(workspaceId);
+    }
+
+    private Usage committedUsage(UUID ownerId, UUID workspaceId) {
+        var user = userUsage.getIfPresent(ownerId);
+        var workspace = workspaceUsage.getIfPresent(workspaceId);
+        if (user == null || workspace == null) {
+            return refreshUsage(ownerId, workspaceId);
+        }
+        return new Usage(user, workspace);
+    }
+
+    // the entries are updated in place, so reservations taken earlier still add to them on release
+    private Usage refreshUsage(UUID ownerId, UUID workspaceId) {
+        var stored = workspaceStatsRepository.findUsage(ownerId, workspaceId);
+        var user = userUsage.asMap().compute(ownerId,
+                (id, usage) -> update(usage, stored.getUserBytes(), stored.getUserObjects()));
+        var workspace = workspaceUsage.asMap().compute(workspaceId,
+                (id, usage) -> update(usage, stored.getWorkspaceBytes(), stored.getWorkspaceObjects()));
+        return new Usage(user, workspace);
+    }
+
+    private CommittedUsage update(CommittedUsage usage, long bytes, long objects) {
+        if (usage == null) {
+            return new CommittedUsage(bytes, objects);
+        }
+        usage.set(bytes, objects);
+        return usage;
+    }
+
+    private boolean exceedsUserQuota(Usage committed, ReservedUsage reserved, double ratio) {
+        return committed.user().bytes() + reserved.bytes() > quotaProperties.getUserMaxBytes().toBytes() * ratio
+                || committed.user().objects() + reserved.objects() > quotaProperties.getUserMaxObjects() * ratio;
+    }
+
+    private boolean exceedsWorkspaceQuota(Usage committed, ReservedUsage reserved, double ratio) {
+        return committed.workspace().bytes() + reserved.bytes() > quotaProperties.getWorkspaceMaxBytes().toBytes() * ratio
+                || committed.workspace().objects() + reserved.objects() > quotaProperties.getWorkspaceMaxObjects() * ratio;
+    }
+
+    private record Usage(CommittedUsage user, CommittedUsage workspace) {
+    }
+}
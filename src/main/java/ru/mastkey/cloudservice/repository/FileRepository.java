@@ -1,13 +1,193 @@
 package ru.mastkey.cloudservice.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.mastkey.cloudservice.entity.File;
-import ru.mastkey.cloudservice.entity.Workspace;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface FileRepository extends JpaRepository<File, UUID>, JpaSpecificationExecutor<File> {
-    Optional<File> findByWorkspaceAndFileNameAndFileExtension(Workspace workspace, String fileName, String fileExtension);
+    @Query(value = """
+            SELECT f.* FROM files f
+            JOIN unnest(CAST(:fileNames AS TEXT[]), CAST(:fileExtensions AS TEXT[])) AS n(file_name, file_extension)
+                ON f.file_name = n.file_name AND f.file_extension = n.file_extension
+            WHERE f.workspace_id = :workspaceId
+            """, nativeQuery = true)
+    List<File> findByWorkspaceIdAndNames(@Param("workspaceId") UUID workspaceId,
+                                         @Param("fileNames") String[] fileNames,
+                                         @Param("fileExtensions") String[] fileExtensions);
+
+    @Query(value = """
+            SELECT f.path FROM files f
+            JOIN unnest(CAST(:fileNames AS TEXT[]), CAST(:fileExtensions AS TEXT[])) AS n(file_name, file_extension)
+                ON f.file_name = n.file_name AND f.file_extension = n.file_extension
+            WHERE f.workspace_id = :workspaceId
+            FOR UPDATE OF f
+            """, nativeQuery = true)
+    List<String> lockPathsByWorkspaceIdAndNames(@Param("workspaceId") UUID workspaceId,
+                                                @Param("fileNames") String[] fileNames,
+                                                @Param("fileExtensions") String[] fileExtensions);
+
+    // on conflict RETURNING yields the row that already holds the name, moved to the new object
+    @Query(value = """
+            INSERT INTO files (id, workspace_id, file_name, file_extension, path, size, storage_tier, created_at)
+            SELECT f.id, :workspaceId, f.file_name, f.file_extension, f.path, f.size, :storageTier, CURRENT_TIMESTAMP
+            FROM unnest(CAST(:ids AS UUID[]), CAST(:fileNames AS TEXT[]), CAST(:fileExtensions AS TEXT[]),
+                        CAST(:paths AS TEXT[]), CAST(:sizes AS BIGINT[]))
+                     AS f(id, file_name, file_extension, path, size)
+            ON CONFLICT (workspace_id, file_name, file_extension)
+                DO UPDATE SET path = EXCLUDED.path, size = EXCLUDED.size, storage_tier = EXCLUDED.storage_tier
+            RETURNING *
+            """, nativeQuery = true)
+    List<File> upsertAll(@Param("workspaceId") UUID workspaceId,
+                         @Param("ids") UUID[] ids,
+                         @Param("fileNames") String[] fileNames,
+                         @Param("fileExtensions") String[] fileExtensions,
+                         @Param("paths") String[] paths,
+                         @Param("sizes") Long[] sizes,
+                         @Param("storageTier") String storageTier);
+
+    // the total of a listing comes from workspace_stats instead of a count query
+    List<File> findByWorkspaceId(UUID workspaceId, Pageable pageable);
+
+    @Query(value = """
+            SELECT * FROM files
+            WHERE id > :afterId
+              AND NOT starts_with(path, CAST(workspace_id AS TEXT) || '/')
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<File> findWithLegacyKeysForUpdate(@Param("afterId") UUID afterId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM files WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<File> findByIdForUpdate(@Param("id") UUID id);
+
+    // only what is expected under the workspace prefix in S3, hot files may not be there yet
+    @Query(value = """
+            SELECT COALESCE(SUM(size), 0) FROM files
+            WHERE workspace_id = :workspaceId
+              AND storage_tier <> 'HOT'
+              AND starts_with(path, CAST(workspace_id AS TEXT) || '/')
+            """, nativeQuery = true)
+    long sumStoredSize(@Param("workspaceId") UUID workspaceId);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE files f
+            SET size = o.size
+            FROM unnest(CAST(:paths AS TEXT[]), CAST(:sizes AS BIGINT[])) AS o(path, size)
+            WHERE f.workspace_id = :workspaceId
+              AND f.path = o.path
+              AND f.storage_tier <> 'HOT'
+              AND f.size <> o.size
+            """, nativeQuery = true)
+    int correctSizesByPath(@Param("workspaceId") UUID workspaceId,
+                           @Param("paths") String[] paths,
+                           @Param("sizes") Long[] sizes);
+
+    @Query("""
+            SELECT f FROM File f
+            JOIN FETCH f.workspace w
+            JOIN FETCH w.owner
+            WHERE f.storageTier = ru.mastkey.cloudservice.entity.StorageTier.HOT
+              AND f.id > :afterId
+            ORDER BY f.id
+            """)
+    List<File> findHot(@Param("afterId") UUID afterId, Pageable pageable);
+
+    // an overwrite or append while the content was copied changes the row, which then waits for the next run
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE files
+            SET storage_tier = 'REPLICATED'
+            WHERE id = :id
+              AND storage_tier = 'HOT'
+              AND path = :path
+              AND size = :size
+            """, nativeQuery = true)
+    int markReplicated(@Param("id") UUID id, @Param("path") String path, @Param("size") long size);
+
+    @Query(value = """
+            SELECT * FROM files
+            WHERE storage_tier = 'REPLICATED'
+              AND COALESCE(last_accessed_at, created_at) < :idleSince
+              AND id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<File> findIdleReplicatedForUpdate(@Param("idleSince") LocalDateTime idleSince,
+                                           @Param("afterId") UUID afterId,
+                                           @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE files f
+            SET last_accessed_at = a.accessed_at
+            FROM unnest(CAST(:ids AS UUID[]), CAST(:accessedAt AS TIMESTAMP[])) AS a(id, accessed_at)
+            WHERE f.id = a.id
+              AND (f.last_accessed_at IS NULL OR f.last_accessed_at < a.accessed_at)
+            """, nativeQuery = true)
+    void updateLastAccessedAt(@Param("ids") UUID[] ids, @Param("accessedAt") LocalDateTime[] accessedAt);
+
+    // byte order of the paths, which is the order S3 lists keys in
+    @Query(value = """
+            SELECT * FROM files
+            WHERE workspace_id = :workspaceId
+              AND path COLLATE "C" > :afterPath
+              AND path COLLATE "C" < :beforePath
+            ORDER BY path COLLATE "C"
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<File> findByWorkspaceAfterPath(@Param("workspaceId") UUID workspaceId,
+                                        @Param("afterPath") String afterPath,
+                                        @Param("beforePath") String beforePath,
+                                        @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT f.path FROM files f
+            JOIN workspaces w ON w.id = f.workspace_id
+            JOIN users u ON u.id = w.owner_id
+            WHERE u.bucket_name = :bucketName
+              AND f.path COLLATE "C" = ANY (CAST(:paths AS TEXT[]))
+            """, nativeQuery = true)
+    List<String> findPathsInBucket(@Param("bucketName") String bucketName, @Param("paths") String[] paths);
+
+    // a row whose path changed since it was read is left alone
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM files f
+            USING unnest(CAST(:ids AS UUID[]), CAST(:paths AS TEXT[])) AS d(id, path)
+            WHERE f.id = d.id
+              AND f.path = d.path
+            """, nativeQuery = true)
+    int deleteByIdsAndPaths(@Param("ids") UUID[] ids, @Param("paths") String[] paths);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE files f
+            SET size = c.size
+            FROM unnest(CAST(:ids AS UUID[]), CAST(:paths AS TEXT[]), CAST(:expectedSizes AS BIGINT[]),
+                        CAST(:sizes AS BIGINT[])) AS c(id, path, expected_size, size)
+            WHERE f.id = c.id
+              AND f.path = c.path
+              AND f.size = c.expected_size
+            """, nativeQuery = true)
+    int correctSizes(@Param("ids") UUID[] ids,
+                     @Param("paths") String[] paths,
+                     @Param("expectedSizes") Long[] expectedSizes,
+                     @Param("sizes") Long[] sizes);
 }
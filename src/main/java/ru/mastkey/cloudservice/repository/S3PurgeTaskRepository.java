@@ -0,0 +1,47 @@
+package ru.mastkey.cloudservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface S3PurgeTaskRepository extends JpaRepository<S3PurgeTask, UUID> {
+
+    @Query(value = """
+            SELECT * FROM s3_purge_tasks
+            WHERE locked_until IS NULL OR locked_until < :now
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<S3PurgeTask> findAvailableForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // one exact-key task per legacy file, written by the database so the row count does not reach the request
+    @Modifying
+    @Query(value = """
+            INSERT INTO s3_purge_tasks (id, bucket_name, prefix, exact_key, created_at)
+            SELECT gen_random_uuid(), :bucketName, path, TRUE, :createdAt
+            FROM files
+            WHERE workspace_id = :workspaceId
+              AND NOT starts_with(path, CAST(workspace_id AS TEXT) || '/')
+            """, nativeQuery = true)
+    int enqueueLegacyKeys(@Param("bucketName") String bucketName,
+                          @Param("workspaceId") UUID workspaceId,
+                          @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("""
+            UPDATE S3PurgeTask t
+            SET t.lastKey = :lastKey, t.deletedObjects = :deletedObjects, t.lockedUntil = :lockedUntil
+            WHERE t.id = :id
+            """)
+    void checkpoint(@Param("id") UUID id,
+                    @Param("lastKey") String lastKey,
+                    @Param("deletedObjects") Long deletedObjects,
+                    @Param("lockedUntil") LocalDateTime lockedUntil);
+}
@@ -0,0 +1,51 @@
+package ru.mastkey.cloudservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mastkey.cloudservice.entity.StorageReconcileCheckpoint;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface StorageReconcileCheckpointRepository extends JpaRepository<StorageReconcileCheckpoint, String> {
+
+    // empty while another node holds the bucket or has reconciled it since completedBefore
+    @Transactional
+    @Query(value = """
+            INSERT INTO storage_reconcile_checkpoints (bucket_name, locked_until)
+            VALUES (:bucketName, :lockedUntil)
+            ON CONFLICT (bucket_name) DO UPDATE SET locked_until = EXCLUDED.locked_until
+                WHERE (storage_reconcile_checkpoints.locked_until IS NULL
+                           OR storage_reconcile_checkpoints.locked_until < :now)
+                  AND (storage_reconcile_checkpoints.completed_at IS NULL
+                           OR storage_reconcile_checkpoints.completed_at < :completedBefore)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<StorageReconcileCheckpoint> claim(@Param("bucketName") String bucketName,
+                                               @Param("lockedUntil") LocalDateTime lockedUntil,
+                                               @Param("now") LocalDateTime now,
+                                               @Param("completedBefore") LocalDateTime completedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE StorageReconcileCheckpoint c
+            SET c.lastKey = :lastKey, c.lockedUntil = :lockedUntil
+            WHERE c.bucketName = :bucketName
+            """)
+    void checkpoint(@Param("bucketName") String bucketName,
+                    @Param("lastKey") String lastKey,
+                    @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE StorageReconcileCheckpoint c
+            SET c.lastKey = NULL, c.lockedUntil = NULL, c.completedAt = :completedAt
+            WHERE c.bucketName = :bucketName
+            """)
+    void complete(@Param("bucketName") String bucketName, @Param("completedAt") LocalDateTime completedAt);
+}
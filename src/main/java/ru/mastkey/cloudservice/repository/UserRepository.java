@@ -1,16 +1,26 @@
 package ru.mastkey.cloudservice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.mastkey.cloudservice.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.workspaces w WHERE u.id = :id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByUserIdWithWorkspaces(@Param("id") UUID id);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT DISTINCT u.bucketName FROM User u ORDER BY u.bucketName")
+    List<String> findAllBucketNames();
 }
@@ -2,10 +2,12 @@ package ru.mastkey.cloudservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.mastkey.cloudservice.entity.Workspace;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +15,14 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, UUID>, Jpa
 
     @Query("SELECT w FROM Workspace w LEFT JOIN FETCH w.files WHERE w.id = :id")
     Optional<Workspace> findByIdWithFiles(@Param("id") UUID id);
+
+    @Modifying
+    @Query("DELETE FROM Workspace w WHERE w.id = :id")
+    void deleteWorkspaceById(@Param("id") UUID id);
+
+    @Query("SELECT w FROM Workspace w JOIN FETCH w.owner WHERE w.id > :afterId ORDER BY w.id LIMIT :limit")
+    List<Workspace> findBatchAfter(@Param("afterId") UUID afterId, @Param("limit") int limit);
+
+    @Query("SELECT w.id FROM Workspace w WHERE w.owner.bucketName = :bucketName")
+    List<UUID> findIdsByOwnerBucketName(@Param("bucketName") String bucketName);
 }
@@ -0,0 +1,51 @@
+package ru.mastkey.cloudservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.mastkey.cloudservice.entity.WorkspaceStats;
+import ru.mastkey.cloudservice.repository.model.StorageUsage;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface WorkspaceStatsRepository extends JpaRepository<WorkspaceStats, UUID> {
+
+    // holding the rows keeps the trigger from changing them between the recount and the write
+    @Query(value = """
+            SELECT workspace_id FROM workspace_stats
+            WHERE workspace_id > :afterId
+            ORDER BY workspace_id
+            LIMIT :limit
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<UUID> lockBatch(@Param("afterId") UUID afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE workspace_stats s
+            SET file_count  = a.file_count,
+                total_bytes = a.total_bytes,
+                updated_at  = CURRENT_TIMESTAMP
+            FROM (SELECT ws.workspace_id, COUNT(f.id) AS file_count, COALESCE(SUM(f.size), 0) AS total_bytes
+                  FROM unnest(CAST(:workspaceIds AS UUID[])) AS ws(workspace_id)
+                           LEFT JOIN files f ON f.workspace_id = ws.workspace_id
+                  GROUP BY ws.workspace_id) a
+            WHERE s.workspace_id = a.workspace_id
+              AND (s.file_count <> a.file_count OR s.total_bytes <> a.total_bytes)
+            """, nativeQuery = true)
+    int recount(@Param("workspaceIds") UUID[] workspaceIds);
+
+    // everything in the owner's bucket counts against the owner, whoever uploaded it
+    @Query(value = """
+            SELECT COALESCE(SUM(s.total_bytes), 0) AS "userBytes",
+                   COALESCE(SUM(s.file_count), 0) AS "userObjects",
+                   COALESCE(SUM(s.total_bytes) FILTER (WHERE s.workspace_id = :workspaceId), 0) AS "workspaceBytes",
+                   COALESCE(SUM(s.file_count) FILTER (WHERE s.workspace_id = :workspaceId), 0) AS "workspaceObjects"
+            FROM workspace_stats s
+                     JOIN workspaces w ON w.id = s.workspace_id
+            WHERE w.owner_id = :ownerId
+            """, nativeQuery = true)
+    StorageUsage findUsage(@Param("ownerId") UUID ownerId, @Param("workspaceId") UUID workspaceId);
+}
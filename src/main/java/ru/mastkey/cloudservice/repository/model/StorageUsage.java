@@ -0,0 +1,11 @@
+package ru.mastkey.cloudservice.repository.model;
+
+public interface StorageUsage {
+    long getUserBytes();
+
+    long getUserObjects();
+
+    long getWorkspaceBytes();
+
+    long getWorkspaceObjects();
+}
@@ -0,0 +1,187 @@
+package ru.mastkey.cloudservice.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mastkey.cloudservice.configuration.properties.UploadSchedulerProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_UPLOAD_QUEUE_TIMEOUT;
+
+// deficit round robin over users: every turn a waiting user earns one quantum of bytes and may start uploads
+// the earned bytes cover, so a user sending a large batch cannot hold back users sending small files
+@Slf4j
+@Component
+public class FairUploadScheduler {
+
+    private final UploadSchedulerProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<UUID, TenantQueue> tenants = new HashMap<>();
+    private final Deque<TenantQueue> ring = new ArrayDeque<>();
+    private final Timer waitTimer;
+    private final Counter rejections;
+    private int inFlight;
+    private int waiting;
+
+    public FairUploadScheduler(UploadSchedulerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.waitTimer = Timer.builder("upload.scheduler.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("upload.scheduler.rejections")
+                .register(meterRegistry);
+        Gauge.builder("upload.scheduler.active", this, FairUploadScheduler::getActiveUploads)
+                .register(meterRegistry);
+        Gauge.builder("upload.scheduler.waiting", this, FairUploadScheduler::getWaitingUploads)
+                .register(meterRegistry);
+    }
+
+    public UploadPermit acquire(UUID userId, long bytes) {
+        if (!properties.getEnabled()) {
+            return UploadPermit.unlimited();
+        }
+
+        var startedAt = System.nanoTime();
+        lock.lock();
+        try {
+            var tenant = tenants.computeIfAbsent(userId, TenantQueue::new);
+            var waiter = new TenantQueue.Waiter(bytes, lock.newCondition());
+            tenant.waiters.addLast(waiter);
+            waiting++;
+            if (!tenant.scheduled) {
+                tenant.scheduled = true;
+                ring.addLast(tenant);
+            }
+            dispatch();
+
+            var remaining = properties.getAcquireTimeout().toNanos();
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!waiter.granted) {
+                abandon(tenant, waiter);
+                rejections.increment();
+                log.warn("Upload slot not granted in time: userId={}, bytes={}", userId, bytes);
+                throw new ServiceException(ErrorType.SERVICE_UNAVAILABLE, MSG_UPLOAD_QUEUE_TIMEOUT);
+            }
+            return new UploadPermit(this, tenant);
+        } finally {
+            lock.unlock();
+            waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int getActiveUploads() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaitingUploads() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(TenantQueue tenant) {
+        lock.lock();
+        try {
+            tenant.inFlight--;
+            inFlight--;
+            if (tenant.isIdle()) {
+                tenants.remove(tenant.tenantId);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        var quantum = properties.getQuantum().toBytes();
+        var maxPerUser = properties.getMaxConcurrentUploadsPerUser();
+        var blocked = 0;
+        while (inFlight < properties.getMaxConcurrentUploads() && !ring.isEmpty() && blocked < ring.size()) {
+            var tenant = ring.peekFirst();
+            if (tenant.inFlight >= maxPerUser) {
+                // a user at its own limit passes the turn without earning a quantum
+                tenant.inTurn = false;
+                ring.addLast(ring.pollFirst());
+                blocked++;
+                continue;
+            }
+            blocked = 0;
+
+            if (!tenant.inTurn) {
+                tenant.inTurn = true;
+                tenant.deficit += quantum;
+            }
+            while (!tenant.waiters.isEmpty()
+                    && tenant.waiters.peekFirst().cost <= tenant.deficit
+                    && tenant.inFlight < maxPerUser
+                    && inFlight < properties.getMaxConcurrentUploads()) {
+                var waiter = tenant.waiters.pollFirst();
+                tenant.deficit -= waiter.cost;
+                tenant.inFlight++;
+                inFlight++;
+                waiting--;
+                waiter.granted = true;
+                waiter.condition.signal();
+            }
+            if (inFlight >= properties.getMaxConcurrentUploads() && !tenant.waiters.isEmpty()) {
+                // the turn goes on once a slot is freed
+                return;
+            }
+
+            tenant.inTurn = false;
+            ring.pollFirst();
+            if (tenant.waiters.isEmpty()) {
+                unschedule(tenant);
+            } else {
+                ring.addLast(tenant);
+            }
+        }
+    }
+
+    private void abandon(TenantQueue tenant, TenantQueue.Waiter waiter) {
+        tenant.waiters.remove(waiter);
+        waiting--;
+        if (tenant.waiters.isEmpty()) {
+            ring.remove(tenant);
+            unschedule(tenant);
+        }
+        if (tenant.isIdle()) {
+            tenants.remove(tenant.tenantId);
+        }
+        dispatch();
+    }
+
+    private void unschedule(TenantQueue tenant) {
+        tenant.scheduled = false;
+        tenant.inTurn = false;
+        tenant.deficit = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.mastkey.cloudservice.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+
+// uploads of one user waiting for a slot, only accessed under the scheduler lock
+class TenantQueue {
+    final UUID tenantId;
+    final Deque<Waiter> waiters = new ArrayDeque<>();
+    long deficit;
+    int inFlight;
+    boolean scheduled;
+    boolean inTurn;
+
+    TenantQueue(UUID tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    boolean isIdle() {
+        return inFlight == 0 && waiters.isEmpty();
+    }
+
+    static class Waiter {
+        final long cost;
+        final Condition condition;
+        boolean granted;
+
+        Waiter(long cost, Condition condition) {
+            this.cost = cost;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.mastkey.cloudservice.scheduler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// held while the content is sent to S3
+public class UploadPermit implements AutoCloseable {
+    private static final UploadPermit UNLIMITED = new UploadPermit(null, null);
+
+    private final FairUploadScheduler scheduler;
+    private final TenantQueue tenant;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    UploadPermit(FairUploadScheduler scheduler, TenantQueue tenant) {
+        this.scheduler = scheduler;
+        this.tenant = tenant;
+    }
+
+    static UploadPermit unlimited() {
+        return UNLIMITED;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null && released.compareAndSet(false, true)) {
+            scheduler.release(tenant);
+        }
+    }
+}
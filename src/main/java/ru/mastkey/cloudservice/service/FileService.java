@@ -5,9 +5,11 @@ import org.springframework.web.multipart.MultipartFile;
 import ru.mastkey.cloudservice.client.model.FileContent;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.model.FileResponse;
 import ru.mastkey.model.PageFileResponse;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface FileService {
@@ -16,4 +18,8 @@ public interface FileService {
     void deleteFile(UUID fileId, UUID workspaceId);
     PageFileResponse getFilesInfo(UUID workspaceId, PageRequest pageRequest);
     FileContent downloadFile(UUID fileId, UUID workspaceId);
+    Optional<String> getDownloadUrl(UUID fileId, UUID workspaceId);
+    FileResponse appendToFile(UUID fileId, UUID workspaceId, MultipartFile segment);
+    List<FileResponse> copyFiles(UUID workspaceId, List<UUID> fileIds, UUID targetWorkspaceId);
+    List<FileResponse> moveFiles(UUID workspaceId, List<UUID> fileIds, UUID targetWorkspaceId);
 }
@@ -0,0 +1,16 @@
+package ru.mastkey.cloudservice.service;
+
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface S3PurgeService {
+    void enqueue(String bucketName, String prefix);
+
+    List<S3PurgeTask> claimTasks(int limit);
+
+    void checkpoint(S3PurgeTask task);
+
+    void complete(UUID taskId);
+}
@@ -0,0 +1,5 @@
+package ru.mastkey.cloudservice.service;
+
+public interface StorageConsistencyService {
+    void reconcileAll();
+}
@@ -0,0 +1,10 @@
+package ru.mastkey.cloudservice.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StorageTieringService {
+    Optional<UUID> replicateBatch(UUID afterId);
+    Optional<UUID> demoteBatch(UUID afterId);
+    void flushAccesses();
+}
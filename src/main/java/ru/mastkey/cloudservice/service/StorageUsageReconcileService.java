@@ -0,0 +1,8 @@
+package ru.mastkey.cloudservice.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StorageUsageReconcileService {
+    Optional<UUID> reconcileBatch(UUID afterWorkspaceId);
+}
@@ -0,0 +1,14 @@
+package ru.mastkey.cloudservice.service;
+
+import ru.mastkey.cloudservice.controller.model.WorkspaceStatsResponse;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WorkspaceStatsService {
+    WorkspaceStatsResponse getStats(UUID workspaceId);
+
+    long getFileCount(UUID workspaceId);
+
+    Optional<UUID> reconcileBatch(UUID afterId);
+}
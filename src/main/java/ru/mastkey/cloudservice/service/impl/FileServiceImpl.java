@@ -3,32 +3,55 @@ package ru.mastkey.cloudservice.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.WorkspaceMembershipCache;
+import ru.mastkey.cloudservice.cache.model.WorkspaceMembership;
+import ru.mastkey.cloudservice.client.ObjectCopier;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.client.model.FileContent;
+import ru.mastkey.cloudservice.controller.model.RequestBodyFile;
 import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.quota.StorageQuotaManager;
 import ru.mastkey.cloudservice.repository.FileRepository;
 import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
+import ru.mastkey.cloudservice.scheduler.FairUploadScheduler;
 import ru.mastkey.cloudservice.service.FileService;
 import ru.mastkey.cloudservice.service.HttpContextService;
+import ru.mastkey.cloudservice.service.WorkspaceStatsService;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
 import ru.mastkey.cloudservice.util.FileUtils;
-import ru.mastkey.cloudservice.util.SpecificationUtils;
+import ru.mastkey.cloudservice.util.TransactionUtils;
+import ru.mastkey.cloudservice.util.UuidUtils;
 import ru.mastkey.model.FileResponse;
 import ru.mastkey.model.PageFileResponse;
 
+import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.mastkey.cloudservice.util.Constants.*;
 
@@ -37,56 +60,45 @@ import static ru.mastkey.cloudservice.util.Constants.*;
 @RequiredArgsConstructor
 public class FileServiceImpl implements FileService {
 
-    private final S3Client s3Client;
+    private final StorageBackend storageBackend;
     private final FileRepository fileRepository;
     private final ConversionService conversionService;
     private final UserWorkspaceRepository userWorkspaceRepository;
     private final HttpContextService httpContextService;
+    private final WorkspaceMembershipCache workspaceMembershipCache;
+    private final WorkspaceStatsService workspaceStatsService;
+    private final StorageQuotaManager storageQuotaManager;
+    private final FairUploadScheduler fairUploadScheduler;
+    private final HotTierStorage hotTierStorage;
+    private final ObjectCopier objectCopier;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional
     public void uploadFiles(UUID workspaceId, List<MultipartFile> files) {
         log.info("Uploading multiple files to workspace: {}", workspaceId);
         var userId = httpContextService.getUserIdFromJwtToken();
-        var userWorkspace = validateUserWorkspace(userId, workspaceId);
+        var workspace = validateUserWorkspace(userId, workspaceId).getWorkspace();
 
+        // one statement cannot upsert the same row twice, so the last copy of a repeated name wins
+        var filesByName = new LinkedHashMap<FileName, MultipartFile>();
         files.forEach(file -> {
-            log.debug("Uploading file: {} to workspace: {}", getDecodedFileName(file), workspaceId);
-            uploadFile(file, userWorkspace.getWorkspace(), userWorkspace.getUser());
+            var fileName = getDecodedFileName(file);
+            validateFileName(fileName);
+            filesByName.put(FileName.of(fileName), file);
         });
 
+        upload(userId, workspace, filesByName);
         log.info("Finished uploading files to workspace: {}", workspaceId);
     }
 
     @Override
-    @Transactional
     public void uploadFile(MultipartFile file, Workspace workspace, User user) {
         var fileName = getDecodedFileName(file);
         log.info("Uploading file: {} to workspace: {}", fileName, workspace.getId());
 
-        var relativePath = validateAndGeneratePath(file, workspace);
-        log.debug("Generated relative path: {}", relativePath);
-
-        var existingFile = findExistingFile(workspace,
-                FileUtils.getFileNameWithoutExtension(fileName),
-                FileUtils.getFileExtension(fileName));
-
-        if (existingFile.isPresent()) {
-            log.warn("File already exists, overwriting: {}", existingFile.get().getPath());
-            uploadToS3(file, workspace.getOwner().getBucketName(), existingFile.get().getPath());
-        } else {
-            log.debug("File does not exist, creating new file entry");
-            var newFile = File.builder()
-                    .workspace(workspace)
-                    .fileName(FileUtils.getFileNameWithoutExtension(fileName))
-                    .fileExtension(FileUtils.getFileExtension(fileName))
-                    .path(relativePath)
-                    .build();
-
-            uploadToS3(file, workspace.getOwner().getBucketName(), relativePath);
-            fileRepository.save(newFile);
-            log.info("File successfully uploaded and saved: {}", relativePath);
-        }
+        validateFileName(fileName);
+        upload(user.getId(), workspace, Map.of(FileName.of(fileName), file));
+        log.info("File successfully uploaded: {} to workspace: {}", fileName, workspace.getId());
     }
 
     @Override
@@ -94,10 +106,11 @@ public class FileServiceImpl implements FileService {
     public PageFileResponse getFilesInfo(UUID workspaceId, PageRequest pageRequest) {
         log.info("Fetching files info for workspace: {}", workspaceId);
         var userId = httpContextService.getUserIdFromJwtToken();
-        validateUserWorkspace(userId, workspaceId);
+        validateMembership(userId, workspaceId);
 
-        var spec = SpecificationUtils.getFilesSpecification(workspaceId);
-        var files = fileRepository.findAll(spec, pageRequest);
+        var content = fileRepository.findByWorkspaceId(workspaceId, pageRequest);
+        var total = workspaceStatsService.getFileCount(workspaceId);
+        var files = new PageImpl<>(content, pageRequest, total);
 
         log.debug("Fetched files for workspace: {}, total: {}", workspaceId, files.getTotalElements());
         var pages = files.map(file -> conversionService.convert(file, FileResponse.class));
@@ -113,35 +126,206 @@ public class FileServiceImpl implements FileService {
         var userId = httpContextService.getUserIdFromJwtToken();
 
         var file = validateFile(fileId, workspaceId);
-        var userWorkspace = validateUserWorkspace(userId, workspaceId);
-
-        var bucketName = userWorkspace.getWorkspace().getOwner().getBucketName();
+        var bucketName = validateMembership(userId, workspaceId).ownerBucketName();
 
-        log.debug("Deleting file from S3 bucket: {}, path: {}", userWorkspace.getUser().getBucketName(), file.getPath());
-        s3Client.deleteFile(bucketName, file.getPath());
         fileRepository.delete(file);
+        // an upload that still holds the id may re-create the row, so the object goes only once the delete commits
+        TransactionUtils.runAfterCommit(() -> {
+            log.debug("Deleting file from S3 bucket: {}, path: {}", bucketName, file.getPath());
+            storageBackend.deleteFile(bucketName, file.getPath());
+            hotTierStorage.delete(bucketName, file.getPath());
+        });
 
         log.info("File successfully deleted: {} from workspace: {}", fileId, workspaceId);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public FileContent downloadFile(UUID fileId, UUID workspaceId) {
         log.info("Downloading file: {} from workspace: {}", fileId, workspaceId);
         var userId = httpContextService.getUserIdFromJwtToken();
 
+        // the row is resolved up front, the stream is opened and read without holding a connection
         var file = validateFile(fileId, workspaceId);
-        var userWorkspace = validateUserWorkspace(userId, workspaceId);
-
-        var bucketName = userWorkspace.getWorkspace().getOwner().getBucketName();
+        var bucketName = validateMembership(userId, workspaceId).ownerBucketName();
 
-        log.debug("Fetching file stream from S3 bucket: {}, path: {}", userWorkspace.getUser().getBucketName(), file.getPath());
-        var fileStream = s3Client.getFileStream(bucketName, file.getPath());
+        var fileStream = hotTierStorage.open(file, bucketName).orElseGet(() -> {
+            log.debug("Fetching file stream from S3 bucket: {}, path: {}", bucketName, file.getPath());
+            return storageBackend.getFileStream(bucketName, file.getPath());
+        });
 
         log.info("File successfully downloaded: {} from workspace: {}", fileId, workspaceId);
         return new FileContent(fileStream, file);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getDownloadUrl(UUID fileId, UUID workspaceId) {
+        log.info("Signing download URL for file: {} from workspace: {}", fileId, workspaceId);
+        var userId = httpContextService.getUserIdFromJwtToken();
+
+        var file = validateFile(fileId, workspaceId);
+        var bucketName = validateMembership(userId, workspaceId).ownerBucketName();
+        if (file.getStorageTier() == StorageTier.HOT) {
+            // not in S3 yet, the caller streams it from the hot tier instead
+            return Optional.empty();
+        }
+
+        var fileName = FileUtils.getFullFileName(file.getFileName(), file.getFileExtension());
+        return storageBackend.getPresignedDownloadUrl(bucketName, file.getPath(), fileName);
+    }
+
+    @Override
+    public FileResponse appendToFile(UUID fileId, UUID workspaceId, MultipartFile segment) {
+        log.info("Appending {} bytes to file: {} in workspace: {}", segment.getSize(), fileId, workspaceId);
+        var userId = httpContextService.getUserIdFromJwtToken();
+        var workspace = validateUserWorkspace(userId, workspaceId).getWorkspace();
+
+        var reservation = storageQuotaManager.reserve(workspace.getOwner().getId(), workspace.getId(), segment.getSize(), 0);
+        // the segment is received from the client before the row is locked, only the storage side append runs under it
+        var spooledSegment = spoolSegment(segment);
+        try (var permit = fairUploadScheduler.acquire(userId, segment.getSize());
+             var content = Files.newInputStream(spooledSegment)) {
+            var spooled = new RequestBodyFile(segment.getOriginalFilename(), segment.getContentType(), segment.getSize(), content);
+            var file = transactionTemplate.execute(status -> appendSegment(fileId, workspaceId, workspace, spooled));
+
+            log.info("Appended to file: {}, new size: {}", fileId, file.getSize());
+            return conversionService.convert(file, FileResponse.class);
+        } catch (IOException e) {
+            log.error("Error reading spooled segment of file: {}", fileId, e);
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, e.getMessage());
+        } finally {
+            reservation.release();
+            deleteSpooledSegment(spooledSegment);
+        }
+    }
+
+    @Override
+    public List<FileResponse> copyFiles(UUID workspaceId, List<UUID> fileIds, UUID targetWorkspaceId) {
+        log.info("Copying {} files from workspace: {} to workspace: {}", fileIds.size(), workspaceId, targetWorkspaceId);
+        var copies = copyToWorkspace(workspaceId, fileIds, targetWorkspaceId, false);
+
+        log.info("Finished copying files to workspace: {}", targetWorkspaceId);
+        return copies.stream()
+                .map(copy -> conversionService.convert(copy.target(), FileResponse.class))
+                .toList();
+    }
+
+    @Override
+    public List<FileResponse> moveFiles(UUID workspaceId, List<UUID> fileIds, UUID targetWorkspaceId) {
+        log.info("Moving {} files from workspace: {} to workspace: {}", fileIds.size(), workspaceId, targetWorkspaceId);
+        var copies = copyToWorkspace(workspaceId, fileIds, targetWorkspaceId, true);
+
+        log.info("Finished moving files to workspace: {}", targetWorkspaceId);
+        return copies.stream()
+                .map(copy -> conversionService.convert(copy.target(), FileResponse.class))
+                .toList();
+    }
+
+    // a name taken in the target workspace is overwritten, as an upload does. the content is copied to new keys
+    // before the transaction, so no row is locked and no connection is held while storage copies it
+    private List<FileCopy> copyToWorkspace(UUID workspaceId, List<UUID> fileIds, UUID targetWorkspaceId, boolean move) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new ServiceException(ErrorType.BAD_REQUEST, MSG_FILES_NOT_SELECTED);
+        }
+        if (workspaceId.equals(targetWorkspaceId)) {
+            throw new ServiceException(ErrorType.BAD_REQUEST, MSG_FILES_SAME_WORKSPACE, workspaceId);
+        }
+        var userId = httpContextService.getUserIdFromJwtToken();
+        var sourceBucket = validateMembership(userId, workspaceId).ownerBucketName();
+        var target = validateUserWorkspace(userId, targetWorkspaceId).getWorkspace();
+        var targetBucket = target.getOwner().getBucketName();
+        var sources = validateFiles(new ArrayList<>(new LinkedHashSet<>(fileIds)), workspaceId);
+
+        var copyBytes = sources.stream().mapToLong(File::getSize).sum();
+        var reservation = storageQuotaManager.reserve(target.getOwner().getId(), target.getId(),
+                copyBytes, sources.size());
+        try {
+            var size = sources.size();
+            var ids = new UUID[size];
+            var paths = new String[size];
+            var sourcesByPath = new LinkedHashMap<String, File>();
+            var hotCopies = new ArrayList<String>();
+            var objectCopies = new ArrayList<ObjectCopier.ObjectCopy>();
+            for (int i = 0; i < size; i++) {
+                var source = sources.get(i);
+                ids[i] = UuidUtils.randomV7();
+                paths[i] = FileUtils.generateObjectKey(target.getId(), ids[i]);
+                sourcesByPath.put(paths[i], source);
+                if (source.getStorageTier() != StorageTier.HOT || !hotTierStorage.isEnabled()) {
+                    objectCopies.add(new ObjectCopier.ObjectCopy(sourceBucket, source.getPath(), targetBucket, paths[i]));
+                }
+            }
+            try {
+                for (var entry : sourcesByPath.entrySet()) {
+                    if (entry.getValue().getStorageTier() == StorageTier.HOT && hotTierStorage.isEnabled()) {
+                        // not in S3 yet, so the copy stays on the hot tier and is replicated like an upload
+                        hotTierStorage.copy(sourceBucket, entry.getValue().getPath(), targetBucket, entry.getKey());
+                        hotCopies.add(entry.getKey());
+                    }
+                }
+                if (!objectCopies.isEmpty()) {
+                    objectCopier.copyAll(objectCopies);
+                }
+                var copies = transactionTemplate.execute(status ->
+                        saveCopiedRows(target, ids, paths, sourcesByPath, Set.copyOf(hotCopies), sourceBucket, move));
+                log.debug("Copied {} objects from bucket: {} to bucket: {}", size, sourceBucket, targetBucket);
+                return copies;
+            } catch (RuntimeException e) {
+                // copyAll settles every copy before it throws, so no new key is still being written
+                deleteCopiedObjects(targetBucket, hotCopies, objectCopies);
+                throw e;
+            }
+        } finally {
+            reservation.release();
+        }
+    }
+
+    private List<FileCopy> saveCopiedRows(Workspace target, UUID[] ids, String[] paths, Map<String, File> sourcesByPath,
+                                          Set<String> hotCopies, String sourceBucket, boolean move) {
+        var sources = List.copyOf(sourcesByPath.values());
+        var fileNames = sources.stream().map(File::getFileName).toArray(String[]::new);
+        var fileExtensions = sources.stream().map(File::getFileExtension).toArray(String[]::new);
+        var sizes = sources.stream().map(File::getSize).toArray(Long[]::new);
+        var replacedPaths = fileRepository.lockPathsByWorkspaceIdAndNames(target.getId(), fileNames, fileExtensions);
+        // the tier is corrected below for copies that stay on the hot tier
+        var storedFiles = fileRepository.upsertAll(target.getId(), ids, fileNames, fileExtensions, paths, sizes,
+                StorageTier.COLD.name());
+
+        var copies = new ArrayList<FileCopy>();
+        for (var storedFile : storedFiles) {
+            if (hotCopies.contains(storedFile.getPath())) {
+                storedFile.setStorageTier(StorageTier.HOT);
+            }
+            copies.add(new FileCopy(sourcesByPath.get(storedFile.getPath()), storedFile));
+        }
+        fileRepository.saveAll(storedFiles);
+        deleteReplacedObjects(target.getOwner().getBucketName(), replacedPaths);
+
+        if (move) {
+            // a source overwritten since it was copied keeps its row, its old object is already gone
+            fileRepository.deleteByIdsAndPaths(sources.stream().map(File::getId).toArray(UUID[]::new),
+                    sources.stream().map(File::getPath).toArray(String[]::new));
+            var sourceKeys = sources.stream().map(File::getPath).toList();
+            // the source objects are only dropped once no committed row points at them
+            TransactionUtils.runAfterCommit(() -> {
+                storageBackend.removeObjects(sourceBucket, sourceKeys);
+                sourceKeys.forEach(key -> hotTierStorage.delete(sourceBucket, key));
+            });
+        }
+        return copies;
+    }
+
+    private void deleteCopiedObjects(String bucketName, List<String> hotCopies, List<ObjectCopier.ObjectCopy> objectCopies) {
+        try {
+            hotCopies.forEach(path -> hotTierStorage.delete(bucketName, path));
+            if (!objectCopies.isEmpty()) {
+                storageBackend.removeObjects(bucketName, objectCopies.stream().map(ObjectCopier.ObjectCopy::targetKey).toList());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to delete objects of failed copy from bucket {}: {}", bucketName, e.getMessage());
+        }
+    }
+
     private UserWorkspace validateUserWorkspace(UUID userId, UUID workspaceId) {
         log.debug("Validating user workspace: userId={}, workspaceId={}", userId, workspaceId);
         return userWorkspaceRepository.findByUserIdAndWorkspaceId(userId, workspaceId)
@@ -151,9 +335,22 @@ public class FileServiceImpl implements FileService {
                 });
     }
 
+    private WorkspaceMembership validateMembership(UUID userId, UUID workspaceId) {
+        log.debug("Validating workspace membership: userId={}, workspaceId={}", userId, workspaceId);
+        return workspaceMembershipCache.getMembership(userId, workspaceId)
+                .orElseThrow(() -> {
+                    log.error("User is not linked to workspace: userId={}, workspaceId={}", userId, workspaceId);
+                    return new ServiceException(ErrorType.FORBIDDEN, MSG_WORKSPACE_NOT_LINKED_TO_USER, workspaceId, userId);
+                });
+    }
+
     private File validateFile(UUID fileId, UUID workspaceId) {
+        return validateFile(fileRepository.findById(fileId), fileId, workspaceId);
+    }
+
+    private File validateFile(Optional<File> storedFile, UUID fileId, UUID workspaceId) {
         log.debug("Validating file: fileId={}, workspaceId={}", fileId, workspaceId);
-        var file = fileRepository.findById(fileId).orElseThrow(() -> {
+        var file = storedFile.orElseThrow(() -> {
             log.error("File not found: {}", fileId);
             return new ServiceException(ErrorType.BAD_REQUEST, MSG_FILE_NOT_FOUND, fileId);
         });
@@ -165,28 +362,191 @@ public class FileServiceImpl implements FileService {
         return file;
     }
 
-    private String validateAndGeneratePath(MultipartFile file, Workspace workspace) {
-        var fileName = getDecodedFileName(file);
-        log.debug("Validating and generating path for file: {}", fileName);
+    private List<File> validateFiles(List<UUID> fileIds, UUID workspaceId) {
+        log.debug("Validating {} files of workspace: {}", fileIds.size(), workspaceId);
+        var filesById = fileRepository.findAllById(fileIds).stream()
+                .collect(Collectors.toMap(File::getId, Function.identity()));
+
+        return fileIds.stream()
+                .map(fileId -> {
+                    var file = filesById.get(fileId);
+                    if (file == null) {
+                        log.error("File not found: {}", fileId);
+                        throw new ServiceException(ErrorType.BAD_REQUEST, MSG_FILE_NOT_FOUND, fileId);
+                    }
+                    if (!file.getWorkspace().getId().equals(workspaceId)) {
+                        log.error("File does not belong to workspace: fileId={}, workspaceId={}", fileId, workspaceId);
+                        throw new ServiceException(ErrorType.FORBIDDEN, MSG_FILE_NOT_IN_WORKSPACE, fileId, workspaceId);
+                    }
+                    return file;
+                })
+                .toList();
+    }
+
+    private void validateFileName(String fileName) {
+        log.debug("Validating file name: {}", fileName);
         if (fileName == null || fileName.isBlank()) {
             log.error("Invalid file name");
             throw new ServiceException(ErrorType.BAD_REQUEST, MSG_FILE_INVALID_NAME);
         }
-        var fileNameWithoutExtension = FileUtils.getFileNameWithoutExtension(fileName);
-        var fileExtension = FileUtils.getFileExtension(fileName);
-        return FileUtils.generateRelativePath(workspace.getName(), fileNameWithoutExtension, fileExtension);
     }
 
-    private Optional<File> findExistingFile(Workspace workspace, String fileNameWithoutExtension, String fileExtension) {
-        log.debug("Checking if file exists: workspace={}, fileName={}, extension={}",
-                workspace.getId(), fileNameWithoutExtension, fileExtension);
-        return fileRepository.findByWorkspaceAndFileNameAndFileExtension(workspace, fileNameWithoutExtension, fileExtension);
+    // objects are written before the rows, so neither a connection nor a row lock is held while content is transferred
+    private void upload(UUID userId, Workspace workspace, Map<FileName, MultipartFile> filesByName) {
+        // overwrites are reserved in full, the stats settle to the real delta once the rows commit
+        var uploadBytes = filesByName.values().stream().mapToLong(MultipartFile::getSize).sum();
+        var reservation = storageQuotaManager.reserve(workspace.getOwner().getId(), workspace.getId(),
+                uploadBytes, filesByName.size());
+        try {
+            var names = filesByName.keySet().toArray(FileName[]::new);
+            // an overwrite keeps the id of the row it replaces
+            var existingIds = fileRepository.findByWorkspaceIdAndNames(workspace.getId(),
+                            Arrays.stream(names).map(FileName::name).toArray(String[]::new),
+                            Arrays.stream(names).map(FileName::extension).toArray(String[]::new))
+                    .stream()
+                    .collect(Collectors.toMap(file -> new FileName(file.getFileName(), file.getFileExtension()), File::getId));
+
+            var bucketName = workspace.getOwner().getBucketName();
+            var ids = new UUID[names.length];
+            var paths = new String[names.length];
+            var sizes = new Long[names.length];
+            var written = new ArrayList<String>();
+            try {
+                for (int i = 0; i < names.length; i++) {
+                    var file = filesByName.get(names[i]);
+                    var existingId = existingIds.get(names[i]);
+                    ids[i] = existingId != null ? existingId : UuidUtils.randomV7();
+                    // an overwrite goes to a key of its own, the current object is served until the row moves over
+                    var objectId = existingId != null ? UuidUtils.randomV7() : ids[i];
+                    paths[i] = FileUtils.generateObjectKey(workspace.getId(), objectId);
+                    sizes[i] = file.getSize();
+                    log.debug("Uploading file: {} to workspace: {}", getDecodedFileName(file), workspace.getId());
+                    uploadContent(userId, file, bucketName, paths[i]);
+                    written.add(paths[i]);
+                }
+                transactionTemplate.execute(status -> saveUploadedRows(workspace, names, ids, paths, sizes));
+            } catch (RuntimeException e) {
+                // no committed row points at a key written here
+                written.forEach(path -> deleteUploadedObject(bucketName, path));
+                throw e;
+            }
+        } finally {
+            reservation.release();
+        }
+    }
+
+    private List<File> saveUploadedRows(Workspace workspace, FileName[] names, UUID[] ids, String[] paths, Long[] sizes) {
+        var fileNames = Arrays.stream(names).map(FileName::name).toArray(String[]::new);
+        var fileExtensions = Arrays.stream(names).map(FileName::extension).toArray(String[]::new);
+        // an append in progress on an overwritten row finishes on the old object before the row is moved
+        var replacedPaths = fileRepository.lockPathsByWorkspaceIdAndNames(workspace.getId(), fileNames, fileExtensions);
+        var storedFiles = fileRepository.upsertAll(workspace.getId(), ids, fileNames, fileExtensions,
+                paths, sizes, uploadTier().name());
+        log.debug("Upserted {} file entries for workspace: {}", storedFiles.size(), workspace.getId());
+
+        var uploadedIds = Set.of(ids);
+        for (var storedFile : storedFiles) {
+            if (!uploadedIds.contains(storedFile.getId())) {
+                // the name was taken by a concurrent upload after the lookup, its row points at another object
+                log.warn("File was created by a concurrent upload: {}", storedFile.getId());
+                throw new ServiceException(ErrorType.CONFLICT, MSG_FILE_CONCURRENT_UPLOAD,
+                        FileUtils.getFullFileName(storedFile.getFileName(), storedFile.getFileExtension()));
+            }
+        }
+        deleteReplacedObjects(workspace.getOwner().getBucketName(), replacedPaths);
+        return storedFiles;
+    }
+
+    // objects the rows pointed at before an overwrite, including legacy keys, go once the rows point elsewhere
+    private void deleteReplacedObjects(String bucketName, List<String> replacedPaths) {
+        if (replacedPaths.isEmpty()) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> replacedPaths.forEach(path -> {
+            try {
+                storageBackend.deleteFile(bucketName, path);
+                hotTierStorage.delete(bucketName, path);
+            } catch (RuntimeException e) {
+                log.warn("Unable to delete replaced object: bucket={}, path={}: {}", bucketName, path, e.getMessage());
+            }
+        }));
+    }
+
+    private void deleteUploadedObject(String bucketName, String path) {
+        try {
+            if (uploadTier() == StorageTier.HOT) {
+                hotTierStorage.delete(bucketName, path);
+            } else {
+                storageBackend.deleteFile(bucketName, path);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to delete object of failed upload: bucket={}, path={}: {}", bucketName, path, e.getMessage());
+        }
+    }
+
+    private File appendSegment(UUID fileId, UUID workspaceId, Workspace workspace, MultipartFile segment) {
+        // appends to the same file queue on its row, so each one extends the result of the previous
+        var file = validateFile(fileRepository.findByIdForUpdate(fileId), fileId, workspaceId);
+
+        var bucketName = workspace.getOwner().getBucketName();
+        var onHotTier = file.getStorageTier() == StorageTier.HOT && hotTierStorage.isEnabled();
+        if (file.getStorageTier() == StorageTier.REPLICATED) {
+            // the hot copy would miss the segment, so the file is served from S3 from now on
+            file.setStorageTier(StorageTier.COLD);
+            TransactionUtils.runAfterCommit(() -> hotTierStorage.delete(bucketName, file.getPath()));
+        }
+        file.setSize(file.getSize() + segment.getSize());
+        // a failing row update surfaces before the object is extended
+        fileRepository.saveAndFlush(file);
+
+        if (onHotTier) {
+            hotTierStorage.append(bucketName, file.getPath(), segment);
+        } else {
+            storageBackend.appendObject(bucketName, file.getPath(), segment);
+        }
+        return file;
+    }
+
+    private Path spoolSegment(MultipartFile segment) {
+        Path spooledSegment = null;
+        try {
+            spooledSegment = Files.createTempFile("append-", ".part");
+            segment.transferTo(spooledSegment);
+            return spooledSegment;
+        } catch (IOException e) {
+            deleteSpooledSegment(spooledSegment);
+            log.error("Error receiving segment: {}", segment.getOriginalFilename(), e);
+            throw new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, MSG_OBJECT_APPEND_ERROR, e.getMessage());
+        }
+    }
+
+    private void deleteSpooledSegment(Path spooledSegment) {
+        if (spooledSegment == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spooledSegment);
+        } catch (IOException e) {
+            log.warn("Unable to delete spooled segment: {}", spooledSegment, e);
+        }
+    }
+
+    private void uploadContent(UUID userId, MultipartFile file, String bucketName, String path) {
+        log.debug("Uploading file to {} tier: bucket={}, path={}", uploadTier(), bucketName, path);
+        // each file of a batch queues separately, so small uploads of other users are served in between
+        try (var permit = fairUploadScheduler.acquire(userId, file.getSize())) {
+            // the hot copy is acknowledged right away and replicated to S3 in the background
+            if (hotTierStorage.acceptsWrites()) {
+                hotTierStorage.write(file, bucketName, path);
+            } else {
+                storageBackend.uploadFile(file, bucketName, path);
+            }
+        }
+        log.info("File uploaded to {} tier: bucket={}, path={}", uploadTier(), bucketName, path);
     }
 
-    private void uploadToS3(MultipartFile file, String bucketName, String path) {
-        log.debug("Uploading file to S3: bucket={}, path={}", bucketName, path);
-        s3Client.uploadFile(file, bucketName, path);
-        log.info("File uploaded to S3: bucket={}, path={}", bucketName, path);
+    private StorageTier uploadTier() {
+        return hotTierStorage.acceptsWrites() ? StorageTier.HOT : StorageTier.COLD;
     }
 
     public String getDecodedFileName(MultipartFile file) {
@@ -197,4 +557,13 @@ public class FileServiceImpl implements FileService {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private record FileCopy(File source, File target) {
+    }
+
+    private record FileName(String name, String extension) {
+        static FileName of(String fileName) {
+            return new FileName(FileUtils.getFileNameWithoutExtension(fileName), FileUtils.getFileExtension(fileName));
+        }
+    }
+}
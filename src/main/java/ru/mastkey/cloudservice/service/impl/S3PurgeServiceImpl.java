@@ -0,0 +1,58 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+import ru.mastkey.cloudservice.repository.S3PurgeTaskRepository;
+import ru.mastkey.cloudservice.service.S3PurgeService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class S3PurgeServiceImpl implements S3PurgeService {
+
+    private final S3PurgeTaskRepository s3PurgeTaskRepository;
+    private final S3Properties s3Properties;
+
+    @Override
+    @Transactional
+    public void enqueue(String bucketName, String prefix) {
+        var task = s3PurgeTaskRepository.save(S3PurgeTask.builder()
+                .bucketName(bucketName)
+                .prefix(prefix)
+                .build());
+        log.info("S3 purge enqueued: id={}, bucket={}, prefix={}", task.getId(), bucketName, prefix);
+    }
+
+    @Override
+    @Transactional
+    public List<S3PurgeTask> claimTasks(int limit) {
+        var now = LocalDateTime.now();
+        var tasks = s3PurgeTaskRepository.findAvailableForUpdate(now, limit);
+        tasks.forEach(task -> task
+                .setLockedUntil(now.plus(s3Properties.getPurge().getLeaseDuration()))
+                .setAttempts(task.getAttempts() + 1));
+        return tasks;
+    }
+
+    @Override
+    @Transactional
+    public void checkpoint(S3PurgeTask task) {
+        s3PurgeTaskRepository.checkpoint(task.getId(), task.getLastKey(), task.getDeletedObjects(),
+                LocalDateTime.now().plus(s3Properties.getPurge().getLeaseDuration()));
+    }
+
+    @Override
+    @Transactional
+    public void complete(UUID taskId) {
+        s3PurgeTaskRepository.deleteById(taskId);
+        log.info("S3 purge completed: id={}", taskId);
+    }
+}
@@ -0,0 +1,380 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.repository.StorageReconcileCheckpointRepository;
+import ru.mastkey.cloudservice.repository.UserRepository;
+import ru.mastkey.cloudservice.repository.WorkspaceRepository;
+import ru.mastkey.cloudservice.service.StorageConsistencyService;
+import ru.mastkey.cloudservice.util.FileUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// walks every bucket in key order next to the rows of its workspaces, one workspace prefix after another, reporting
+// objects without a row, rows without an object and size mismatches; both sides are paged and the position is
+// checkpointed, so a bucket resumes where it stopped. rows still on a legacy key are left to the key migration
+@Slf4j
+@Service
+public class StorageConsistencyServiceImpl implements StorageConsistencyService {
+
+    static final String ORPHAN_OBJECT = "orphan_object";
+    static final String DANGLING_ROW = "dangling_row";
+    static final String SIZE_MISMATCH = "size_mismatch";
+
+    private final UserRepository userRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final FileRepository fileRepository;
+    private final StorageReconcileCheckpointRepository checkpointRepository;
+    private final StorageBackend storageBackend;
+    private final StorageProperties.Reconcile reconcileProperties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService bucketExecutor;
+
+    public StorageConsistencyServiceImpl(UserRepository userRepository, WorkspaceRepository workspaceRepository,
+                                         FileRepository fileRepository,
+                                         StorageReconcileCheckpointRepository checkpointRepository,
+                                         StorageBackend storageBackend, StorageProperties storageProperties,
+                                         MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.fileRepository = fileRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.storageBackend = storageBackend;
+        this.reconcileProperties = storageProperties.getReconcile();
+        this.meterRegistry = meterRegistry;
+        this.bucketExecutor = Executors.newFixedThreadPool(reconcileProperties.getParallelism(),
+                new CustomizableThreadFactory("storage-reconcile-"));
+    }
+
+    @Override
+    public void reconcileAll() {
+        var buckets = userRepository.findAllBucketNames();
+        log.info("Reconciling {} buckets with the files table", buckets.size());
+        var runs = buckets.stream()
+                .map(bucketName -> CompletableFuture.runAsync(() -> reconcile(bucketName), bucketExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(runs).join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bucketExecutor.shutdownNow();
+    }
+
+    void reconcile(String bucketName) {
+        var now = LocalDateTime.now();
+        // a bucket finished by another node within half an interval is not walked again
+        var claimed = checkpointRepository.claim(bucketName, now.plus(reconcileProperties.getLeaseDuration()), now,
+                now.minus(reconcileProperties.getInterval().dividedBy(2)));
+        if (claimed.isEmpty()) {
+            log.debug("Bucket '{}' is reconciled by another node or was reconciled recently", bucketName);
+            return;
+        }
+
+        var run = new BucketRun(bucketName, claimed.get().getLastKey());
+        var sample = Timer.start(meterRegistry);
+        var outcome = "success";
+        try {
+            run.mergeJoin();
+            if (Thread.currentThread().isInterrupted()) {
+                outcome = "interrupted";
+                checkpointRepository.checkpoint(bucketName, run.lastKey, null);
+                return;
+            }
+            checkpointRepository.complete(bucketName, LocalDateTime.now());
+            log.info("Reconciled bucket '{}': {} orphan objects, {} dangling rows, {} size mismatches",
+                    bucketName, run.orphans, run.dangling, run.mismatches);
+        } catch (Exception e) {
+            outcome = "failure";
+            // the lease is dropped but the saved position is kept, repairs still pending past it are found again
+            checkpointRepository.checkpoint(bucketName, run.savedKey, null);
+            log.error("Reconciling bucket '{}' stopped after '{}': {}", bucketName, run.savedKey, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("storage.reconcile.bucket.duration", "outcome", outcome));
+        }
+    }
+
+    // S3 and the "C" collation order keys by their UTF-8 bytes, which is code point order, unlike String.compareTo
+    static int compareKeys(String left, String right) {
+        var leftIndex = 0;
+        var rightIndex = 0;
+        while (leftIndex < left.length() && rightIndex < right.length()) {
+            var leftCodePoint = left.codePointAt(leftIndex);
+            var rightCodePoint = right.codePointAt(rightIndex);
+            if (leftCodePoint != rightCodePoint) {
+                return Integer.compare(leftCodePoint, rightCodePoint);
+            }
+            leftIndex += Character.charCount(leftCodePoint);
+            rightIndex += Character.charCount(rightCodePoint);
+        }
+        return Integer.compare(left.length() - leftIndex, right.length() - rightIndex);
+    }
+
+    private class BucketRun {
+        private final String bucketName;
+        private final ZonedDateTime objectCutoff;
+        private final LocalDateTime rowCutoff;
+        private final List<UUID> workspaceIds;
+        private final List<S3ObjectSummary> unmatchedObjects = new ArrayList<>();
+        private final List<String> orphanKeys = new ArrayList<>();
+        private final List<File> danglingRows = new ArrayList<>();
+        private final List<SizeCorrection> sizeCorrections = new ArrayList<>();
+        private final ArrayDeque<File> rows = new ArrayDeque<>();
+        private String lastKey;
+        private String savedKey;
+        private String lastRowPath;
+        private int workspaceIndex;
+        private long leaseRenewedAt;
+        private long orphans;
+        private long dangling;
+        private long mismatches;
+
+        BucketRun(String bucketName, String lastKey) {
+            this.bucketName = bucketName;
+            this.lastKey = lastKey;
+            this.savedKey = lastKey;
+            this.lastRowPath = lastKey == null ? "" : lastKey;
+            // anything younger may still be between its upload and its insert, or its delete and its removal
+            var cutoff = LocalDateTime.now().minus(reconcileProperties.getGracePeriod());
+            this.objectCutoff = cutoff.atZone(ZoneId.systemDefault());
+            this.rowCutoff = cutoff;
+            this.workspaceIds = workspaceRepository.findIdsByOwnerBucketName(bucketName).stream()
+                    .sorted((left, right) -> compareKeys(left.toString(), right.toString()))
+                    .toList();
+            this.leaseRenewedAt = System.nanoTime();
+        }
+
+        void mergeJoin() {
+            Iterator<S3ObjectSummary> objects = storageBackend.listObjects(bucketName, "", lastKey).iterator();
+            var object = nextObject(objects, null);
+            var row = nextRow();
+            while ((object != null || row != null) && !Thread.currentThread().isInterrupted()) {
+                var comparison = object == null ? 1 : row == null ? -1 : compareKeys(object.key(), row.getPath());
+                String key;
+                if (comparison < 0) {
+                    key = object.key();
+                    onObjectWithoutRow(object);
+                    object = nextObject(objects, key);
+                } else if (comparison > 0) {
+                    key = row.getPath();
+                    onRowWithoutObject(row);
+                    row = nextRow();
+                } else {
+                    key = object.key();
+                    onMatch(object, row);
+                    row = nextRow();
+                    // further rows on the same path share the object and are matched against it too
+                    if (row == null || !row.getPath().equals(key)) {
+                        object = nextObject(objects, key);
+                    }
+                }
+                advance(key);
+            }
+            flush();
+        }
+
+        // objects on legacy keys have rows outside the workspace prefixes, so the rows are looked up by path first
+        private void onObjectWithoutRow(S3ObjectSummary object) {
+            if (object.key().endsWith("/") || isRecent(object)) {
+                return;
+            }
+            unmatchedObjects.add(object);
+        }
+
+        private void resolveUnmatchedObjects() {
+            if (unmatchedObjects.isEmpty()) {
+                return;
+            }
+            var referenced = new HashSet<>(fileRepository.findPathsInBucket(bucketName,
+                    unmatchedObjects.stream().map(S3ObjectSummary::key).toArray(String[]::new)));
+            unmatchedObjects.stream()
+                    .filter(object -> !referenced.contains(object.key()))
+                    .forEach(this::onOrphan);
+            unmatchedObjects.clear();
+        }
+
+        private void onOrphan(S3ObjectSummary object) {
+            orphans++;
+            meterRegistry.counter("storage.reconcile.discrepancies", "type", ORPHAN_OBJECT).increment();
+            log.debug("Object without a row: bucket={}, key={}", bucketName, object.key());
+            orphanKeys.add(object.key());
+        }
+
+        // a hot file reaches S3 only once it is replicated
+        private void onRowWithoutObject(File row) {
+            if (row.getStorageTier() == StorageTier.HOT || row.getCreatedAt().isAfter(rowCutoff)) {
+                return;
+            }
+            dangling++;
+            meterRegistry.counter("storage.reconcile.discrepancies", "type", DANGLING_ROW).increment();
+            log.debug("Row without an object: bucket={}, fileId={}, path={}", bucketName, row.getId(), row.getPath());
+            danglingRows.add(row);
+        }
+
+        private void onMatch(S3ObjectSummary object, File row) {
+            if (row.getStorageTier() == StorageTier.HOT || isRecent(object) || row.getSize() == object.size()) {
+                return;
+            }
+            mismatches++;
+            meterRegistry.counter("storage.reconcile.discrepancies", "type", SIZE_MISMATCH).increment();
+            log.debug("File size drifted: bucket={}, fileId={}, stored={}, actual={}",
+                    bucketName, row.getId(), row.getSize(), object.size());
+            sizeCorrections.add(new SizeCorrection(row.getId(), row.getPath(), row.getSize(), object.size()));
+        }
+
+        private void advance(String key) {
+            lastKey = key;
+            if (unmatchedObjects.size() >= reconcileProperties.getPageSize()
+                    || danglingRows.size() >= reconcileProperties.getPageSize()
+                    || sizeCorrections.size() >= reconcileProperties.getPageSize()) {
+                flush();
+            }
+            if (isLeaseRenewalDue()) {
+                flush();
+                savedKey = lastKey;
+                renewLease();
+            }
+        }
+
+        // renewed by time rather than by keys, repairs stat every row and can take longer than the lease
+        private boolean isLeaseRenewalDue() {
+            return System.nanoTime() - leaseRenewedAt >= reconcileProperties.getLeaseDuration().toNanos() / 2;
+        }
+
+        private void renewLease() {
+            checkpointRepository.checkpoint(bucketName, savedKey,
+                    LocalDateTime.now().plus(reconcileProperties.getLeaseDuration()));
+            leaseRenewedAt = System.nanoTime();
+        }
+
+        private boolean isRecent(S3ObjectSummary object) {
+            return object.lastModified() == null || object.lastModified().isAfter(objectCutoff);
+        }
+
+        private S3ObjectSummary nextObject(Iterator<S3ObjectSummary> objects, String previousKey) {
+            if (!objects.hasNext()) {
+                return null;
+            }
+            var object = objects.next();
+            if (previousKey != null && compareKeys(object.key(), previousKey) <= 0) {
+                throw new IllegalStateException("objects are not listed in byte order at '%s'".formatted(object.key()));
+            }
+            return object;
+        }
+
+        // the prefixes do not overlap, so the rows of one workspace after another are in key order too
+        private File nextRow() {
+            while (rows.isEmpty() && workspaceIndex < workspaceIds.size()) {
+                var workspaceId = workspaceIds.get(workspaceIndex);
+                var prefix = FileUtils.getWorkspacePrefix(workspaceId);
+                // '0' follows '/', so every key under the prefix sorts before it
+                var prefixEnd = workspaceId + "0";
+                if (compareKeys(lastRowPath, prefixEnd) >= 0) {
+                    workspaceIndex++;
+                    continue;
+                }
+                var afterPath = compareKeys(lastRowPath, prefix) < 0 ? prefix : lastRowPath;
+                var page = fileRepository.findByWorkspaceAfterPath(workspaceId, afterPath, prefixEnd,
+                        reconcileProperties.getPageSize());
+                if (page.size() < reconcileProperties.getPageSize()) {
+                    workspaceIndex++;
+                }
+                if (!page.isEmpty()) {
+                    lastRowPath = page.get(page.size() - 1).getPath();
+                }
+                rows.addAll(page);
+            }
+            var row = rows.poll();
+            if (row != null && lastKey != null && compareKeys(row.getPath(), lastKey) < 0) {
+                throw new IllegalStateException("rows are not ordered by path at '%s'".formatted(row.getPath()));
+            }
+            return row;
+        }
+
+        private void flush() {
+            resolveUnmatchedObjects();
+            if (!reconcileProperties.getRepair()) {
+                orphanKeys.clear();
+                danglingRows.clear();
+                sizeCorrections.clear();
+                return;
+            }
+            removeOrphans();
+            deleteDanglingRows();
+            correctSizes();
+        }
+
+        // the rows were looked up by path right before, so a row inserted since the listing keeps its object
+        private void removeOrphans() {
+            if (orphanKeys.isEmpty()) {
+                return;
+            }
+            storageBackend.removeObjects(bucketName, List.copyOf(orphanKeys));
+            meterRegistry.counter("storage.reconcile.repairs", "type", ORPHAN_OBJECT).increment(orphanKeys.size());
+            log.warn("Removed {} objects without a row from bucket '{}'", orphanKeys.size(), bucketName);
+            orphanKeys.clear();
+        }
+
+        // the object may have been uploaded since the listing, such a row is kept
+        private void deleteDanglingRows() {
+            if (danglingRows.isEmpty()) {
+                return;
+            }
+            var missing = danglingRows.stream()
+                    .filter(row -> {
+                        if (isLeaseRenewalDue()) {
+                            renewLease();
+                        }
+                        return storageBackend.stat(bucketName, row.getPath()).isEmpty();
+                    })
+                    .toList();
+            if (!missing.isEmpty()) {
+                var deleted = fileRepository.deleteByIdsAndPaths(
+                        missing.stream().map(File::getId).toArray(UUID[]::new),
+                        missing.stream().map(File::getPath).toArray(String[]::new));
+                meterRegistry.counter("storage.reconcile.repairs", "type", DANGLING_ROW).increment(deleted);
+                log.warn("Deleted {} rows without an object for bucket '{}'", deleted, bucketName);
+            }
+            danglingRows.clear();
+        }
+
+        // only rows that still hold the size that was compared are corrected
+        private void correctSizes() {
+            if (sizeCorrections.isEmpty()) {
+                return;
+            }
+            var corrected = fileRepository.correctSizes(
+                    sizeCorrections.stream().map(SizeCorrection::fileId).toArray(UUID[]::new),
+                    sizeCorrections.stream().map(SizeCorrection::path).toArray(String[]::new),
+                    sizeCorrections.stream().map(SizeCorrection::expectedSize).toArray(Long[]::new),
+                    sizeCorrections.stream().map(SizeCorrection::size).toArray(Long[]::new));
+            meterRegistry.counter("storage.reconcile.repairs", "type", SIZE_MISMATCH).increment(corrected);
+            log.warn("Corrected sizes of {} files in bucket '{}'", corrected, bucketName);
+            sizeCorrections.clear();
+        }
+    }
+
+    private record SizeCorrection(UUID fileId, String path, Long expectedSize, Long size) {
+    }
+}
@@ -0,0 +1,109 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.service.StorageKeyMigrationService;
+import ru.mastkey.cloudservice.util.FileUtils;
+import ru.mastkey.cloudservice.util.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class StorageKeyMigrationServiceImpl implements StorageKeyMigrationService {
+
+    private final FileRepository fileRepository;
+    private final StorageBackend storageBackend;
+    private final S3Properties.KeyMigration migrationProperties;
+    private final ExecutorService copyExecutor;
+
+    public StorageKeyMigrationServiceImpl(FileRepository fileRepository, StorageBackend storageBackend, S3Properties s3Properties) {
+        this.fileRepository = fileRepository;
+        this.storageBackend = storageBackend;
+        this.migrationProperties = s3Properties.getKeyMigration();
+        this.copyExecutor = Executors.newFixedThreadPool(migrationProperties.getParallelism(),
+                new CustomizableThreadFactory("s3-key-migration-"));
+    }
+
+    @Override
+    @Transactional
+    public Optional<UUID> migrateBatch(UUID afterId) {
+        var files = fileRepository.findWithLegacyKeysForUpdate(afterId, migrationProperties.getBatchSize());
+        if (files.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var moves = files.stream()
+                .map(file -> new KeyMove(file,
+                        file.getWorkspace().getOwner().getBucketName(),
+                        file.getPath(),
+                        FileUtils.generateObjectKey(file.getWorkspace().getId(), file.getId())))
+                .toList();
+        var copies = moves.stream()
+                .map(move -> CompletableFuture.supplyAsync(() -> copy(move), copyExecutor))
+                .toList();
+
+        var migrated = new ArrayList<KeyMove>();
+        for (int i = 0; i < moves.size(); i++) {
+            if (copies.get(i).join()) {
+                var move = moves.get(i);
+                move.file().setPath(move.targetKey());
+                migrated.add(move);
+            }
+        }
+        TransactionUtils.runAfterCommit(() -> deleteLegacyObjects(migrated));
+        log.info("Migrated {} of {} object keys", migrated.size(), moves.size());
+
+        return Optional.of(files.get(files.size() - 1).getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        copyExecutor.shutdownNow();
+    }
+
+    // the id key can only have been written by an earlier run whose rows did not commit, so it holds the same content
+    private boolean copy(KeyMove move) {
+        try {
+            if (!storageBackend.objectExists(move.bucketName(), move.targetKey())) {
+                storageBackend.copyObject(move.bucketName(), move.sourceKey(), move.targetKey());
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Unable to migrate object key '{}' in bucket '{}': {}",
+                    move.sourceKey(), move.bucketName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteLegacyObjects(List<KeyMove> migrated) {
+        migrated.stream()
+                .collect(Collectors.groupingBy(KeyMove::bucketName,
+                        Collectors.mapping(KeyMove::sourceKey, Collectors.toList())))
+                .forEach((bucketName, keys) -> {
+                    try {
+                        storageBackend.removeObjects(bucketName, keys);
+                    } catch (Exception e) {
+                        log.warn("Unable to delete {} legacy objects in bucket '{}': {}",
+                                keys.size(), bucketName, e.getMessage());
+                    }
+                });
+    }
+
+    private record KeyMove(File file, String bucketName, String sourceKey, String targetKey) {
+    }
+}
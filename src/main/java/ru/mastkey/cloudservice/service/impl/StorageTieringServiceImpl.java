@@ -0,0 +1,134 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.controller.model.RequestBodyFile;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.service.StorageTieringService;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
+import ru.mastkey.cloudservice.util.FileUtils;
+import ru.mastkey.cloudservice.util.TransactionUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class StorageTieringServiceImpl implements StorageTieringService {
+
+    private final FileRepository fileRepository;
+    private final StorageBackend storageBackend;
+    private final HotTierStorage hotTierStorage;
+    private final StorageProperties.Tiering tieringProperties;
+
+    public StorageTieringServiceImpl(FileRepository fileRepository, StorageBackend storageBackend,
+                                     HotTierStorage hotTierStorage, StorageProperties storageProperties) {
+        this.fileRepository = fileRepository;
+        this.storageBackend = storageBackend;
+        this.hotTierStorage = hotTierStorage;
+        this.tieringProperties = storageProperties.getTiering();
+    }
+
+    // rows are read without locks, so overwrites and appends are not blocked while the content is copied
+    @Override
+    public Optional<UUID> replicateBatch(UUID afterId) {
+        var files = fileRepository.findHot(afterId, PageRequest.of(0, tieringProperties.getBatchSize()));
+        if (files.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var replicated = 0;
+        for (var file : files) {
+            if (replicate(file)) {
+                replicated++;
+            }
+        }
+        log.info("Replicated {} of {} hot files to S3", replicated, files.size());
+
+        return Optional.of(files.get(files.size() - 1).getId());
+    }
+
+    @Override
+    @Transactional
+    public Optional<UUID> demoteBatch(UUID afterId) {
+        var idleSince = LocalDateTime.now().minus(tieringProperties.getDemoteAfter());
+        var files = fileRepository.findIdleReplicatedForUpdate(idleSince, afterId, tieringProperties.getBatchSize());
+        if (files.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var hotCopies = files.stream()
+                .map(file -> new HotCopy(file.getWorkspace().getOwner().getBucketName(), file.getPath()))
+                .toList();
+        files.forEach(file -> file.setStorageTier(StorageTier.COLD));
+        // the copies go only once no reader can pick the hot tier from the rows any more
+        TransactionUtils.runAfterCommit(() -> hotCopies.forEach(this::deleteHotCopy));
+        log.info("Demoted {} idle files to S3", files.size());
+
+        return Optional.of(files.get(files.size() - 1).getId());
+    }
+
+    @Override
+    @Transactional
+    public void flushAccesses() {
+        var accesses = hotTierStorage.drainAccesses();
+        if (accesses.isEmpty()) {
+            return;
+        }
+
+        var ids = new UUID[accesses.size()];
+        var accessedAt = new LocalDateTime[accesses.size()];
+        var index = 0;
+        for (var entry : accesses.entrySet()) {
+            ids[index] = entry.getKey();
+            accessedAt[index] = entry.getValue();
+            index++;
+        }
+        fileRepository.updateLastAccessedAt(ids, accessedAt);
+        log.debug("Recorded last access of {} hot files", accesses.size());
+    }
+
+    private boolean replicate(File file) {
+        var bucketName = file.getWorkspace().getOwner().getBucketName();
+        var fileName = FileUtils.getFullFileName(file.getFileName(), file.getFileExtension());
+        try {
+            var copied = hotTierStorage.stat(bucketName, file.getPath());
+            if (copied.isEmpty()) {
+                log.warn("Hot copy of file {} is gone, skipping replication", file.getId());
+                return false;
+            }
+            try (var content = hotTierStorage.read(bucketName, file.getPath())) {
+                storageBackend.uploadFile(new RequestBodyFile(fileName, null, file.getSize(), content), bucketName, file.getPath());
+            }
+            // an overwrite of the same size is only visible on the hot copy itself
+            if (!copied.equals(hotTierStorage.stat(bucketName, file.getPath()))) {
+                log.debug("Hot copy of file {} changed while it was replicated, retrying on the next run", file.getId());
+                return false;
+            }
+            return fileRepository.markReplicated(file.getId(), file.getPath(), file.getSize()) == 1;
+        } catch (ServiceException | IOException e) {
+            log.error("Replication of file {} failed, will retry: {}", file.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteHotCopy(HotCopy hotCopy) {
+        try {
+            hotTierStorage.delete(hotCopy.bucketName(), hotCopy.path());
+        } catch (ServiceException e) {
+            log.error("Failed to remove hot copy '{}' from bucket '{}': {}", hotCopy.path(), hotCopy.bucketName(), e.getMessage());
+        }
+    }
+
+    private record HotCopy(String bucketName, String path) {
+    }
+}
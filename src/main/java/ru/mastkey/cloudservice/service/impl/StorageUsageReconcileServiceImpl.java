@@ -0,0 +1,88 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.QuotaProperties;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.quota.StorageQuotaManager;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.repository.WorkspaceRepository;
+import ru.mastkey.cloudservice.service.StorageUsageReconcileService;
+import ru.mastkey.cloudservice.util.FileUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// brings files.size in line with the sizes of the stored objects, workspace_stats follows through the trigger
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageUsageReconcileServiceImpl implements StorageUsageReconcileService {
+
+    private final WorkspaceRepository workspaceRepository;
+    private final FileRepository fileRepository;
+    private final StorageBackend storageBackend;
+    private final QuotaProperties quotaProperties;
+    private final StorageQuotaManager storageQuotaManager;
+
+    @Override
+    public Optional<UUID> reconcileBatch(UUID afterWorkspaceId) {
+        var workspaces = workspaceRepository.findBatchAfter(afterWorkspaceId, quotaProperties.getReconcile().getBatchSize());
+        if (workspaces.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var corrected = workspaces.stream()
+                .mapToInt(this::reconcile)
+                .sum();
+        if (corrected > 0) {
+            log.warn("Corrected sizes of {} files in {} workspaces", corrected, workspaces.size());
+        }
+        return Optional.of(workspaces.get(workspaces.size() - 1).getId());
+    }
+
+    // no rows are held while S3 is listed, a drifted workspace is listed a second time to correct it page by page
+    private int reconcile(Workspace workspace) {
+        var bucketName = workspace.getOwner().getBucketName();
+        var prefix = FileUtils.getWorkspacePrefix(workspace.getId());
+        var storedBytes = fileRepository.sumStoredSize(workspace.getId());
+        var objectBytes = 0L;
+        for (var object : storageBackend.listObjects(bucketName, prefix, null)) {
+            objectBytes += object.size();
+        }
+        if (objectBytes == storedBytes) {
+            return 0;
+        }
+
+        log.debug("Workspace usage drifted: workspaceId={}, stored={}, actual={}", workspace.getId(), storedBytes, objectBytes);
+        var pageSize = quotaProperties.getReconcile().getPageSize();
+        var page = new ArrayList<S3ObjectSummary>(pageSize);
+        var corrected = 0;
+        for (var object : storageBackend.listObjects(bucketName, prefix, null)) {
+            page.add(object);
+            if (page.size() == pageSize) {
+                corrected += correctSizes(workspace.getId(), page);
+                page.clear();
+            }
+        }
+        corrected += correctSizes(workspace.getId(), page);
+        // the trigger has moved workspace_stats, the usage cached for quota checks is read again
+        storageQuotaManager.invalidate(workspace.getOwner().getId(), workspace.getId());
+        return corrected;
+    }
+
+    // a size written by an overwrite between the listing and the update is put right by the next run
+    private int correctSizes(UUID workspaceId, List<S3ObjectSummary> objects) {
+        if (objects.isEmpty()) {
+            return 0;
+        }
+        return fileRepository.correctSizesByPath(workspaceId,
+                objects.stream().map(S3ObjectSummary::key).toArray(String[]::new),
+                objects.stream().map(S3ObjectSummary::size).toArray(Long[]::new));
+    }
+}
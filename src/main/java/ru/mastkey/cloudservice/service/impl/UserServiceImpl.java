@@ -9,7 +9,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.CacheInvalidationBus;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.exception.ErrorType;
@@ -41,7 +43,8 @@ public class UserServiceImpl implements UserService {
     private final HttpContextService httpContextService;
     private final WorkspaceRepository workspaceRepository;
     private final UserWorkspaceRepository userWorkspaceRepository;
-    private final S3Client s3Client;
+    private final StorageBackend storageBackend;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     @Transactional
     @Override
@@ -56,9 +59,11 @@ public class UserServiceImpl implements UserService {
         var user = conversionService.convert(request, User.class);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         userRepository.save(user);
+        // other nodes may have cached an empty lookup of this username
+        cacheInvalidationBus.publish(CacheInvalidationEvent.user(user.getId()));
         log.info("User successfully created: {}", user.getId());
 
-        s3Client.createBucketIfNotExists(user.getBucketName());
+        storageBackend.createBucketIfNotExists(user.getBucketName());
         log.info("S3 bucket initialized for user: {}", user.getId());
 
         var token = generateToken(user);
@@ -125,6 +130,7 @@ public class UserServiceImpl implements UserService {
                         .user(user)
                         .build()
         );
+        cacheInvalidationBus.publish(CacheInvalidationEvent.membership(userId, workspaceId));
 
         log.info("Workspace: {} successfully linked to user: {}", workspaceId, userId);
     }
@@ -6,23 +6,29 @@ import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.CacheInvalidationBus;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.S3PurgeTaskRepository;
 import ru.mastkey.cloudservice.repository.UserRepository;
 import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
 import ru.mastkey.cloudservice.repository.WorkspaceRepository;
 import ru.mastkey.cloudservice.service.HttpContextService;
+import ru.mastkey.cloudservice.service.S3PurgeService;
 import ru.mastkey.cloudservice.service.WorkspaceService;
+import ru.mastkey.cloudservice.util.FileUtils;
 import ru.mastkey.cloudservice.util.SpecificationUtils;
 import ru.mastkey.model.ChangeWorkspaceNameRequest;
 import ru.mastkey.model.CreateWorkspaceRequest;
 import ru.mastkey.model.PageWorkspaceResponse;
 import ru.mastkey.model.WorkspaceResponse;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,10 +41,13 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
     private final WorkspaceRepository workspaceRepository;
     private final UserRepository userRepository;
-    private final S3Client s3Client;
+    private final StorageBackend storageBackend;
     private final ConversionService conversionService;
     private final UserWorkspaceRepository userWorkspaceRepository;
     private final HttpContextService httpContextService;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final S3PurgeService s3PurgeService;
+    private final S3PurgeTaskRepository s3PurgeTaskRepository;
 
     @Override
     @Transactional
@@ -70,13 +79,14 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         var savedWorkspace = workspaceRepository.save(workspace);
         log.info("Workspace saved in repository: {}", savedWorkspace.getId());
 
-        s3Client.createFolder(user.getBucketName(), name);
-        log.info("S3 folder created for workspace: {}", name);
+        storageBackend.createFolder(user.getBucketName(), savedWorkspace.getId().toString());
+        log.info("S3 folder created for workspace: {}", savedWorkspace.getId());
 
         var userWorkspace = new UserWorkspace();
         userWorkspace.setUser(user);
         userWorkspace.setWorkspace(workspace);
         userWorkspaceRepository.save(userWorkspace);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.membership(userId, savedWorkspace.getId()));
         log.info("Workspace linked to user: {}", userId);
 
         return savedWorkspace;
@@ -122,6 +132,7 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
         workspace.setName(newName);
         var updatedWorkspace = workspaceRepository.save(workspace);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.workspace(workspaceId));
         log.info("Workspace name updated successfully: {}", workspaceId);
 
         return conversionService.convert(updatedWorkspace, WorkspaceResponse.class);
@@ -145,16 +156,23 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
         if (workspace.getOwner().getId().equals(userId)) {
             userWorkspaceRepository.deleteByWorkspaceId(workspaceId);
-            workspaceRepository.delete(workspace);
-            s3Client.deleteFolder(workspace.getOwner().getBucketName(), workspace.getName());
-            log.info("Workspace and its S3 folder deleted: {}", workspaceId);
+            cacheInvalidationBus.publish(CacheInvalidationEvent.workspace(workspaceId));
+            var bucketName = workspace.getOwner().getBucketName();
+            // keys from before the id-based layout are not under the workspace prefix and are only known from the rows
+            var legacyKeys = s3PurgeTaskRepository.enqueueLegacyKeys(bucketName, workspaceId, LocalDateTime.now());
+            // files go with the row through ON DELETE CASCADE instead of being loaded and removed one by one
+            workspaceRepository.deleteWorkspaceById(workspaceId);
+            s3PurgeService.enqueue(bucketName, FileUtils.getWorkspacePrefix(workspaceId));
+            log.info("Workspace deleted, S3 purge enqueued for its prefix and {} legacy keys: {}", legacyKeys, workspaceId);
         } else {
             userWorkspaceRepository.deleteByUserIdAndWorkspaceId(userId, workspaceId);
+            cacheInvalidationBus.publish(CacheInvalidationEvent.membership(userId, workspaceId));
             log.info("User unlinked from workspace: {}", workspaceId);
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<WorkspaceResponse> getAllWorkspaces() {
         log.info("Fetching all workspaces for the current user");
         var userId = httpContextService.getUserIdFromJwtToken();
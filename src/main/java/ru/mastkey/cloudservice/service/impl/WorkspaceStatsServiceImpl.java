@@ -0,0 +1,70 @@
+package ru.mastkey.cloudservice.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mastkey.cloudservice.cache.WorkspaceMembershipCache;
+import ru.mastkey.cloudservice.configuration.properties.WorkspaceStatsProperties;
+import ru.mastkey.cloudservice.controller.model.WorkspaceStatsResponse;
+import ru.mastkey.cloudservice.entity.WorkspaceStats;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.WorkspaceStatsRepository;
+import ru.mastkey.cloudservice.service.HttpContextService;
+import ru.mastkey.cloudservice.service.WorkspaceStatsService;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_WORKSPACE_NOT_LINKED_TO_USER;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkspaceStatsServiceImpl implements WorkspaceStatsService {
+
+    private final WorkspaceStatsRepository workspaceStatsRepository;
+    private final HttpContextService httpContextService;
+    private final WorkspaceMembershipCache workspaceMembershipCache;
+    private final WorkspaceStatsProperties workspaceStatsProperties;
+
+    @Override
+    @Transactional(readOnly = true)
+    public WorkspaceStatsResponse getStats(UUID workspaceId) {
+        log.info("Fetching stats for workspace: {}", workspaceId);
+        var userId = httpContextService.getUserIdFromJwtToken();
+        if (workspaceMembershipCache.getMembership(userId, workspaceId).isEmpty()) {
+            log.error("User is not linked to workspace: userId={}, workspaceId={}", userId, workspaceId);
+            throw new ServiceException(ErrorType.FORBIDDEN, MSG_WORKSPACE_NOT_LINKED_TO_USER, workspaceId, userId);
+        }
+
+        return workspaceStatsRepository.findById(workspaceId)
+                .map(stats -> new WorkspaceStatsResponse(workspaceId, stats.getFileCount(), stats.getTotalBytes()))
+                .orElseGet(() -> new WorkspaceStatsResponse(workspaceId, 0, 0));
+    }
+
+    // a workspace gets its row with the first file
+    @Override
+    @Transactional(readOnly = true)
+    public long getFileCount(UUID workspaceId) {
+        return workspaceStatsRepository.findById(workspaceId)
+                .map(WorkspaceStats::getFileCount)
+                .orElse(0L);
+    }
+
+    @Override
+    @Transactional
+    public Optional<UUID> reconcileBatch(UUID afterId) {
+        var workspaceIds = workspaceStatsRepository.lockBatch(afterId, workspaceStatsProperties.getReconcile().getBatchSize());
+        if (workspaceIds.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var corrected = workspaceStatsRepository.recount(workspaceIds.toArray(UUID[]::new));
+        if (corrected > 0) {
+            log.warn("Corrected drifted stats of {} workspaces", corrected);
+        }
+        return Optional.of(workspaceIds.get(workspaceIds.size() - 1));
+    }
+}
@@ -0,0 +1,135 @@
+package ru.mastkey.cloudservice.tiering;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.client.LocalStorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
+
+import static ru.mastkey.cloudservice.util.Constants.MSG_HOT_TIER_DISABLED;
+
+// local disk tier new uploads land on before they are replicated to S3, it belongs to the node,
+// so tiering is meant for single-node deployments
+@Slf4j
+@Component
+public class HotTierStorage {
+
+    private final LocalStorageBackend hotTier;
+    private final boolean draining;
+    // reads are recorded here and flushed to the files table in batches instead of one update per download
+    private final Map<UUID, LocalDateTime> accesses = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotTierStorage(StorageProperties storageProperties, MeterRegistry meterRegistry) {
+        var tiering = storageProperties.getTiering();
+        this.hotTier = tiering.getEnabled() ? new LocalStorageBackend(tiering.getRoot()) : null;
+        this.draining = tiering.getDrain();
+        this.hits = Counter.builder("storage.tier.hot.reads")
+                .tag("outcome", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("storage.tier.hot.reads")
+                .tag("outcome", "miss")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return hotTier != null;
+    }
+
+    // while draining, uploads go to S3 and the tier only serves and replicates the files already on it
+    public boolean acceptsWrites() {
+        return isEnabled() && !draining;
+    }
+
+    public void write(MultipartFile file, String bucketName, String path) {
+        attachedTier().uploadFile(file, bucketName, path);
+    }
+
+    public InputStream read(String bucketName, String path) {
+        return attachedTier().getFileStream(bucketName, path);
+    }
+
+    public Optional<S3ObjectSummary> stat(String bucketName, String path) {
+        return attachedTier().stat(bucketName, path);
+    }
+
+    // empty when the file has to be read from S3
+    public Optional<InputStream> open(File file, String bucketName) {
+        if (!isEnabled() || file.getStorageTier() == null || file.getStorageTier() == StorageTier.COLD) {
+            return Optional.empty();
+        }
+        try {
+            var stream = hotTier.getFileStream(bucketName, file.getPath());
+            accesses.put(file.getId(), LocalDateTime.now());
+            hits.increment();
+            return Optional.of(stream);
+        } catch (ServiceException e) {
+            // a demotion may have removed the copy after the row was read
+            misses.increment();
+            log.warn("Hot copy of file {} is not readable, falling back to S3: {}", file.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void append(String bucketName, String path, MultipartFile segment) {
+        attachedTier().appendObject(bucketName, path, segment);
+    }
+
+    public void copy(String sourceBucket, String sourceKey, String targetBucket, String targetKey) {
+        attachedTier().copyObject(sourceBucket, sourceKey, targetBucket, targetKey);
+    }
+
+    public void delete(String bucketName, String path) {
+        if (isEnabled()) {
+            hotTier.deleteFile(bucketName, path);
+        }
+    }
+
+    public void deletePrefix(String bucketName, String prefix) {
+        if (!isEnabled()) {
+            return;
+        }
+        var keys = StreamSupport.stream(hotTier.listObjects(bucketName, prefix, null).spliterator(), false)
+                .map(S3ObjectSummary::key)
+                .toList();
+        if (!keys.isEmpty()) {
+            hotTier.removeObjects(bucketName, keys);
+        }
+    }
+
+    private LocalStorageBackend attachedTier() {
+        if (hotTier == null) {
+            throw new ServiceException(ErrorType.SERVICE_UNAVAILABLE, MSG_HOT_TIER_DISABLED);
+        }
+        return hotTier;
+    }
+
+    // a read recorded concurrently is kept for the next call
+    public Map<UUID, LocalDateTime> drainAccesses() {
+        var drained = new HashMap<UUID, LocalDateTime>();
+        for (var entry : List.copyOf(accesses.entrySet())) {
+            if (accesses.remove(entry.getKey(), entry.getValue())) {
+                drained.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return drained;
+    }
+}
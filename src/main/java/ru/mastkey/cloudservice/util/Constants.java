@@ -3,6 +3,9 @@ package ru.mastkey.cloudservice.util;
 public class Constants {
     public static final String MSG_FILE_NOT_FOUND = "File with id %s not found";
     public static final String MSG_FILE_INVALID_NAME = "Invalid file name";
+    public static final String MSG_FILES_NOT_SELECTED = "No files selected";
+    public static final String MSG_FILES_SAME_WORKSPACE = "Files are already in workspace %s";
+    public static final String MSG_FILE_CONCURRENT_UPLOAD = "File %s is being uploaded concurrently, try again";
     public static final String MSG_USER_NOT_FOUND = "User with id %s not found";
     public static final String MSG_USER_ALREADY_EXIST = "User with name %s already exists";
     public static final String MSG_WORKSPACE_NOT_FOUND = "Workspace with id %s not found";
@@ -12,6 +15,19 @@ public class Constants {
     public static final String MSG_FILE_DOWNLOAD_ERROR = "Error download file from S3: %s";
     public static final String MSG_FOLDER_CREATE_ERROR = "Error creating folder in S3: %s";
     public static final String MSG_FOLDER_DELETE_ERROR = "Error deleting folder in S3: %s";
+    public static final String MSG_OBJECTS_LIST_ERROR = "Error listing objects in S3: %s";
+    public static final String MSG_OBJECTS_DELETE_ERROR = "Error deleting objects in S3: %s";
+    public static final String MSG_OBJECT_STAT_ERROR = "Error reading object metadata in S3: %s";
+    public static final String MSG_OBJECT_COPY_ERROR = "Error copying object in S3: %s";
+    public static final String MSG_OBJECT_APPEND_ERROR = "Error appending to object in S3: %s";
+    public static final String MSG_OBJECT_KEY_INVALID = "Object key %s points outside of its bucket";
+    public static final String MSG_HOT_TIER_DISABLED = "Hot storage tier is disabled on this node";
+    public static final String MSG_S3_CIRCUIT_OPEN = "Object storage is unavailable, try again later";
+    public static final String MSG_TRANSFER_MEMORY_EXHAUSTED = "Too many transfers in progress, try again later";
+    public static final String MSG_LANE_SATURATED = "Too many %s requests in progress, try again later";
+    public static final String MSG_UPLOAD_QUEUE_TIMEOUT = "Too many uploads in progress, try again later";
+    public static final String MSG_USER_QUOTA_EXCEEDED = "Upload exceeds the storage quota of user %s";
+    public static final String MSG_WORKSPACE_QUOTA_EXCEEDED = "Upload exceeds the storage quota of workspace %s";
     public static final String MSG_WORKSPACE_ALREADY_EXIST = "Workspace %s already exists";
     public static final String MSG_WORKSPACE_NOT_LINKED_TO_USER = "Workspace with ID %s is not linked to user with ID %s.";
     public static final String MSG_FILE_NOT_IN_WORKSPACE = "File with ID %s is not part of workspace with ID %s.";
@@ -1,5 +1,7 @@
 package ru.mastkey.cloudservice.util;
 
+import java.util.UUID;
+
 public class FileUtils {
     public static String getFileNameWithoutExtension(String fileName) {
         int dotIndex = fileName.lastIndexOf('.');
@@ -11,8 +13,12 @@ public class FileUtils {
         return dotIndex == -1 ? "" : fileName.substring(dotIndex + 1);
     }
 
-    public static String generateRelativePath(String folder, String fileName, String fileExtension) {
-        return String.format("%s/%s.%s", folder, fileName, fileExtension);
+    public static String generateObjectKey(UUID workspaceId, UUID fileId) {
+        return String.format("%s/%s", workspaceId, fileId);
+    }
+
+    public static String getWorkspacePrefix(UUID workspaceId) {
+        return workspaceId + "/";
     }
 
     public static String getFullFileName(String fileName, String fileExtension) {
@@ -0,0 +1,33 @@
+package ru.mastkey.cloudservice.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RateLimiter {
+    private final long intervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextPermitAt = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        lock.lock();
+        try {
+            var now = System.nanoTime();
+            var permitAt = Math.max(nextPermitAt, now);
+            nextPermitAt = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mastkey.cloudservice.client.model.FileContent;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
@@ -49,16 +50,30 @@ public class ResponseFactory {
     }
 
     public static ResponseEntity<Resource> createFileResponse(FileContent fileContent) {
+        return ResponseEntity.ok()
+                .headers(createFileHeaders(fileContent))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new InputStreamResource(fileContent.inputStream()));
+    }
+
+    public static ResponseEntity<StreamingResponseBody> createStreamingFileResponse(FileContent fileContent) {
+        StreamingResponseBody body = outputStream -> {
+            try (var fileStream = fileContent.inputStream()) {
+                fileStream.transferTo(outputStream);
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(createFileHeaders(fileContent))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    private static HttpHeaders createFileHeaders(FileContent fileContent) {
         var file = fileContent.file();
-        var fileStream = fileContent.inputStream();
         var fileName = FileUtils.getFullFileName(file.getFileName(), file.getFileExtension());
         var headers = new HttpHeaders();
         headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''%s".formatted(URLEncoder.encode(fileName, StandardCharsets.UTF_8)));
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(new InputStreamResource(fileStream));
+        return headers;
     }
 
     public static <T> ResponseEntity<List<T>> buildPagedResponse(@Nonnull Page<T> page) {
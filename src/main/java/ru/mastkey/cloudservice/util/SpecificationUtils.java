@@ -2,7 +2,6 @@ package ru.mastkey.cloudservice.util;
 
 import jakarta.persistence.criteria.Join;
 import org.springframework.data.jpa.domain.Specification;
-import ru.mastkey.cloudservice.entity.File;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
@@ -17,12 +16,4 @@ public class SpecificationUtils {
             return criteriaBuilder.and(userCondition);
         };
     }
-
-    public static Specification<File> getFilesSpecification(UUID workspaceId) {
-        return Specification.where((root, query, criteriaBuilder) -> {
-            Join<File, Workspace> workspaceJoin = root.join("workspace");
-            var workspaceCondition = criteriaBuilder.equal(workspaceJoin.get("id"), workspaceId);
-            return criteriaBuilder.and(workspaceCondition);
-        });
-    }
 }
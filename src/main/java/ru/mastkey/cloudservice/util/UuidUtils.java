@@ -0,0 +1,28 @@
+package ru.mastkey.cloudservice.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class UuidUtils {
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC_4122 = 0x8000_0000_0000_0000L;
+
+    // RFC 9562 version 7: 48-bit unix millis, then random bits; ids sort by creation time so inserts append to the index
+    public static UUID randomV7() {
+        return randomV7(System.currentTimeMillis());
+    }
+
+    static UUID randomV7(long epochMillis) {
+        var random = ThreadLocalRandom.current();
+        var mostSigBits = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | VERSION_7
+                | random.nextLong() & 0x0FFFL;
+        var leastSigBits = VARIANT_RFC_4122
+                | random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static long getTimestamp(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
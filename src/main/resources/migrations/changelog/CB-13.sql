@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-13
+
+CREATE TABLE s3_purge_tasks
+(
+    id              UUID PRIMARY KEY,
+    bucket_name     TEXT      NOT NULL,
+    prefix          TEXT      NOT NULL,
+    last_key        TEXT,
+    deleted_objects BIGINT    NOT NULL DEFAULT 0,
+    attempts        INT       NOT NULL DEFAULT 0,
+    locked_until    TIMESTAMP,
+    created_at      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_s3_purge_tasks_created_at ON s3_purge_tasks (created_at);
@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-14
+
+ALTER TABLE files DROP CONSTRAINT file_workspace_id_fkey;
+ALTER TABLE files
+    ADD CONSTRAINT fk_files_workspace
+        FOREIGN KEY (workspace_id) REFERENCES workspaces (id) ON DELETE CASCADE;
+
+CREATE INDEX idx_files_workspace_id ON files (workspace_id);
@@ -0,0 +1,30 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-15
+
+UPDATE files SET file_extension = '' WHERE file_extension IS NULL;
+ALTER TABLE files ALTER COLUMN file_extension SET NOT NULL;
+
+-- keep the latest row of every name, objects of id-keyed duplicates go to the purge queue
+WITH ranked AS (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY workspace_id, file_name, file_extension ORDER BY created_at DESC, id DESC) AS rn
+    FROM files
+),
+duplicates AS (
+    DELETE FROM files f
+        USING ranked r
+        WHERE f.id = r.id AND r.rn > 1
+        RETURNING f.id, f.workspace_id, f.path
+)
+INSERT INTO s3_purge_tasks (id, bucket_name, prefix, created_at)
+SELECT gen_random_uuid(), u.bucket_name, d.path, now()
+FROM duplicates d
+         JOIN workspaces w ON w.id = d.workspace_id
+         JOIN users u ON u.id = w.owner_id
+WHERE d.path = CAST(d.workspace_id AS TEXT) || '/' || CAST(d.id AS TEXT);
+
+ALTER TABLE files
+    ADD CONSTRAINT uq_files_workspace_name UNIQUE (workspace_id, file_name, file_extension);
+
+DROP INDEX idx_files_workspace_id;
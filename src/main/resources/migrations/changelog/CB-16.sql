@@ -0,0 +1,62 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-16
+
+ALTER TABLE files ADD COLUMN size BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE workspace_stats
+(
+    workspace_id UUID PRIMARY KEY REFERENCES workspaces (id) ON DELETE CASCADE,
+    file_count   BIGINT    NOT NULL DEFAULT 0,
+    total_bytes  BIGINT    NOT NULL DEFAULT 0,
+    updated_at   TIMESTAMP NOT NULL
+);
+
+INSERT INTO workspace_stats (workspace_id, file_count, total_bytes, updated_at)
+SELECT w.id, COUNT(f.id), COALESCE(SUM(f.size), 0), now()
+FROM workspaces w
+         LEFT JOIN files f ON f.workspace_id = w.id
+GROUP BY w.id;
+
+--changeset fetyukhin:CB-16-1 splitStatements:false
+
+CREATE OR REPLACE FUNCTION update_workspace_stats() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'UPDATE' AND OLD.workspace_id = NEW.workspace_id THEN
+        IF OLD.size <> NEW.size THEN
+            UPDATE workspace_stats
+            SET total_bytes = total_bytes + NEW.size - OLD.size,
+                updated_at  = now()
+            WHERE workspace_id = NEW.workspace_id;
+        END IF;
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE workspace_stats
+        SET file_count  = file_count - 1,
+            total_bytes = total_bytes - OLD.size,
+            updated_at  = now()
+        WHERE workspace_id = OLD.workspace_id;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO workspace_stats (workspace_id, file_count, total_bytes, updated_at)
+        VALUES (NEW.workspace_id, 1, NEW.size, now())
+        ON CONFLICT (workspace_id) DO UPDATE
+            SET file_count  = workspace_stats.file_count + 1,
+                total_bytes = workspace_stats.total_bytes + EXCLUDED.total_bytes,
+                updated_at  = now();
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset fetyukhin:CB-16-2
+
+CREATE TRIGGER trg_files_workspace_stats
+    AFTER INSERT OR UPDATE OF size, workspace_id OR DELETE
+    ON files
+    FOR EACH ROW
+EXECUTE FUNCTION update_workspace_stats();
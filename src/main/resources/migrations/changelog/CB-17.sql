@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-17
+
+ALTER TABLE files ADD COLUMN storage_tier VARCHAR(16) NOT NULL DEFAULT 'COLD';
+ALTER TABLE files ADD COLUMN last_accessed_at TIMESTAMP;
+
+CREATE INDEX idx_files_storage_tier ON files (storage_tier, id) WHERE storage_tier <> 'COLD';
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-18
+
+CREATE TABLE storage_reconcile_checkpoints
+(
+    bucket_name  TEXT PRIMARY KEY,
+    last_key     TEXT,
+    locked_until TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_files_path_c ON files (path COLLATE "C");
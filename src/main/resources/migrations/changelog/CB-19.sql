@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-19
+
+CREATE INDEX idx_files_workspace_path_c ON files (workspace_id, path COLLATE "C");
@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset fetyukhin:CB-20
+
+ALTER TABLE s3_purge_tasks
+    ADD COLUMN exact_key BOOLEAN NOT NULL DEFAULT FALSE;
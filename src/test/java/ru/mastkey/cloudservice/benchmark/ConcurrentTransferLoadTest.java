@@ -0,0 +1,119 @@
+package ru.mastkey.cloudservice.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.support.IntegrationTestBase;
+import ru.mastkey.cloudservice.util.FileUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// concurrent slow downloads with the platform threads and heap needed per connection, run with -Dbenchmark=true
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+abstract class ConcurrentTransferLoadTest extends IntegrationTestBase {
+    private static final int CONNECTIONS = 400;
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+    private static final int READ_CHUNK = 256 * 1024;
+    private static final long READ_PAUSE_MILLIS = 50;
+
+    @LocalServerPort
+    private int port;
+
+    protected abstract String mode();
+
+    protected abstract void assertCapacity(Result result);
+
+    @Test
+    void download_ShouldServeSlowClientsConcurrently() throws Exception {
+        var workspace = createWorkspaceWithUser();
+        var user = workspace.getUsers().iterator().next();
+        var file = createLargeFile(workspace);
+        var token = createTokenForSavedUser(user);
+        var uri = URI.create("http://localhost:%d/api/v1/files/%s/workspaces/%s".formatted(port, file.getId(), workspace.getId()));
+
+        var threads = ManagementFactory.getThreadMXBean();
+        var memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        var baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        var baselineThreads = threads.getThreadCount();
+
+        var streaming = new AtomicInteger();
+        var peakStreaming = new AtomicInteger();
+        var peakHeap = new AtomicLong();
+        var peakThreads = new AtomicInteger();
+        var startedAt = System.nanoTime();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor();
+             var client = HttpClient.newBuilder().executor(executor).build()) {
+            var downloads = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                downloads.add(executor.submit(() -> {
+                    var request = HttpRequest.newBuilder(uri)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .build();
+                    var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    try (var body = response.body()) {
+                        peakStreaming.accumulateAndGet(streaming.incrementAndGet(), Math::max);
+                        var chunk = new byte[READ_CHUNK];
+                        while (body.readNBytes(chunk, 0, chunk.length) > 0) {
+                            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                            peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                            Thread.sleep(READ_PAUSE_MILLIS);
+                        }
+                    } finally {
+                        streaming.decrementAndGet();
+                    }
+                    return response.statusCode();
+                }));
+            }
+            for (var download : downloads) {
+                assertThat(download.get()).isEqualTo(200);
+            }
+        }
+
+        var result = new Result(
+                peakStreaming.get(),
+                (System.nanoTime() - startedAt) / 1_000_000,
+                peakThreads.get() - baselineThreads,
+                (peakHeap.get() - baselineHeap) / Math.max(peakStreaming.get(), 1));
+        log.info("{} threads: {} concurrent transfers, {} ms total, +{} platform threads, {} heap bytes per connection",
+                mode(), result.peakConcurrent(), result.millis(), result.extraThreads(), result.heapPerConnection());
+        assertCapacity(result);
+    }
+
+    private File createLargeFile(Workspace workspace) {
+        var file = new File();
+        file.setId(UUID.randomUUID());
+        file.setWorkspace(workspace);
+        file.setFileName("large");
+        file.setFileExtension("bin");
+        file.setPath(FileUtils.generateObjectKey(workspace.getId(), file.getId()));
+        var bucketName = workspace.getUsers().iterator().next().getBucketName();
+        s3Client.uploadFile(new MockMultipartFile("file", "large.bin", MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                new byte[FILE_SIZE]), bucketName, file.getPath());
+        return fileRepository.save(file);
+    }
+
+    protected record Result(int peakConcurrent, long millis, int extraThreads, long heapPerConnection) {
+    }
+}
@@ -0,0 +1,26 @@
+package ru.mastkey.cloudservice.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=200",
+        "bulkhead.transfer.max-concurrent=1000",
+        "bulkhead.metadata.max-concurrent=1000",
+        "s3.transfer.memory-budget=1GB"
+})
+class PlatformThreadTransferLoadTest extends ConcurrentTransferLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+
+    @Override
+    protected void assertCapacity(Result result) {
+        // every transfer holds a worker for its whole duration
+        assertThat(result.peakConcurrent()).isLessThanOrEqualTo(200);
+    }
+}
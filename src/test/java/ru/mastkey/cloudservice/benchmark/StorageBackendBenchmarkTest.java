@@ -0,0 +1,97 @@
+package ru.mastkey.cloudservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.testcontainers.containers.MinIOContainer;
+import ru.mastkey.cloudservice.client.InMemoryStorageBackend;
+import ru.mastkey.cloudservice.client.LocalStorageBackend;
+import ru.mastkey.cloudservice.client.PresignedUrlSigner;
+import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.client.S3Metrics;
+import ru.mastkey.cloudservice.client.S3Resilience;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.TransferMemoryGovernor;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the same objects through every storage backend, to see how much of a transfer is object store overhead, run with -Dbenchmark=true
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StorageBackendBenchmarkTest {
+    private static final int OBJECTS = 200;
+    private static final int OBJECT_SIZE = 1024 * 1024;
+    private static final String BUCKET_NAME = "benchmark";
+
+    private static final MinIOContainer CONTAINER = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    @TempDir
+    static Path root;
+
+    @BeforeAll
+    static void startContainer() {
+        CONTAINER.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        CONTAINER.stop();
+    }
+
+    @Test
+    void transfer_ShouldBeFasterOnLocalDisk_ThanThroughObjectStore() throws IOException {
+        var content = new byte[OBJECT_SIZE];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        var memory = run(new InMemoryStorageBackend(), content);
+        var local = run(localBackend(), content);
+        var minio = run(minioBackend(), content);
+
+        log.info("memory: {} ms, local: {} ms, minio: {} ms for {} objects of {} bytes",
+                memory, local, minio, OBJECTS, OBJECT_SIZE);
+
+        assertThat(local).isLessThan(minio);
+    }
+
+    private long run(StorageBackend backend, byte[] content) throws IOException {
+        backend.createBucketIfNotExists(BUCKET_NAME);
+        var started = System.nanoTime();
+        for (int i = 0; i < OBJECTS; i++) {
+            var key = "objects/%05d.bin".formatted(i);
+            backend.uploadFile(new MockMultipartFile("file", key, null, content), BUCKET_NAME, key);
+            try (var stream = backend.getFileStream(BUCKET_NAME, key)) {
+                assertThat(stream.readAllBytes()).hasSize(OBJECT_SIZE);
+            }
+        }
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private static StorageBackend localBackend() {
+        var storageProperties = new StorageProperties();
+        storageProperties.getLocal().setRoot(root);
+        return new LocalStorageBackend(storageProperties);
+    }
+
+    private static StorageBackend minioBackend() {
+        var s3Properties = new S3Properties();
+        var meterRegistry = new SimpleMeterRegistry();
+        var minioClient = MinioClient.builder()
+                .endpoint(CONTAINER.getS3URL())
+                .credentials(CONTAINER.getUserName(), CONTAINER.getPassword())
+                .build();
+        return new S3Client(minioClient, new TransferMemoryGovernor(s3Properties, meterRegistry), s3Properties,
+                new S3Metrics(meterRegistry), new S3Resilience(s3Properties, meterRegistry), new PresignedUrlSigner(s3Properties));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.mastkey.cloudservice.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import ru.mastkey.cloudservice.util.UuidUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// primary key inserts of random (v4) and time-ordered (v7) ids, run with -Dbenchmark=true
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidKeyBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final PostgreSQLContainer<?> CONTAINER =
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:14-alpine"));
+
+    @BeforeAll
+    static void startContainer() {
+        CONTAINER.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        CONTAINER.stop();
+    }
+
+    @Test
+    void insert_ShouldProduceSmallerIndex_WhenIdsAreTimeOrdered() throws SQLException {
+        var v4 = run("uuid_v4", UUID::randomUUID);
+        var v7 = run("uuid_v7", UuidUtils::randomV7);
+
+        log.info("v4: {} ms, index {} bytes", v4.millis(), v4.indexBytes());
+        log.info("v7: {} ms, index {} bytes", v7.millis(), v7.indexBytes());
+
+        // random keys split pages all over the btree and leave them half empty
+        assertThat(v7.indexBytes()).isLessThan(v4.indexBytes());
+    }
+
+    private Result run(String table, Supplier<UUID> ids) throws SQLException {
+        try (var connection = DriverManager.getConnection(
+                CONTAINER.getJdbcUrl(), CONTAINER.getUsername(), CONTAINER.getPassword())) {
+            execute(connection, "CREATE TABLE " + table + " (id uuid PRIMARY KEY, payload text)");
+            connection.setAutoCommit(false);
+
+            var started = System.nanoTime();
+            try (var statement = connection.prepareStatement("INSERT INTO " + table + " (id, payload) VALUES (?, ?)")) {
+                for (int i = 1; i <= ROWS; i++) {
+                    statement.setObject(1, ids.get());
+                    statement.setString(2, "row-" + i);
+                    statement.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        statement.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+            var millis = (System.nanoTime() - started) / 1_000_000;
+
+            try (var statement = connection.prepareStatement("SELECT pg_relation_size(?)")) {
+                statement.setString(1, table + "_pkey");
+                try (var resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return new Result(millis, resultSet.getLong(1));
+                }
+            }
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record Result(long millis, long indexBytes) {
+    }
+}
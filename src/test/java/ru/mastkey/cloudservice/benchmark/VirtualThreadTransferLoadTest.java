@@ -0,0 +1,25 @@
+package ru.mastkey.cloudservice.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=200",
+        "bulkhead.transfer.max-concurrent=1000",
+        "bulkhead.metadata.max-concurrent=1000",
+        "s3.transfer.memory-budget=1GB"
+})
+class VirtualThreadTransferLoadTest extends ConcurrentTransferLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+
+    @Override
+    protected void assertCapacity(Result result) {
+        assertThat(result.peakConcurrent()).isGreaterThan(200);
+    }
+}
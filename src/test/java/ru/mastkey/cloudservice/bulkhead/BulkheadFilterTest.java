@@ -0,0 +1,99 @@
+package ru.mastkey.cloudservice.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.mastkey.cloudservice.configuration.properties.BulkheadProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BulkheadFilter bulkheadFilter;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new BulkheadProperties();
+        properties.setTransfer(new BulkheadProperties.Lane(1, Duration.ZERO));
+        properties.setMetadata(new BulkheadProperties.Lane(1, Duration.ofMillis(10)));
+        meterRegistry = new SimpleMeterRegistry();
+        bulkheadFilter = new BulkheadFilter(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void of_ShouldRouteDownloadsAndUploadsToTransferLane() {
+        var workspaceId = UUID.randomUUID();
+
+        assertThat(RequestLane.of(new MockHttpServletRequest("GET", "/api/v1/files/%s/workspaces/%s".formatted(UUID.randomUUID(), workspaceId))))
+                .isEqualTo(RequestLane.TRANSFER);
+        assertThat(RequestLane.of(new MockHttpServletRequest("POST", "/api/v1/files/workspaces/" + workspaceId)))
+                .isEqualTo(RequestLane.TRANSFER);
+        assertThat(RequestLane.of(new MockHttpServletRequest("GET", "/api/v1/files/workspaces/" + workspaceId)))
+                .isEqualTo(RequestLane.METADATA);
+        assertThat(RequestLane.of(new MockHttpServletRequest("DELETE", "/api/v1/files/%s/workspaces/%s".formatted(UUID.randomUUID(), workspaceId))))
+                .isEqualTo(RequestLane.METADATA);
+    }
+
+    @Test
+    void of_ShouldRouteServerSideCopiesToTransferLane() {
+        var workspaceId = UUID.randomUUID();
+
+        assertThat(RequestLane.of(new MockHttpServletRequest("POST", "/api/v1/files/%s/workspaces/%s/copy".formatted(UUID.randomUUID(), workspaceId))))
+                .isEqualTo(RequestLane.TRANSFER);
+        assertThat(RequestLane.of(new MockHttpServletRequest("POST", "/api/v1/files/%s/workspaces/%s/move".formatted(UUID.randomUUID(), workspaceId))))
+                .isEqualTo(RequestLane.TRANSFER);
+        assertThat(RequestLane.of(new MockHttpServletRequest("POST", "/api/v1/files/workspaces/%s/copy".formatted(workspaceId))))
+                .isEqualTo(RequestLane.TRANSFER);
+        assertThat(RequestLane.of(new MockHttpServletRequest("POST", "/api/v1/files/workspaces/%s/move".formatted(workspaceId))))
+                .isEqualTo(RequestLane.TRANSFER);
+    }
+
+    @Test
+    void doFilter_ShouldRejectTransfer_WhenTransferLaneIsFull() throws Exception {
+        var rejectedTransfer = new MockHttpServletResponse();
+        var metadata = new MockHttpServletResponse();
+        var metadataChain = new MockFilterChain();
+
+        var runningTransfer = new MockFilterChain(new HttpServlet() {
+        }, (request, response, chain) -> {
+            bulkheadFilter.doFilter(transferRequest(), rejectedTransfer, new MockFilterChain());
+            bulkheadFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/workspaces"), metadata, metadataChain);
+        });
+        bulkheadFilter.doFilter(transferRequest(), new MockHttpServletResponse(), runningTransfer);
+
+        assertThat(rejectedTransfer.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejectedTransfer.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejectedTransfer.getContentAsString()).contains("ServiceUnavailable");
+        assertThat(metadata.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(metadataChain.getRequest()).isNotNull();
+        assertThat(meterRegistry.get("bulkhead.rejections").tag("lane", "transfer").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("bulkhead.rejections").tag("lane", "metadata").counter().count()).isZero();
+    }
+
+    @Test
+    void doFilter_ShouldFreeLane_WhenRequestCompletes() throws Exception {
+        var chain = new MockFilterChain();
+
+        bulkheadFilter.doFilter(transferRequest(), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(meterRegistry.get("bulkhead.active").tag("lane", "transfer").gauge().value()).isZero();
+        var next = new MockHttpServletResponse();
+        bulkheadFilter.doFilter(transferRequest(), next, new MockFilterChain());
+        assertThat(next.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    private static MockHttpServletRequest transferRequest() {
+        return new MockHttpServletRequest("GET", "/api/v1/files/%s/workspaces/%s".formatted(UUID.randomUUID(), UUID.randomUUID()));
+    }
+}
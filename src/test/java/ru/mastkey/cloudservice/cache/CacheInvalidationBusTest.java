@@ -0,0 +1,117 @@
+package ru.mastkey.cloudservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.cache.model.InvalidationMessage;
+import ru.mastkey.cloudservice.configuration.properties.CacheProperties;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private InvalidatableCache cache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CacheProperties cacheProperties;
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties = new CacheProperties();
+        cacheInvalidationBus = new CacheInvalidationBus(List.of(cache), jdbcTemplate, objectMapper, cacheProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publish_ShouldNotifyNodesAndInvalidateLocally_WhenNoTransactionIsActive() throws Exception {
+        var event = CacheInvalidationEvent.membership(UUID.randomUUID(), UUID.randomUUID());
+
+        cacheInvalidationBus.publish(event);
+
+        var payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class), eq("cache_invalidation"), payload.capture());
+        assertThat(objectMapper.readValue(payload.getValue(), InvalidationMessage.class).event()).isEqualTo(event);
+        verify(cache).invalidate(event);
+    }
+
+    @Test
+    void publish_ShouldInvalidateLocallyAfterCommit_WhenTransactionIsActive() {
+        var event = CacheInvalidationEvent.workspace(UUID.randomUUID());
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheInvalidationBus.publish(event);
+        verify(cache, never()).invalidate(any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).invalidate(event);
+    }
+
+    @Test
+    void publish_ShouldSkipNotify_WhenInvalidationIsDisabled() {
+        cacheProperties.getInvalidation().setEnabled(false);
+        var event = CacheInvalidationEvent.user(UUID.randomUUID());
+
+        cacheInvalidationBus.publish(event);
+
+        verifyNoInteractions(jdbcTemplate);
+        verify(cache).invalidate(event);
+    }
+
+    @Test
+    void onMessage_ShouldInvalidateLocally_WhenMessageComesFromOtherNode() throws Exception {
+        var event = CacheInvalidationEvent.workspace(UUID.randomUUID());
+        var payload = objectMapper.writeValueAsString(new InvalidationMessage(UUID.randomUUID(), event));
+
+        cacheInvalidationBus.onMessage(payload);
+
+        verify(cache).invalidate(event);
+    }
+
+    @Test
+    void onMessage_ShouldIgnoreOwnMessages() {
+        var event = CacheInvalidationEvent.membership(UUID.randomUUID(), UUID.randomUUID());
+        cacheInvalidationBus.publish(event);
+        var payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).queryForObject(anyString(), eq(Object.class), anyString(), payload.capture());
+        clearInvocations(cache);
+
+        cacheInvalidationBus.onMessage(payload.getValue());
+
+        verify(cache, never()).invalidate(any());
+    }
+
+    @Test
+    void onMessage_ShouldFlushLocalCaches_WhenMessageIsUnreadable() {
+        cacheInvalidationBus.onMessage("not a json");
+
+        verify(cache).invalidateAll();
+        verify(cache, never()).invalidate(any());
+    }
+}
@@ -0,0 +1,85 @@
+package ru.mastkey.cloudservice.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.Workspace;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+import static ru.mastkey.cloudservice.cache.HibernateSecondLevelCache.USER_WORKSPACES_ROLE;
+import static ru.mastkey.cloudservice.cache.HibernateSecondLevelCache.WORKSPACE_USERS_ROLE;
+
+@ExtendWith(MockitoExtension.class)
+class HibernateSecondLevelCacheTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache cache;
+
+    private HibernateSecondLevelCache hibernateSecondLevelCache;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        hibernateSecondLevelCache = new HibernateSecondLevelCache(entityManagerFactory);
+    }
+
+    @Test
+    void invalidate_ShouldEvictBothCollections_WhenMembershipChanged() {
+        var userId = UUID.randomUUID();
+        var workspaceId = UUID.randomUUID();
+
+        hibernateSecondLevelCache.invalidate(CacheInvalidationEvent.membership(userId, workspaceId));
+
+        verify(cache).evictCollectionData(USER_WORKSPACES_ROLE, userId);
+        verify(cache).evictCollectionData(WORKSPACE_USERS_ROLE, workspaceId);
+        verify(cache).evictQueryRegions();
+        verify(cache, never()).evictEntityData(any(Class.class), any());
+    }
+
+    @Test
+    void invalidate_ShouldEvictWorkspaceAndUserCollections_WhenWorkspaceChanged() {
+        var workspaceId = UUID.randomUUID();
+
+        hibernateSecondLevelCache.invalidate(CacheInvalidationEvent.workspace(workspaceId));
+
+        verify(cache).evictEntityData(Workspace.class, workspaceId);
+        verify(cache).evictCollectionData(WORKSPACE_USERS_ROLE, workspaceId);
+        verify(cache).evictCollectionData(USER_WORKSPACES_ROLE);
+        verify(cache).evictQueryRegions();
+    }
+
+    @Test
+    void invalidate_ShouldEvictUser_WhenUserChanged() {
+        var userId = UUID.randomUUID();
+
+        hibernateSecondLevelCache.invalidate(CacheInvalidationEvent.user(userId));
+
+        verify(cache).evictEntityData(User.class, userId);
+        verify(cache).evictCollectionData(USER_WORKSPACES_ROLE, userId);
+        verify(cache).evictCollectionData(WORKSPACE_USERS_ROLE);
+        verify(cache).evictQueryRegions();
+    }
+
+    @Test
+    void invalidateAll_ShouldEvictAllRegions() {
+        hibernateSecondLevelCache.invalidateAll();
+
+        verify(cache).evictAllRegions();
+    }
+}
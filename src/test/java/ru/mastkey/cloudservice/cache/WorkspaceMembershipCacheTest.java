@@ -0,0 +1,158 @@
+package ru.mastkey.cloudservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.configuration.properties.CacheProperties;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.UserWorkspace;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceMembershipCacheTest {
+
+    @Mock
+    private UserWorkspaceRepository userWorkspaceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WorkspaceMembershipCache workspaceMembershipCache;
+
+    private User owner;
+    private User member;
+    private Workspace workspace;
+
+    @BeforeEach
+    void setUp() {
+        workspaceMembershipCache = new WorkspaceMembershipCache(
+                userWorkspaceRepository, transactionManager, new CacheProperties(), new SimpleMeterRegistry());
+
+        owner = new User().setId(UUID.randomUUID()).setBucketName("owner_bucket");
+        member = new User().setId(UUID.randomUUID()).setBucketName("member_bucket");
+        workspace = new Workspace().setId(UUID.randomUUID()).setOwner(owner);
+    }
+
+    @Test
+    void getMembership_ShouldQueryRepositoryOnce_WhenCalledRepeatedly() {
+        stubLink(member);
+
+        var first = workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+        var second = workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+
+        assertThat(first).isPresent();
+        assertThat(second).isEqualTo(first);
+        assertThat(first.get().owner()).isFalse();
+        assertThat(first.get().ownerBucketName()).isEqualTo("owner_bucket");
+        verify(userWorkspaceRepository, times(1)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+    }
+
+    @Test
+    void getMembership_ShouldMarkOwner_WhenUserOwnsWorkspace() {
+        stubLink(owner);
+
+        var membership = workspaceMembershipCache.getMembership(owner.getId(), workspace.getId());
+
+        assertThat(membership).isPresent();
+        assertThat(membership.get().owner()).isTrue();
+    }
+
+    @Test
+    void getMembership_ShouldNotCacheMissingLink() {
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(member.getId(), workspace.getId()))
+                .thenReturn(Optional.empty());
+
+        assertThat(workspaceMembershipCache.getMembership(member.getId(), workspace.getId())).isEmpty();
+        assertThat(workspaceMembershipCache.getMembership(member.getId(), workspace.getId())).isEmpty();
+
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+    }
+
+    @Test
+    void getMembership_ShouldRetryLoad_WhenPreviousLoadFailed() {
+        var userWorkspace = UserWorkspace.builder().user(member).workspace(workspace).build();
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(member.getId(), workspace.getId()))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(Optional.of(userWorkspace));
+
+        assertThrows(IllegalStateException.class,
+                () -> workspaceMembershipCache.getMembership(member.getId(), workspace.getId()));
+
+        assertThat(workspaceMembershipCache.getMembership(member.getId(), workspace.getId())).isPresent();
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+    }
+
+    @Test
+    void invalidate_ShouldReloadMembership_WhenMembershipChanged() {
+        stubLink(member);
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+
+        workspaceMembershipCache.invalidate(CacheInvalidationEvent.membership(member.getId(), workspace.getId()));
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+    }
+
+    @Test
+    void invalidate_ShouldRemoveEveryMemberOfWorkspace_WhenWorkspaceChanged() {
+        stubLink(member);
+        stubLink(owner);
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+        workspaceMembershipCache.getMembership(owner.getId(), workspace.getId());
+
+        workspaceMembershipCache.invalidate(CacheInvalidationEvent.workspace(workspace.getId()));
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+        workspaceMembershipCache.getMembership(owner.getId(), workspace.getId());
+
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(owner.getId(), workspace.getId());
+    }
+
+    @Test
+    void invalidate_ShouldKeepOtherUsers_WhenUserChanged() {
+        stubLink(member);
+        stubLink(owner);
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+        workspaceMembershipCache.getMembership(owner.getId(), workspace.getId());
+
+        workspaceMembershipCache.invalidate(CacheInvalidationEvent.user(member.getId()));
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+        workspaceMembershipCache.getMembership(owner.getId(), workspace.getId());
+
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+        verify(userWorkspaceRepository, times(1)).findByUserIdAndWorkspaceId(owner.getId(), workspace.getId());
+    }
+
+    @Test
+    void invalidateAll_ShouldReloadEveryMembership() {
+        stubLink(member);
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+
+        workspaceMembershipCache.invalidateAll();
+        workspaceMembershipCache.getMembership(member.getId(), workspace.getId());
+
+        verify(userWorkspaceRepository, times(2)).findByUserIdAndWorkspaceId(member.getId(), workspace.getId());
+    }
+
+    private void stubLink(User user) {
+        var userWorkspace = UserWorkspace.builder()
+                .user(user)
+                .workspace(workspace)
+                .build();
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+    }
+}
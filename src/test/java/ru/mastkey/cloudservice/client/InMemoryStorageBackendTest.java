@@ -0,0 +1,63 @@
+package ru.mastkey.cloudservice.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryStorageBackendTest {
+    private static final String BUCKET_NAME = "bucket";
+
+    private final InMemoryStorageBackend inMemoryStorageBackend = new InMemoryStorageBackend();
+
+    @Test
+    void getFileStream_ShouldReturnRequestedRange() throws Exception {
+        upload("ws/a.txt", "0123456789");
+
+        try (var stream = inMemoryStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt", 3, 4)) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("3456");
+        }
+        try (var stream = inMemoryStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    void listObjects_ShouldReturnKeysUnderPrefixAfterCursor() {
+        upload("ws/b.txt", "bb");
+        upload("ws/a.txt", "a");
+        upload("wt/c.txt", "c");
+
+        assertThat(keys(inMemoryStorageBackend.listObjects(BUCKET_NAME, "ws/", null)))
+                .containsExactly("ws/a.txt", "ws/b.txt");
+        assertThat(keys(inMemoryStorageBackend.listObjects(BUCKET_NAME, "ws/", "ws/a.txt")))
+                .containsExactly("ws/b.txt");
+    }
+
+    @Test
+    void copyObject_ShouldKeepSource() {
+        upload("ws/a.txt", "hello");
+
+        inMemoryStorageBackend.copyObject(BUCKET_NAME, "ws/a.txt", "ws/b.txt");
+        inMemoryStorageBackend.removeObjects(BUCKET_NAME, List.of("ws/a.txt"));
+
+        assertThat(inMemoryStorageBackend.objectExists(BUCKET_NAME, "ws/a.txt")).isFalse();
+        assertThat(inMemoryStorageBackend.stat(BUCKET_NAME, "ws/b.txt"))
+                .map(S3ObjectSummary::size)
+                .contains(5L);
+    }
+
+    private void upload(String key, String content) {
+        inMemoryStorageBackend.uploadFile(new MockMultipartFile("file", key, null, content.getBytes()), BUCKET_NAME, key);
+    }
+
+    private static List<String> keys(Iterable<S3ObjectSummary> objects) {
+        return StreamSupport.stream(objects.spliterator(), false)
+                .map(S3ObjectSummary::key)
+                .toList();
+    }
+}
@@ -0,0 +1,189 @@
+package ru.mastkey.cloudservice.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalStorageBackendTest {
+    private static final String BUCKET_NAME = "bucket";
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend localStorageBackend;
+
+    @BeforeEach
+    void setUp() {
+        var storageProperties = new StorageProperties();
+        storageProperties.getLocal().setRoot(root);
+        localStorageBackend = new LocalStorageBackend(storageProperties);
+        localStorageBackend.createBucketIfNotExists(BUCKET_NAME);
+    }
+
+    @Test
+    void uploadFile_ShouldStoreContentUnderBucket() throws Exception {
+        upload("ws/a.txt", "hello");
+
+        assertThat(Files.readString(root.resolve(BUCKET_NAME).resolve("ws/a.txt"))).isEqualTo("hello");
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+    }
+
+    @Test
+    void uploadFile_ShouldFail_WhenStreamIsShorterThanDeclaredSize() {
+        var file = new MockMultipartFile("file", "a.txt", null, "abc".getBytes()) {
+            @Override
+            public long getSize() {
+                return 10;
+            }
+        };
+
+        var exception = assertThrows(ServiceException.class, () -> localStorageBackend.uploadFile(file, BUCKET_NAME, "ws/a.txt"));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+        assertThat(localStorageBackend.objectExists(BUCKET_NAME, "ws/a.txt")).isFalse();
+        assertThat(root.resolve(BUCKET_NAME).resolve("ws").toFile().list()).isEmpty();
+    }
+
+    @Test
+    void getFileStream_ShouldReturnRequestedRange() throws Exception {
+        upload("ws/a.txt", "0123456789");
+
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt", 3, 4)) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("3456");
+        }
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt", 8, 100)) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("89");
+        }
+    }
+
+    @Test
+    void getFileStream_ShouldThrowServiceException_WhenObjectIsMissing() {
+        var exception = assertThrows(ServiceException.class,
+                () -> localStorageBackend.getFileStream(BUCKET_NAME, "ws/missing.txt"));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+    }
+
+    @Test
+    void listObjects_ShouldReturnSortedKeysUnderPrefixAfterCursor() {
+        upload("ws/b.txt", "bb");
+        upload("ws/a.txt", "a");
+        upload("ws/nested/c.txt", "ccc");
+        upload("other/d.txt", "d");
+        localStorageBackend.createFolder(BUCKET_NAME, "ws/empty/");
+
+        var all = keys(localStorageBackend.listObjects(BUCKET_NAME, "ws/", null));
+        var afterA = keys(localStorageBackend.listObjects(BUCKET_NAME, "ws/", "ws/a.txt"));
+
+        assertThat(all).containsExactly("ws/a.txt", "ws/b.txt", "ws/nested/c.txt");
+        assertThat(afterA).containsExactly("ws/b.txt", "ws/nested/c.txt");
+        assertThat(localStorageBackend.listObjects(BUCKET_NAME, "missing/", null)).isEmpty();
+    }
+
+    @Test
+    void copyObject_ShouldDuplicateContent() throws Exception {
+        upload("ws/a.txt", "hello");
+
+        localStorageBackend.copyObject(BUCKET_NAME, "ws/a.txt", "copies/a.txt");
+
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "copies/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+        assertThat(localStorageBackend.objectExists(BUCKET_NAME, "ws/a.txt")).isTrue();
+    }
+
+    @Test
+    void copyObject_ShouldCopyIntoOtherBucket() throws Exception {
+        upload("ws/a.txt", "hello");
+
+        localStorageBackend.copyObject(BUCKET_NAME, "ws/a.txt", "other-bucket", "ws/a.txt");
+
+        try (var stream = localStorageBackend.getFileStream("other-bucket", "ws/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+    }
+
+    @Test
+    void appendObject_ShouldExtendObject() throws Exception {
+        upload("ws/a.txt", "hello");
+
+        localStorageBackend.appendObject(BUCKET_NAME, "ws/a.txt",
+                new MockMultipartFile("file", "segment", null, " world".getBytes()));
+
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello world");
+        }
+    }
+
+    @Test
+    void appendObject_ShouldKeepOriginalContent_WhenSegmentEndsEarly() throws Exception {
+        upload("ws/a.txt", "hello");
+        var segment = new MockMultipartFile("file", "segment", null, " world".getBytes()) {
+            @Override
+            public long getSize() {
+                return 100L;
+            }
+        };
+
+        assertThrows(ServiceException.class, () -> localStorageBackend.appendObject(BUCKET_NAME, "ws/a.txt", segment));
+
+        try (var stream = localStorageBackend.getFileStream(BUCKET_NAME, "ws/a.txt")) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+    }
+
+    @Test
+    void stat_ShouldReturnSize_WhenObjectExists() {
+        upload("ws/a.txt", "hello");
+
+        assertThat(localStorageBackend.stat(BUCKET_NAME, "ws/a.txt"))
+                .map(S3ObjectSummary::size)
+                .contains(5L);
+        assertThat(localStorageBackend.stat(BUCKET_NAME, "ws/missing.txt")).isEmpty();
+    }
+
+    @Test
+    void removeObjects_ShouldDeleteEveryKey() {
+        upload("ws/a.txt", "a");
+        upload("ws/b.txt", "b");
+
+        localStorageBackend.removeObjects(BUCKET_NAME, List.of("ws/a.txt", "ws/b.txt", "ws/missing.txt"));
+
+        assertThat(localStorageBackend.listObjects(BUCKET_NAME, "ws/", null)).isEmpty();
+    }
+
+    @Test
+    void uploadFile_ShouldRejectKey_WhenItEscapesBucket() {
+        var file = new MockMultipartFile("file", "a.txt", null, "a".getBytes());
+
+        var exception = assertThrows(ServiceException.class,
+                () -> localStorageBackend.uploadFile(file, BUCKET_NAME, "../other/a.txt"));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.BAD_REQUEST.getCode());
+    }
+
+    private void upload(String key, String content) {
+        localStorageBackend.uploadFile(new MockMultipartFile("file", key, null, content.getBytes()), BUCKET_NAME, key);
+    }
+
+    private static List<String> keys(Iterable<S3ObjectSummary> objects) {
+        return StreamSupport.stream(objects.spliterator(), false)
+                .map(S3ObjectSummary::key)
+                .toList();
+    }
+}
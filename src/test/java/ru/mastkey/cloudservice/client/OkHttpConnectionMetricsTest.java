@@ -0,0 +1,42 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class OkHttpConnectionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OkHttpConnectionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new OkHttpConnectionMetrics(meterRegistry);
+    }
+
+    @Test
+    void connectionAcquired_ShouldCountReuse_WithoutCountingNewConnection() {
+        var call = mock(Call.class);
+        var address = InetSocketAddress.createUnresolved("minio", 9000);
+
+        metrics.connectEnd(call, address, Proxy.NO_PROXY, Protocol.HTTP_1_1);
+        metrics.connectionAcquired(call, mock(Connection.class));
+        metrics.connectionAcquired(call, mock(Connection.class));
+        metrics.connectFailed(call, address, Proxy.NO_PROXY, null, new IOException("refused"));
+
+        assertThat(meterRegistry.get("s3.http.connections.opened").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("s3.http.connections.acquired").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("s3.http.connections.failed").counter().count()).isEqualTo(1);
+    }
+}
@@ -1,17 +1,32 @@
 package ru.mastkey.cloudservice.client;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -24,8 +39,10 @@ class S3ClientTest {
     @Mock
     private MinioClient minioClient;
 
-    @InjectMocks
     private S3Client s3Client;
+    private S3Properties s3Properties;
+    private TransferMemoryGovernor transferMemoryGovernor;
+    private SimpleMeterRegistry meterRegistry;
 
     @Mock
     private MultipartFile file;
@@ -34,6 +51,17 @@ class S3ClientTest {
     private static final String FILE_PATH = "test/file/path.txt";
     private static final String FOLDER_PATH = "test/folder/";
 
+    @BeforeEach
+    void setUp() {
+        s3Properties = new S3Properties();
+        s3Properties.getTransfer().setMemoryBudget(DataSize.ofMegabytes(8));
+        s3Properties.getTransfer().setAcquireTimeout(Duration.ofMillis(50));
+        transferMemoryGovernor = new TransferMemoryGovernor(s3Properties, new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        s3Client = new S3Client(minioClient, transferMemoryGovernor, s3Properties, new S3Metrics(meterRegistry),
+                new S3Resilience(s3Properties, meterRegistry), new PresignedUrlSigner(s3Properties));
+    }
+
     @Test
     void createBucketIfNotExists_ShouldCreateBucket_WhenBucketDoesNotExist() throws Exception {
         when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(false);
@@ -120,11 +148,10 @@ class S3ClientTest {
 
     @Test
     void getFileStream_ShouldReturnInputStreamSuccessfully() throws Exception {
-        GetObjectResponse mockResponse = mock(GetObjectResponse.class);
         byte[] fileData = "test content".getBytes();
-        when(mockResponse.readAllBytes()).thenReturn(fileData);
-        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(mockResponse);
-
+        var response = new GetObjectResponse(Headers.of(), "test-bucket", "", "test/path/file.txt",
+                new ByteArrayInputStream(fileData));
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(response);
 
         InputStream result = s3Client.getFileStream("test-bucket", "test/path/file.txt");
 
@@ -133,6 +160,108 @@ class S3ClientTest {
         verify(minioClient).getObject(any(GetObjectArgs.class));
     }
 
+    @Test
+    void getFileStream_ShouldHoldBufferUntilStreamIsClosed() throws Exception {
+        var response = new GetObjectResponse(Headers.of(), "test-bucket", "", "test/path/file.txt",
+                new ByteArrayInputStream(new byte[0]));
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(response);
+
+        var result = s3Client.getFileStream("test-bucket", "test/path/file.txt");
+        assertThat(transferMemoryGovernor.getUsedBytes()).isEqualTo(DataSize.ofKilobytes(64).toBytes());
+
+        result.close();
+        assertThat(transferMemoryGovernor.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void uploadFile_ShouldShedLoad_WhenTransferMemoryIsExhausted() throws Exception {
+        when(file.getSize()).thenReturn(DataSize.ofMegabytes(5).toBytes());
+        try (var held = transferMemoryGovernor.reserve(DataSize.ofMegabytes(4).toBytes())) {
+            var exception = assertThrows(ServiceException.class,
+                    () -> s3Client.uploadFile(file, BUCKET_NAME, FILE_PATH));
+
+            assertThat(exception.getCode()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getCode());
+        }
+        verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+        assertThat(transferMemoryGovernor.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void getPresignedDownloadUrl_ShouldSignForPublicUrl_WhenPublicUrlIsConfigured() {
+        s3Properties.setPublicUrl("https://files.example.com");
+        s3Properties.setAccessKey("access");
+        s3Properties.setSecretKey("secret");
+        s3Client = new S3Client(minioClient, transferMemoryGovernor, s3Properties, new S3Metrics(meterRegistry),
+                new S3Resilience(s3Properties, meterRegistry), new PresignedUrlSigner(s3Properties));
+
+        var url = URI.create(s3Client.getPresignedDownloadUrl(BUCKET_NAME, FILE_PATH, "report 1.pdf").orElseThrow());
+
+        assertThat(url.getHost()).isEqualTo("files.example.com");
+        assertThat(url.getPath()).isEqualTo("/" + BUCKET_NAME + "/" + FILE_PATH);
+        assertThat(url.getQuery())
+                .contains("X-Amz-Expires=900")
+                .contains("X-Amz-Signature=")
+                .contains("response-content-disposition=attachment");
+        verifyNoInteractions(minioClient);
+    }
+
+    @Test
+    void getPresignedDownloadUrl_ShouldReturnEmpty_WhenPublicUrlIsNotConfigured() {
+        var url = s3Client.getPresignedDownloadUrl(BUCKET_NAME, FILE_PATH, "report 1.pdf");
+
+        assertThat(url).isEmpty();
+        verifyNoInteractions(minioClient);
+    }
+
+    @Test
+    void getFileStream_ShouldRecordBytesAndTimeToFirstByte_WhenStreamIsRead() throws Exception {
+        var response = new GetObjectResponse(Headers.of(), "test-bucket", "", "test/path/file.txt",
+                new ByteArrayInputStream("test content".getBytes()));
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(response);
+
+        try (var result = s3Client.getFileStream(BUCKET_NAME, FILE_PATH)) {
+            result.readAllBytes();
+        }
+
+        assertThat(meterRegistry.get("s3.client.requests").tags("operation", "download", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("s3.client.download.ttfb").timer().count()).isEqualTo(1);
+        var bytes = meterRegistry.get("s3.client.bytes").tag("operation", "download").summary();
+        assertThat(bytes.count()).isEqualTo(1);
+        assertThat(bytes.totalAmount()).isEqualTo("test content".length());
+    }
+
+    @Test
+    void uploadFile_ShouldRecordFailureByErrorType_WithoutBucketOrKeyTags() throws Exception {
+        when(file.getSize()).thenReturn(10L);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[10]));
+        doThrow(new IllegalStateException("Error")).when(minioClient).putObject(any(PutObjectArgs.class));
+
+        assertThrows(ServiceException.class, () -> s3Client.uploadFile(file, BUCKET_NAME, FILE_PATH));
+
+        assertThat(meterRegistry.get("s3.client.requests").tags("operation", "upload", "outcome", "error").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("s3.client.errors").tags("operation", "upload", "error", "IllegalStateException").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.getMeters())
+                .flatExtracting(meter -> meter.getId().getTags())
+                .noneMatch(tag -> tag.getValue().equals(BUCKET_NAME) || tag.getValue().equals(FILE_PATH));
+    }
+
+    @Test
+    void getFileStream_ShouldRetry_WhenConnectionFails() throws Exception {
+        var response = new GetObjectResponse(Headers.of(), "test-bucket", "", "test/path/file.txt",
+                new ByteArrayInputStream("test content".getBytes()));
+        when(minioClient.getObject(any(GetObjectArgs.class)))
+                .thenThrow(new IOException("connection reset"))
+                .thenReturn(response);
+
+        try (var result = s3Client.getFileStream(BUCKET_NAME, FILE_PATH)) {
+            assertThat(new String(result.readAllBytes())).isEqualTo("test content");
+        }
+        verify(minioClient, times(2)).getObject(any(GetObjectArgs.class));
+    }
+
     @Test
     void getFileStream_ShouldThrowServiceException_OnFailure() throws Exception {
         when(minioClient.getObject(any(GetObjectArgs.class))).thenThrow(new RuntimeException("Error"));
@@ -161,6 +290,176 @@ class S3ClientTest {
         verify(minioClient).removeObject(any(RemoveObjectArgs.class));
     }
 
+    @Test
+    void listObjects_ShouldMapListedItems() {
+        var lastModified = ZonedDateTime.now();
+        var item = mock(Item.class);
+        when(item.objectName()).thenReturn(FILE_PATH);
+        when(item.size()).thenReturn(42L);
+        when(item.lastModified()).thenReturn(lastModified);
+        when(minioClient.listObjects(any(ListObjectsArgs.class))).thenReturn(List.of(new Result<>(item)));
+
+        var objects = s3Client.listObjects(BUCKET_NAME, FOLDER_PATH, null);
+
+        assertThat(objects).singleElement().satisfies(object -> {
+            assertThat(object.key()).isEqualTo(FILE_PATH);
+            assertThat(object.size()).isEqualTo(42L);
+            assertThat(object.lastModified()).isEqualTo(lastModified);
+        });
+    }
+
+    @Test
+    void listObjects_ShouldThrowServiceException_WhenListingFails() {
+        when(minioClient.listObjects(any(ListObjectsArgs.class)))
+                .thenReturn(List.of(new Result<>(new RuntimeException("Error"))));
+
+        var iterator = s3Client.listObjects(BUCKET_NAME, FOLDER_PATH, FILE_PATH).iterator();
+
+        ServiceException exception = assertThrows(ServiceException.class, iterator::next);
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+    }
+
+    @Test
+    void removeObjects_ShouldDeleteObjectsSuccessfully() {
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of());
+
+        s3Client.removeObjects(BUCKET_NAME, List.of(FILE_PATH, FOLDER_PATH));
+
+        verify(minioClient).removeObjects(any(RemoveObjectsArgs.class));
+    }
+
+    @Test
+    void removeObjects_ShouldThrowServiceException_WhenSomeObjectsAreNotDeleted() {
+        var deleteError = mock(DeleteError.class);
+        when(deleteError.objectName()).thenReturn(FILE_PATH);
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of(new Result<>(deleteError)));
+
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> s3Client.removeObjects(BUCKET_NAME, List.of(FILE_PATH, FOLDER_PATH)));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+        assertThat(exception.getMessage()).contains("1 of 2 objects were not deleted");
+    }
+
+    @Test
+    void objectExists_ShouldReturnTrue_WhenObjectIsFound() throws Exception {
+        assertThat(s3Client.objectExists(BUCKET_NAME, FILE_PATH)).isTrue();
+
+        verify(minioClient).statObject(any(StatObjectArgs.class));
+    }
+
+    @Test
+    void objectExists_ShouldReturnFalse_WhenObjectIsMissing() throws Exception {
+        var errorResponse = mock(ErrorResponse.class);
+        when(errorResponse.code()).thenReturn("NoSuchKey");
+        var exception = mock(ErrorResponseException.class);
+        when(exception.errorResponse()).thenReturn(errorResponse);
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(exception);
+
+        assertThat(s3Client.objectExists(BUCKET_NAME, FILE_PATH)).isFalse();
+    }
+
+    @Test
+    void objectExists_ShouldThrowServiceException_OnFailure() throws Exception {
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(new RuntimeException("Error"));
+
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> s3Client.objectExists(BUCKET_NAME, FILE_PATH));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+    }
+
+    @Test
+    void copyObject_ShouldCopyObjectSuccessfully() throws Exception {
+        s3Client.copyObject(BUCKET_NAME, FILE_PATH, FOLDER_PATH + "copy");
+
+        verify(minioClient).copyObject(any(CopyObjectArgs.class));
+    }
+
+    @Test
+    void copyObject_ShouldThrowServiceException_OnFailure() throws Exception {
+        when(minioClient.copyObject(any(CopyObjectArgs.class))).thenThrow(new RuntimeException("Error"));
+
+        ServiceException exception = assertThrows(ServiceException.class,
+                () -> s3Client.copyObject(BUCKET_NAME, FILE_PATH, FOLDER_PATH + "copy"));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+    }
+
+    @Test
+    void copyObject_ShouldComposeIntoTargetBucket_WhenBucketsDiffer() throws Exception {
+        s3Client.copyObject(BUCKET_NAME, FILE_PATH, "target-bucket", FOLDER_PATH + "copy");
+
+        var captor = ArgumentCaptor.forClass(ComposeObjectArgs.class);
+        verify(minioClient).composeObject(captor.capture());
+        assertThat(captor.getValue().bucket()).isEqualTo("target-bucket");
+        assertThat(captor.getValue().object()).isEqualTo(FOLDER_PATH + "copy");
+        assertThat(captor.getValue().sources()).singleElement()
+                .satisfies(source -> {
+                    assertThat(source.bucket()).isEqualTo(BUCKET_NAME);
+                    assertThat(source.object()).isEqualTo(FILE_PATH);
+                });
+    }
+
+    @Test
+    void appendObject_ShouldComposeUploadedSegment_WhenObjectIsLargeEnough() throws Exception {
+        stubObjectSize(ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        when(file.getSize()).thenReturn(7L);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("segment".getBytes()));
+
+        s3Client.appendObject(BUCKET_NAME, FILE_PATH, file);
+
+        var put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(put.capture());
+        var segmentKey = put.getValue().object();
+        assertThat(segmentKey).startsWith(FILE_PATH + ".segment-");
+        var compose = ArgumentCaptor.forClass(ComposeObjectArgs.class);
+        verify(minioClient).composeObject(compose.capture());
+        assertThat(compose.getValue().object()).isEqualTo(FILE_PATH);
+        assertThat(compose.getValue().sources()).extracting(ComposeSource::object)
+                .containsExactly(FILE_PATH, segmentKey);
+        var remove = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(remove.capture());
+        assertThat(remove.getValue().object()).isEqualTo(segmentKey);
+    }
+
+    @Test
+    void appendObject_ShouldRewriteObject_WhenObjectIsBelowComposeMinimum() throws Exception {
+        stubObjectSize(8L);
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(new GetObjectResponse(Headers.of(),
+                BUCKET_NAME, "", FILE_PATH, new ByteArrayInputStream("existing".getBytes())));
+        when(file.getSize()).thenReturn(7L);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("segment".getBytes()));
+        var uploaded = new ByteArrayOutputStream();
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            invocation.<PutObjectArgs>getArgument(0).stream().transferTo(uploaded);
+            return null;
+        });
+
+        s3Client.appendObject(BUCKET_NAME, FILE_PATH, file);
+
+        var put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(put.capture());
+        assertThat(put.getValue().object()).isEqualTo(FILE_PATH);
+        assertThat(put.getValue().objectSize()).isEqualTo(15L);
+        assertThat(uploaded.toString()).isEqualTo("existingsegment");
+        verify(minioClient, never()).composeObject(any());
+    }
+
+    @Test
+    void appendObject_ShouldDeleteSegment_WhenComposeFails() throws Exception {
+        stubObjectSize(ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        when(file.getSize()).thenReturn(7L);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("segment".getBytes()));
+        when(minioClient.composeObject(any(ComposeObjectArgs.class))).thenThrow(new RuntimeException("Error"));
+
+        var exception = assertThrows(ServiceException.class, () -> s3Client.appendObject(BUCKET_NAME, FILE_PATH, file));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.INTERNAL_SERVER_ERROR.getCode());
+        verify(minioClient).composeObject(any(ComposeObjectArgs.class));
+        verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+    }
+
     @Test
     void uploadFile_ShouldSetDefaultContentType_WhenContentTypeIsNull() throws Exception {
         String bucketName = "test-bucket";
@@ -177,4 +476,11 @@ class S3ClientTest {
         verify(file).getSize();
         verify(file).getContentType();
     }
-}
\ No newline at end of file
+
+    private void stubObjectSize(long size) throws Exception {
+        var response = mock(StatObjectResponse.class);
+        when(response.object()).thenReturn(FILE_PATH);
+        when(response.size()).thenReturn(size);
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(response);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.mastkey.cloudservice.client;
+
+import eu.rekawek.toxiproxy.Proxy;
+import eu.rekawek.toxiproxy.ToxiproxyClient;
+import eu.rekawek.toxiproxy.model.ToxicDirection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.ToxiproxyContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+class S3ResilienceIntegrationTest {
+    private static final Network network = Network.newNetwork();
+    private static final String BUCKET_NAME = "resilience";
+    private static final String KEY = "objects/file.txt";
+    private static final byte[] CONTENT = "resilient content".getBytes();
+
+    @Container
+    private static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z")
+            .withNetwork(network)
+            .withNetworkAliases("minio");
+
+    @Container
+    private static final ToxiproxyContainer toxiproxy = new ToxiproxyContainer("ghcr.io/shopify/toxiproxy:2.5.0")
+            .withNetwork(network);
+
+    private static Proxy proxy;
+    // requests sent through this proxy are slowed down, the ones through the other proxy are not
+    private static Proxy slowProxy;
+
+    private SimpleMeterRegistry meterRegistry;
+    private S3Resilience s3Resilience;
+    private S3Client s3Client;
+    private MinioClient proxiedClient;
+    private MinioClient slowClient;
+
+    @BeforeAll
+    static void setUpStorage() throws Exception {
+        proxy = new ToxiproxyClient(toxiproxy.getHost(), toxiproxy.getControlPort())
+                .createProxy("minio", "0.0.0.0:8666", "minio:9000");
+        slowProxy = new ToxiproxyClient(toxiproxy.getHost(), toxiproxy.getControlPort())
+                .createProxy("minio-slow", "0.0.0.0:8667", "minio:9000");
+        slowProxy.toxics().latency("latency", ToxicDirection.DOWNSTREAM, 5_000);
+
+        var directClient = MinioClient.builder()
+                .endpoint(minio.getS3URL())
+                .credentials(minio.getUserName(), minio.getPassword())
+                .build();
+        directClient.makeBucket(MakeBucketArgs.builder().bucket(BUCKET_NAME).build());
+        directClient.putObject(PutObjectArgs.builder()
+                .bucket(BUCKET_NAME)
+                .object(KEY)
+                .stream(new ByteArrayInputStream(CONTENT), CONTENT.length, -1)
+                .build());
+    }
+
+    @BeforeEach
+    void setUp() {
+        var s3Properties = new S3Properties();
+        var resilience = s3Properties.getResilience();
+        resilience.getRetry().setMaxAttempts(10);
+        resilience.getRetry().setInitialBackoff(Duration.ofMillis(100));
+        resilience.getRetry().setMaxBackoff(Duration.ofSeconds(1));
+        resilience.getCircuitBreaker().setFailureThreshold(100);
+        resilience.getHedge().setEnabled(true);
+        resilience.getHedge().setDelay(Duration.ofMillis(200));
+
+        proxiedClient = MinioClient.builder()
+                .endpoint("http://%s:%d".formatted(toxiproxy.getHost(), toxiproxy.getMappedPort(8666)))
+                .credentials(minio.getUserName(), minio.getPassword())
+                .build();
+        slowClient = MinioClient.builder()
+                .endpoint("http://%s:%d".formatted(toxiproxy.getHost(), toxiproxy.getMappedPort(8667)))
+                .credentials(minio.getUserName(), minio.getPassword())
+                .build();
+        meterRegistry = new SimpleMeterRegistry();
+        s3Resilience = new S3Resilience(s3Properties, meterRegistry);
+        s3Client = new S3Client(proxiedClient, new TransferMemoryGovernor(s3Properties, meterRegistry),
+                s3Properties, new S3Metrics(meterRegistry), s3Resilience, new PresignedUrlSigner(s3Properties));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        s3Resilience.shutdown();
+        proxy.enable();
+        for (var toxic : proxy.toxics().getAll()) {
+            toxic.remove();
+        }
+    }
+
+    @Test
+    void getFileStream_ShouldNotHedge_WhenStorageAnswersQuickly() throws Exception {
+        try (var stream = s3Client.getFileStream(BUCKET_NAME, KEY)) {
+            assertThat(stream.readAllBytes()).isEqualTo(CONTENT);
+        }
+
+        assertThat(meterRegistry.find("s3.client.hedges").counters()).isEmpty();
+    }
+
+    @Test
+    void executeHedged_ShouldServeHedge_WhenFirstRequestIsSlow() throws Exception {
+        var calls = new AtomicInteger();
+        var getObjectArgs = GetObjectArgs.builder().bucket(BUCKET_NAME).object(KEY).build();
+
+        var startNanos = System.nanoTime();
+        try (var stream = s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> calls.getAndIncrement() == 0
+                ? slowClient.getObject(getObjectArgs)
+                : proxiedClient.getObject(getObjectArgs))) {
+            assertThat(stream.readAllBytes()).isEqualTo(CONTENT);
+        }
+
+        // the first request keeps its 5s latency, so only the hedge can answer in time
+        assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(3));
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.get("s3.client.hedges").tag("winner", "hedge").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("s3.client.hedges").tag("winner", "primary").counter()).isNull();
+        assertThat(meterRegistry.get("s3.client.circuit.open").gauge().value()).isZero();
+    }
+
+    @Test
+    void getFileStream_ShouldRetry_WhenStorageIsTemporarilyUnreachable() throws Exception {
+        proxy.disable();
+        CompletableFuture.runAsync(this::enableProxy,
+                CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+
+        try (var stream = s3Client.getFileStream(BUCKET_NAME, KEY)) {
+            assertThat(stream.readAllBytes()).isEqualTo(CONTENT);
+        }
+
+        assertThat(meterRegistry.get("s3.client.retries").tag("operation", "download").counter().count())
+                .isPositive();
+    }
+
+    private void enableProxy() {
+        try {
+            proxy.enable();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class S3ResilienceTest {
+
+    private S3Properties s3Properties;
+    private SimpleMeterRegistry meterRegistry;
+    private S3Resilience s3Resilience;
+
+    @BeforeEach
+    void setUp() {
+        s3Properties = new S3Properties();
+        var resilience = s3Properties.getResilience();
+        resilience.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        resilience.getRetry().setMaxBackoff(Duration.ofMillis(5));
+        resilience.getCircuitBreaker().setFailureThreshold(3);
+        resilience.getCircuitBreaker().setOpenDuration(Duration.ofMillis(100));
+        resilience.getHedge().setDelay(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        s3Resilience = new S3Resilience(s3Properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Resilience.shutdown();
+    }
+
+    @Test
+    void execute_ShouldRetryTransientFailure_WhenOperationIsIdempotent() throws Exception {
+        var calls = new AtomicInteger();
+
+        var result = s3Resilience.execute(S3Operation.STAT, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("connection reset");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("s3.client.retries").tag("operation", "stat").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void execute_ShouldNotRetry_WhenOperationIsNotIdempotent() {
+        var calls = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> s3Resilience.execute(S3Operation.UPLOAD, () -> {
+            calls.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldNotRetry_WhenErrorIsNotTransient() {
+        var calls = new AtomicInteger();
+        var exception = errorResponse("NoSuchKey");
+
+        assertThrows(ErrorResponseException.class, () -> s3Resilience.execute(S3Operation.DOWNLOAD, () -> {
+            calls.incrementAndGet();
+            throw exception;
+        }));
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldRetry_WhenS3AsksToSlowDown() throws Exception {
+        var calls = new AtomicInteger();
+        var exception = errorResponse("SlowDown");
+
+        s3Resilience.execute(S3Operation.DELETE, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw exception;
+            }
+            return null;
+        });
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void execute_ShouldUseOperationAttempts_WhenOverrideIsConfigured() {
+        s3Properties.getResilience().getRetry().getMaxAttemptsByOperation().put(S3Operation.COPY, 5);
+        var calls = new AtomicInteger();
+
+        assertThrows(IOException.class, () -> s3Resilience.execute(S3Operation.COPY, () -> {
+            calls.incrementAndGet();
+            throw new IOException("connection reset");
+        }));
+
+        assertThat(calls).hasValue(5);
+    }
+
+    @Test
+    void execute_ShouldRejectCalls_WhenCircuitIsOpen() {
+        var calls = new AtomicInteger();
+        S3Resilience.S3Call<Object> failing = () -> {
+            calls.incrementAndGet();
+            throw new IOException("connection refused");
+        };
+
+        assertThrows(IOException.class, () -> s3Resilience.execute(S3Operation.STAT, failing));
+        var exception = assertThrows(ServiceException.class, () -> s3Resilience.execute(S3Operation.STAT, failing));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getCode());
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("s3.client.circuit.open").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("s3.client.circuit.rejections").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_ShouldCloseCircuit_WhenTrialCallSucceeds() throws Exception {
+        assertThrows(IOException.class, () -> s3Resilience.execute(S3Operation.STAT, () -> {
+            throw new IOException("connection refused");
+        }));
+
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        assertThat(s3Resilience.execute(S3Operation.STAT, () -> "ok")).isEqualTo("ok");
+        assertThat(meterRegistry.get("s3.client.circuit.open").gauge().value()).isZero();
+    }
+
+    @Test
+    void execute_ShouldAdmitNextCall_WhenTrialCallIsInterrupted() throws Exception {
+        assertThrows(IOException.class, () -> s3Resilience.execute(S3Operation.STAT, () -> {
+            throw new IOException("connection refused");
+        }));
+
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        assertThrows(InterruptedIOException.class, () -> s3Resilience.execute(S3Operation.STAT, () -> {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("cancelled");
+        }));
+        Thread.interrupted();
+
+        assertThat(s3Resilience.execute(S3Operation.STAT, () -> "ok")).isEqualTo("ok");
+        assertThat(meterRegistry.get("s3.client.circuit.open").gauge().value()).isZero();
+    }
+
+    @Test
+    void executeHedged_ShouldReturnFasterResponse_AndCancelSlowerOne() throws Exception {
+        s3Properties.getResilience().getHedge().setEnabled(true);
+        var calls = new AtomicInteger();
+        var slowCancelled = new AtomicBoolean();
+
+        var result = s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    slowCancelled.set(true);
+                    throw e;
+                }
+            }
+            return new ByteArrayInputStream("fast".getBytes());
+        });
+
+        assertThat(new String(result.readAllBytes())).isEqualTo("fast");
+        assertThat(calls).hasValue(2);
+        waitFor(slowCancelled);
+        assertThat(meterRegistry.get("s3.client.hedges").tag("winner", "hedge").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("s3.client.circuit.open").gauge().value()).isZero();
+    }
+
+    @Test
+    void executeHedged_ShouldCloseSlowerResponse_WhenItArrivesAfterWinner() throws Exception {
+        s3Properties.getResilience().getHedge().setEnabled(true);
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var slowClosed = new AtomicBoolean();
+
+        var result = s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> {
+            if (calls.incrementAndGet() == 1) {
+                // a call that ignores the interrupt still has its response closed
+                while (release.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                return new ByteArrayInputStream("slow".getBytes()) {
+                    @Override
+                    public void close() {
+                        slowClosed.set(true);
+                    }
+                };
+            }
+            return new ByteArrayInputStream("fast".getBytes());
+        });
+        release.countDown();
+
+        assertThat(new String(result.readAllBytes())).isEqualTo("fast");
+        waitFor(slowClosed);
+    }
+
+    @Test
+    void executeHedged_ShouldNotHedge_WhenResponseArrivesBeforeDelay() throws Exception {
+        s3Properties.getResilience().getHedge().setEnabled(true);
+        var calls = new AtomicInteger();
+
+        InputStream result = s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> {
+            calls.incrementAndGet();
+            return new ByteArrayInputStream("data".getBytes());
+        });
+
+        assertThat(new String(result.readAllBytes())).isEqualTo("data");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void executeHedged_ShouldThrow_WhenBothRequestsFail() {
+        s3Properties.getResilience().getHedge().setEnabled(true);
+        s3Properties.getResilience().getRetry().setMaxAttempts(1);
+
+        assertThrows(IllegalStateException.class, () -> s3Resilience.executeHedged(S3Operation.DOWNLOAD, () -> {
+            TimeUnit.MILLISECONDS.sleep(100);
+            throw new IllegalStateException("Error");
+        }));
+    }
+
+    private static ErrorResponseException errorResponse(String code) {
+        var errorResponse = mock(ErrorResponse.class);
+        when(errorResponse.code()).thenReturn(code);
+        var exception = mock(ErrorResponseException.class);
+        when(exception.errorResponse()).thenReturn(errorResponse);
+        return exception;
+    }
+
+    private static void waitFor(AtomicBoolean condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.get() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(condition).isTrue();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.mastkey.cloudservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferMemoryGovernorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferMemoryGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        var s3Properties = new S3Properties();
+        s3Properties.getTransfer().setMemoryBudget(DataSize.ofKilobytes(256));
+        s3Properties.getTransfer().setBufferSize(DataSize.ofKilobytes(64));
+        s3Properties.getTransfer().setAcquireTimeout(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        governor = new TransferMemoryGovernor(s3Properties, meterRegistry);
+    }
+
+    @Test
+    void reserve_ShouldExportUsage_WhileLeaseIsHeld() {
+        var lease = governor.reserve(100_000);
+
+        assertThat(meterRegistry.get("s3.transfer.memory.used").gauge().value()).isEqualTo(98 * 1024);
+        assertThat(meterRegistry.get("s3.transfer.memory.budget").gauge().value()).isEqualTo(256 * 1024);
+
+        lease.close();
+        lease.close();
+        assertThat(governor.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void reserve_ShouldReject_WhenBudgetStaysExhausted() {
+        governor.reserve(DataSize.ofKilobytes(200).toBytes());
+
+        var exception = assertThrows(ServiceException.class, () -> governor.reserve(DataSize.ofKilobytes(100).toBytes()));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getCode());
+        assertThat(meterRegistry.get("s3.transfer.memory.rejections").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_ShouldWait_UntilBudgetIsReleased() throws Exception {
+        var s3Properties = new S3Properties();
+        s3Properties.getTransfer().setMemoryBudget(DataSize.ofKilobytes(256));
+        s3Properties.getTransfer().setAcquireTimeout(Duration.ofSeconds(5));
+        var patientGovernor = new TransferMemoryGovernor(s3Properties, new SimpleMeterRegistry());
+        var held = patientGovernor.reserve(DataSize.ofKilobytes(256).toBytes());
+
+        var waiting = CompletableFuture.supplyAsync(() -> patientGovernor.reserve(DataSize.ofKilobytes(128).toBytes()));
+        held.close();
+
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertThat(patientGovernor.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void reserve_ShouldCapRequest_WhenLargerThanBudget() {
+        try (var lease = governor.reserve(DataSize.ofMegabytes(1).toBytes())) {
+            assertThat(governor.getUsedBytes()).isEqualTo(256 * 1024);
+        }
+    }
+
+    @Test
+    void borrowBuffer_ShouldReuseReturnedBuffers() {
+        var first = governor.borrowBuffer();
+        var buffer = first.buffer();
+        assertThat(buffer).hasSize(64 * 1024);
+        first.close();
+
+        try (var second = governor.borrowBuffer()) {
+            assertThat(second.buffer()).isSameAs(buffer);
+        }
+        assertThat(governor.getUsedBytes()).isZero();
+    }
+}
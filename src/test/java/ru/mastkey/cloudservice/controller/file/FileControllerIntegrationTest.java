@@ -6,6 +6,7 @@ import org.springframework.http.*;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import ru.mastkey.cloudservice.controller.model.WorkspaceStatsResponse;
 import ru.mastkey.cloudservice.entity.File;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.support.IntegrationTestBase;
@@ -22,7 +23,7 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void uploadFileSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
 
         ClassPathResource resource = new ClassPathResource("files/testfile.txt");
@@ -46,12 +47,14 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
 
         var workspace = workspaceRepository.findByIdWithFiles(savedWorkspace.getId()).get();
         assertThat(workspace.getFiles().size()).isEqualTo(1);
+        var file = workspace.getFiles().get(0);
+        assertThat(file.getPath()).isEqualTo(FileUtils.generateObjectKey(savedWorkspace.getId(), file.getId()));
     }
 
     @Test
     void uploadFilesWithSameFilenamesSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
 
         ClassPathResource resource1 = new ClassPathResource("files/testfile.txt");
@@ -79,11 +82,72 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
         assertThat(workspace.getFiles().size()).isEqualTo(2);
     }
 
+    @Test
+    void uploadSameFileTwiceKeepsSingleEntryTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var savedUser = savedWorkspace.getUsers().iterator().next();
+        var token = createTokenForSavedUser(savedUser);
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("files", new ClassPathResource("files/testfile.txt"));
+        body.add("files", new ClassPathResource("files/testfile.txt"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.addAll(createAuthHeader(token));
+
+        var url = "/api/v1/files/workspaces/" + savedWorkspace.getId();
+        var firstResponse = testRestTemplate.postForEntity(url, new HttpEntity<>(body, headers), Void.class);
+        var secondResponse = testRestTemplate.postForEntity(url, new HttpEntity<>(body, headers), Void.class);
+
+        assertThat(firstResponse.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(secondResponse.getStatusCode().is2xxSuccessful()).isTrue();
+
+        var workspace = workspaceRepository.findByIdWithFiles(savedWorkspace.getId()).get();
+        assertThat(workspace.getFiles()).hasSize(1);
+        var file = workspace.getFiles().iterator().next();
+        // the overwrite was written next to the first upload rather than over it
+        assertThat(file.getPath())
+                .startsWith(FileUtils.getWorkspacePrefix(savedWorkspace.getId()))
+                .isNotEqualTo(FileUtils.generateObjectKey(savedWorkspace.getId(), file.getId()));
+    }
+
+    @Test
+    void uploadFilesUpdatesWorkspaceStatsTest() throws Exception {
+        var savedWorkspace = createWorkspaceWithUser();
+        var savedUser = savedWorkspace.getUsers().iterator().next();
+        var token = createTokenForSavedUser(savedUser);
+
+        var txt = new ClassPathResource("files/testfile.txt");
+        var csv = new ClassPathResource("files/testfile.csv");
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("files", txt);
+        body.add("files", csv);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.addAll(createAuthHeader(token));
+
+        testRestTemplate.postForEntity("/api/v1/files/workspaces/" + savedWorkspace.getId(),
+                new HttpEntity<>(body, headers), Void.class);
+
+        var response = testRestTemplate.exchange(
+                "/api/v1/workspaces/" + savedWorkspace.getId() + "/stats",
+                HttpMethod.GET,
+                new HttpEntity<>(createAuthHeader(token)),
+                WorkspaceStatsResponse.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().fileCount()).isEqualTo(2);
+        assertThat(response.getBody().totalBytes()).isEqualTo(txt.contentLength() + csv.contentLength());
+    }
+
     @Test
     void getFileSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
         var file = createFileInWorkspace(savedWorkspace);
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
 
         HttpHeaders headers = new HttpHeaders();
@@ -110,7 +174,7 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
     void deleteFileSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
         var file = createFileInWorkspace(savedWorkspace);
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
         HttpHeaders headers = new HttpHeaders();
         headers.addAll(createAuthHeader(token));
@@ -134,9 +198,9 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void getFilesInfoSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
-        createFileInWorkspace(savedWorkspace);
-        createFileInWorkspace(savedWorkspace);
-        var savedUser = savedWorkspace.getUsers().get(0);
+        createFileInWorkspace(savedWorkspace, "testfile");
+        createFileInWorkspace(savedWorkspace, "testfile2");
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
         HttpHeaders headers = new HttpHeaders();
         headers.addAll(createAuthHeader(token));
@@ -163,7 +227,7 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
     void deleteFileNotFoundTest() {
         var savedWorkspace = createWorkspaceWithUser();
         var randomFileId = UUID.randomUUID();
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
         HttpHeaders headers = new HttpHeaders();
         headers.addAll(createAuthHeader(token));
@@ -267,12 +331,17 @@ class FileControllerIntegrationTest extends IntegrationTestBase {
     }
 
     private File createFileInWorkspace(Workspace workspace) {
+        return createFileInWorkspace(workspace, "testfile");
+    }
+
+    private File createFileInWorkspace(Workspace workspace, String fileName) {
         var file = new File();
+        file.setId(UUID.randomUUID());
         file.setWorkspace(workspace);
-        file.setFileName("testfile");
+        file.setFileName(fileName);
         file.setFileExtension(".txt");
-        String bucketName = workspace.getUsers().get(0).getBucketName();
-        String s3Path = FileUtils.generateRelativePath(workspace.getName(), file.getFileName(), file.getFileExtension());
+        String bucketName = workspace.getUsers().iterator().next().getBucketName();
+        String s3Path = FileUtils.generateObjectKey(workspace.getId(), file.getId());
         file.setPath(s3Path);
         byte[] fileContent = "Test file content".getBytes();
         MockMultipartFile mockFile = new MockMultipartFile(
@@ -0,0 +1,147 @@
+package ru.mastkey.cloudservice.controller.file;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import ru.mastkey.cloudservice.controller.model.FileCopyRequest;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.UserWorkspace;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.support.IntegrationTestBase;
+import ru.mastkey.model.FileResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileCopyControllerIntegrationTest extends IntegrationTestBase {
+    private static final byte[] CONTENT = "copied file content".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void copyFileSuccessTest() {
+        var source = createWorkspaceWithUser();
+        var user = source.getUsers().iterator().next();
+        var target = createWorkspace(user, "target");
+        var headers = authHeaders(user);
+        upload(source, headers, "notes.txt");
+        var file = fileRepository.findAll().get(0);
+
+        var response = testRestTemplate.exchange(
+                "/api/v1/files/{fileId}/workspaces/{workspaceId}/copy?targetWorkspaceId={targetWorkspaceId}",
+                HttpMethod.POST,
+                new HttpEntity<>(headers),
+                FileResponse.class,
+                file.getId(), source.getId(), target.getId()
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fileRepository.findAll()).hasSize(2);
+        var copy = fileRepository.findAll().stream()
+                .filter(stored -> stored.getWorkspace().getId().equals(target.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(copy.getFileName()).isEqualTo("notes");
+        assertThat(copy.getSize()).isEqualTo((long) CONTENT.length);
+        assertThat(download(copy, target, headers)).isEqualTo(CONTENT);
+        assertThat(download(file, source, headers)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void moveFilesSuccessTest() {
+        var source = createWorkspaceWithUser();
+        var user = source.getUsers().iterator().next();
+        var target = createWorkspace(user, "target");
+        var headers = authHeaders(user);
+        upload(source, headers, "first.txt");
+        upload(source, headers, "second.txt");
+        var fileIds = fileRepository.findAll().stream().map(File::getId).toList();
+
+        var response = testRestTemplate.exchange(
+                "/api/v1/files/workspaces/{workspaceId}/move",
+                HttpMethod.POST,
+                new HttpEntity<>(new FileCopyRequest(target.getId(), fileIds), headers),
+                new ParameterizedTypeReference<List<FileResponse>>() {
+                },
+                source.getId()
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2);
+        var files = fileRepository.findAll();
+        assertThat(files).hasSize(2)
+                .allSatisfy(file -> assertThat(file.getWorkspace().getId()).isEqualTo(target.getId()));
+        files.forEach(file -> assertThat(download(file, target, headers)).isEqualTo(CONTENT));
+    }
+
+    @Test
+    void copyFileToForeignWorkspaceForbiddenTest() {
+        var source = createWorkspaceWithUser();
+        var user = source.getUsers().iterator().next();
+        var stranger = userRepository.save(User.builder()
+                .bucketName("stranger-1")
+                .workspaces(new HashSet<>())
+                .username("stranger")
+                .password(passwordEncoder.encode("stranger"))
+                .build());
+        var target = createWorkspace(stranger, "foreign");
+        var headers = authHeaders(user);
+        upload(source, headers, "notes.txt");
+        var file = fileRepository.findAll().get(0);
+
+        var response = testRestTemplate.exchange(
+                "/api/v1/files/{fileId}/workspaces/{workspaceId}/copy?targetWorkspaceId={targetWorkspaceId}",
+                HttpMethod.POST,
+                new HttpEntity<>(headers),
+                Void.class,
+                file.getId(), source.getId(), target.getId()
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(fileRepository.findAll()).hasSize(1);
+    }
+
+    private Workspace createWorkspace(User owner, String name) {
+        var workspace = workspaceRepository.save(Workspace.builder()
+                .name(name)
+                .owner(owner)
+                .build());
+        var userWorkspace = new UserWorkspace();
+        userWorkspace.setUser(owner);
+        userWorkspace.setWorkspace(workspace);
+        userWorkspaceRepository.save(userWorkspace);
+        s3Client.createBucketIfNotExists(owner.getBucketName());
+        return workspace;
+    }
+
+    private void upload(Workspace workspace, HttpHeaders headers, String fileName) {
+        var uploadHeaders = new HttpHeaders();
+        uploadHeaders.addAll(headers);
+        uploadHeaders.setContentType(MediaType.TEXT_PLAIN);
+        testRestTemplate.exchange(
+                "/api/v2/files/workspaces/{workspaceId}?fileName={fileName}",
+                HttpMethod.PUT,
+                new HttpEntity<>(CONTENT, uploadHeaders),
+                Void.class,
+                workspace.getId(),
+                fileName
+        );
+    }
+
+    private byte[] download(File file, Workspace workspace, HttpHeaders headers) {
+        return testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s".formatted(file.getId(), workspace.getId()),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class
+        ).getBody();
+    }
+
+    private HttpHeaders authHeaders(User user) {
+        var headers = new HttpHeaders();
+        headers.addAll(createAuthHeader(createTokenForSavedUser(user)));
+        return headers;
+    }
+}
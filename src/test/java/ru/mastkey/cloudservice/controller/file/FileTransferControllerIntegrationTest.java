@@ -0,0 +1,172 @@
+package ru.mastkey.cloudservice.controller.file;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.*;
+import org.springframework.web.client.RestTemplate;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.support.IntegrationTestBase;
+import ru.mastkey.model.FileResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileTransferControllerIntegrationTest extends IntegrationTestBase {
+    private static final byte[] CONTENT = "streamed file content".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void uploadStreamedFileSuccessTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var headers = authHeaders(savedWorkspace);
+
+        var response = upload(savedWorkspace, headers, "notes v2+final.txt");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        var files = fileRepository.findAll();
+        assertThat(files).hasSize(1);
+        assertThat(files.get(0).getFileName()).isEqualTo("notes v2+final");
+        assertThat(files.get(0).getFileExtension()).isEqualTo("txt");
+        assertThat(files.get(0).getSize()).isEqualTo((long) CONTENT.length);
+    }
+
+    @Test
+    void getStreamedFileSuccessTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var headers = authHeaders(savedWorkspace);
+        upload(savedWorkspace, headers, "notes.txt");
+        var file = fileRepository.findAll().get(0);
+
+        var response = testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s".formatted(file.getId(), savedWorkspace.getId()),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("notes.txt");
+        assertThat(response.getBody()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void getFileLinkRedirectsToSignedUrlTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var headers = authHeaders(savedWorkspace);
+        upload(savedWorkspace, headers, "notes.txt");
+        File file = fileRepository.findAll().get(0);
+
+        var response = testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s/link".formatted(file.getId(), savedWorkspace.getId()),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Void.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TEMPORARY_REDIRECT);
+        var location = response.getHeaders().getLocation();
+        assertThat(location).isNotNull();
+        assertThat(location.getQuery()).contains("X-Amz-Signature");
+        assertThat(new RestTemplate().getForObject(location, byte[].class)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void appendToSmallFileSuccessTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var headers = authHeaders(savedWorkspace);
+        upload(savedWorkspace, headers, "notes.txt");
+        var file = fileRepository.findAll().get(0);
+        var segment = " appended".getBytes(StandardCharsets.UTF_8);
+
+        var response = append(file, savedWorkspace, headers, segment);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fileRepository.findById(file.getId()).orElseThrow().getSize())
+                .isEqualTo((long) CONTENT.length + segment.length);
+        assertThat(download(file, savedWorkspace, headers)).isEqualTo(concat(CONTENT, segment));
+    }
+
+    @Test
+    void appendComposesLargeFileSuccessTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+        var headers = authHeaders(savedWorkspace);
+        var base = new byte[6 * 1024 * 1024];
+        Arrays.fill(base, (byte) 'a');
+        upload(savedWorkspace, headers, "recording.bin", base);
+        var file = fileRepository.findAll().get(0);
+        var segment = "tail".getBytes(StandardCharsets.UTF_8);
+
+        var response = append(file, savedWorkspace, headers, segment);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(download(file, savedWorkspace, headers)).isEqualTo(concat(base, segment));
+        assertThat(s3Client.listObjects("mastkey-1", savedWorkspace.getId() + "/", null)).hasSize(1);
+    }
+
+    @Test
+    void getFileLinkWithoutTokenUnauthorizedTest() {
+        var savedWorkspace = createWorkspaceWithUser();
+
+        var response = testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s/link".formatted(savedWorkspace.getId(), savedWorkspace.getId()),
+                HttpMethod.GET,
+                new HttpEntity<>(new HttpHeaders()),
+                Void.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private ResponseEntity<Void> upload(Workspace workspace, HttpHeaders headers, String fileName) {
+        return upload(workspace, headers, fileName, CONTENT);
+    }
+
+    private ResponseEntity<Void> upload(Workspace workspace, HttpHeaders headers, String fileName, byte[] content) {
+        var uploadHeaders = new HttpHeaders();
+        uploadHeaders.addAll(headers);
+        uploadHeaders.setContentType(MediaType.TEXT_PLAIN);
+        return testRestTemplate.exchange(
+                "/api/v2/files/workspaces/{workspaceId}?fileName={fileName}",
+                HttpMethod.PUT,
+                new HttpEntity<>(content, uploadHeaders),
+                Void.class,
+                workspace.getId(),
+                fileName
+        );
+    }
+
+    private ResponseEntity<FileResponse> append(File file, Workspace workspace, HttpHeaders headers, byte[] segment) {
+        var appendHeaders = new HttpHeaders();
+        appendHeaders.addAll(headers);
+        appendHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        return testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s/append".formatted(file.getId(), workspace.getId()),
+                HttpMethod.POST,
+                new HttpEntity<>(segment, appendHeaders),
+                FileResponse.class
+        );
+    }
+
+    private byte[] download(File file, Workspace workspace, HttpHeaders headers) {
+        return testRestTemplate.exchange(
+                "/api/v2/files/%s/workspaces/%s".formatted(file.getId(), workspace.getId()),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class
+        ).getBody();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        var result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private HttpHeaders authHeaders(Workspace workspace) {
+        var headers = new HttpHeaders();
+        headers.addAll(createAuthHeader(createTokenForSavedUser(workspace.getUsers().iterator().next())));
+        return headers;
+    }
+}
@@ -133,7 +133,7 @@ class UserControllerIntegrationTest extends IntegrationTestBase {
 
         var updatedUser = userRepository.findByUserIdWithWorkspaces(user.getId()).get();
         assertThat(updatedUser.getWorkspaces()).hasSize(1);
-        assertThat(updatedUser.getWorkspaces().get(0).getName()).isEqualTo(workspace.getName());
+        assertThat(updatedUser.getWorkspaces().iterator().next().getName()).isEqualTo(workspace.getName());
     }
 
     @Test
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.testcontainers.shaded.com.fasterxml.jackson.core.type.TypeReference;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.support.IntegrationTestBase;
 import ru.mastkey.model.*;
@@ -12,6 +14,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
     private static final String BASE_URL = "/api/v1/workspaces";
@@ -49,7 +52,7 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void getWorkspacesSuccessTest() {
         var savedWorkspace = createWorkspaceWithUser();
-        var savedUser = savedWorkspace.getUsers().get(0);
+        var savedUser = savedWorkspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
 
         HttpHeaders headers = new HttpHeaders();
@@ -77,7 +80,7 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
         var workspace = createWorkspaceWithUser();
         var newName = "UpdatedWorkspaceName";
         var workspaceId = workspace.getId();
-        var savedUser = workspace.getUsers().get(0);
+        var savedUser = workspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
         workspace.setOwner(savedUser);
         workspaceRepository.save(workspace);
@@ -110,7 +113,7 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void changeWorkspaceNameNotFoundTest() {
         var workspace = createWorkspaceWithUser();
-        var savedUser = workspace.getUsers().get(0);
+        var savedUser = workspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(savedUser);
         workspace.setOwner(savedUser);
         workspaceRepository.save(workspace);
@@ -148,9 +151,22 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void deleteWorkspaceSuccessTest() {
         var workspace = createWorkspaceWithUser();
-        var user = workspace.getUsers().get(0);
+        var user = workspace.getUsers().iterator().next();
         workspace.setOwner(user);
         workspaceRepository.save(workspace);
+        fileRepository.save(File.builder()
+                .workspace(workspace)
+                .fileName("testfile")
+                .fileExtension("txt")
+                .path(workspace.getId() + "/" + UUID.randomUUID())
+                .build());
+        var legacyPath = workspace.getName() + "/legacy.txt";
+        fileRepository.save(File.builder()
+                .workspace(workspace)
+                .fileName("legacy")
+                .fileExtension("txt")
+                .path(legacyPath)
+                .build());
 
         var token = createTokenForSavedUser(user);
 
@@ -174,12 +190,16 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
 
         var deletedWorkspace = workspaceRepository.findById(workspaceId);
         assertThat(deletedWorkspace).isEmpty();
+        assertThat(fileRepository.count()).isZero();
+        assertThat(s3PurgeTaskRepository.findAll())
+                .extracting(S3PurgeTask::getPrefix, S3PurgeTask::getExactKey)
+                .containsExactlyInAnyOrder(tuple(workspaceId + "/", false), tuple(legacyPath, true));
     }
 
     @Test
     void deleteWorkspaceNotFoundTest() {
         var workspace = createWorkspaceWithUser();
-        var user = workspace.getUsers().get(0);
+        var user = workspace.getUsers().iterator().next();
         var randomWorkspaceId = UUID.randomUUID();
 
         var token = createTokenForSavedUser(user);
@@ -211,7 +231,7 @@ class WorkspaceControllerIntegrationTest extends IntegrationTestBase {
     @Test
     void getAllWorkspacesSuccessTest() {
         var workspace = createWorkspaceWithUser();
-        var user = workspace.getUsers().get(0);
+        var user = workspace.getUsers().iterator().next();
         var token = createTokenForSavedUser(user);
 
         HttpHeaders headers = new HttpHeaders();
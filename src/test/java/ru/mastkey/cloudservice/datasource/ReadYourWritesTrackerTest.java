@@ -0,0 +1,87 @@
+package ru.mastkey.cloudservice.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import ru.mastkey.cloudservice.configuration.properties.DataSourceRoutingProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadYourWritesTrackerTest {
+
+    @Mock
+    private TransactionExecution transaction;
+
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @BeforeEach
+    void setUp() {
+        readYourWritesTracker = new ReadYourWritesTracker(new DataSourceRoutingProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void hasRecentWrite_ShouldBeFalse_WhenNothingWasWritten() {
+        authenticate("mastkey");
+
+        assertThat(readYourWritesTracker.hasRecentWrite()).isFalse();
+    }
+
+    @Test
+    void hasRecentWrite_ShouldBeTrueOnlyForWriter_AfterWriteCommitted() {
+        when(transaction.isReadOnly()).thenReturn(false);
+        authenticate("mastkey");
+
+        readYourWritesTracker.afterCommit(transaction, null);
+
+        assertThat(readYourWritesTracker.hasRecentWrite()).isTrue();
+        authenticate("other");
+        assertThat(readYourWritesTracker.hasRecentWrite()).isFalse();
+    }
+
+    @Test
+    void afterCommit_ShouldIgnoreReadOnlyTransactions() {
+        when(transaction.isReadOnly()).thenReturn(true);
+        authenticate("mastkey");
+
+        readYourWritesTracker.afterCommit(transaction, null);
+
+        assertThat(readYourWritesTracker.hasRecentWrite()).isFalse();
+    }
+
+    @Test
+    void afterCommit_ShouldIgnoreFailedCommits() {
+        authenticate("mastkey");
+
+        readYourWritesTracker.afterCommit(transaction, new IllegalStateException("commit failed"));
+
+        assertThat(readYourWritesTracker.hasRecentWrite()).isFalse();
+    }
+
+    @Test
+    void hasRecentWrite_ShouldBeTrueForEveryone_AfterAnonymousWrite() {
+        readYourWritesTracker.recordWrite();
+
+        authenticate("mastkey");
+        assertThat(readYourWritesTracker.hasRecentWrite()).isTrue();
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, "token", List.of()));
+    }
+}
@@ -0,0 +1,99 @@
+package ru.mastkey.cloudservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.configuration.properties.DataSourceRoutingProperties;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaHealthCheckerTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replicaPool;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private ReplicaDataSource replica;
+    private ReplicaHealthChecker replicaHealthChecker;
+
+    @BeforeEach
+    void setUp() {
+        replica = new ReplicaDataSource("replica-0", replicaPool);
+        var routingDataSource = new ReplicaRoutingDataSource(
+                primary, List.of(replica), readYourWritesTracker, new SimpleMeterRegistry());
+        replicaHealthChecker = new ReplicaHealthChecker(routingDataSource, new DataSourceRoutingProperties());
+    }
+
+    @Test
+    void checkReplicas_ShouldKeepReplica_WhenLagIsWithinLimit() throws SQLException {
+        stubLag(2.5);
+
+        replicaHealthChecker.checkReplicas();
+
+        assertThat(replica.isHealthy()).isTrue();
+        assertThat(replica.getLag()).isEqualTo(Duration.ofMillis(2500));
+    }
+
+    @Test
+    void checkReplicas_ShouldEjectReplica_WhenLagExceedsLimit() throws SQLException {
+        stubLag(30);
+
+        replicaHealthChecker.checkReplicas();
+
+        assertThat(replica.isHealthy()).isFalse();
+    }
+
+    @Test
+    void checkReplicas_ShouldEjectReplica_WhenItIsUnreachable() throws SQLException {
+        when(replicaPool.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        replicaHealthChecker.checkReplicas();
+
+        assertThat(replica.isHealthy()).isFalse();
+    }
+
+    @Test
+    void checkReplicas_ShouldReturnReplicaToRotation_WhenItCaughtUp() throws SQLException {
+        replica.markUnhealthy("lagging");
+        stubLag(0);
+
+        replicaHealthChecker.checkReplicas();
+
+        assertThat(replica.isHealthy()).isTrue();
+    }
+
+    private void stubLag(double seconds) throws SQLException {
+        when(replicaPool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(ReplicaHealthChecker.REPLICATION_LAG_QUERY)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(seconds);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.mastkey.cloudservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplicaPool;
+
+    @Mock
+    private DataSource secondReplicaPool;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstReplicaConnection;
+
+    @Mock
+    private Connection secondReplicaConnection;
+
+    private ReplicaDataSource firstReplica;
+    private ReplicaDataSource secondReplica;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        firstReplica = new ReplicaDataSource("replica-0", firstReplicaPool);
+        secondReplica = new ReplicaDataSource("replica-1", secondReplicaPool);
+        routingDataSource = new ReplicaRoutingDataSource(
+                primary, List.of(firstReplica, secondReplica), readYourWritesTracker, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getConnection_ShouldRoundRobinReplicas() throws SQLException {
+        when(firstReplicaPool.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplicaPool.getConnection()).thenReturn(secondReplicaConnection);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_WhenUserWroteRecently() throws SQLException {
+        when(readYourWritesTracker.hasRecentWrite()).thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        verifyNoInteractions(firstReplicaPool, secondReplicaPool);
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_WhenReadingFromPrimaryOnly() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        var connection = ReplicaRoutingDataSource.readFromPrimary(() -> {
+            try {
+                return routingDataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        verifyNoInteractions(firstReplicaPool, secondReplicaPool);
+    }
+
+    @Test
+    void getConnection_ShouldSkipEjectedReplica() throws SQLException {
+        firstReplica.markUnhealthy("lagging");
+        when(secondReplicaPool.getConnection()).thenReturn(secondReplicaConnection);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        verifyNoInteractions(firstReplicaPool);
+    }
+
+    @Test
+    void getConnection_ShouldEjectReplicaAndTryNext_WhenReplicaIsUnreachable() throws SQLException {
+        when(firstReplicaPool.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(secondReplicaPool.getConnection()).thenReturn(secondReplicaConnection);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(firstReplica.isHealthy()).isFalse();
+    }
+
+    @Test
+    void getConnection_ShouldFallBackToPrimary_WhenNoReplicaIsHealthy() throws SQLException {
+        firstReplica.markUnhealthy("lagging");
+        secondReplica.markUnhealthy("lagging");
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+}
@@ -0,0 +1,161 @@
+package ru.mastkey.cloudservice.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.service.S3PurgeService;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3PurgeJobTest {
+
+    private static final String BUCKET_NAME = "bucket";
+    private static final String PREFIX = "workspace/";
+
+    @Mock
+    private S3PurgeService s3PurgeService;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private HotTierStorage hotTierStorage;
+
+    private S3PurgeJob s3PurgeJob;
+    private S3PurgeTask task;
+
+    @BeforeEach
+    void setUp() {
+        var s3Properties = new S3Properties();
+        s3Properties.getPurge().setBatchSize(2);
+        s3Properties.getPurge().setParallelBatches(2);
+        s3Properties.getPurge().setBatchesPerSecond(1000.0);
+        s3PurgeJob = new S3PurgeJob(s3PurgeService, storageBackend, hotTierStorage, s3Properties);
+
+        task = S3PurgeTask.builder()
+                .id(UUID.randomUUID())
+                .bucketName(BUCKET_NAME)
+                .prefix(PREFIX)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3PurgeJob.shutdown();
+    }
+
+    @Test
+    void purge_ShouldDeleteListedObjectsInBatchesAndComplete() throws Exception {
+        var keys = keys(5);
+        when(storageBackend.listObjects(BUCKET_NAME, PREFIX, null)).thenReturn(objects(keys, task.getCreatedAt().minusMinutes(1)));
+
+        s3PurgeJob.purge(task);
+
+        var batches = ArgumentCaptor.forClass(List.class);
+        verify(storageBackend, times(3)).removeObjects(eq(BUCKET_NAME), batches.capture());
+        var deleted = new ArrayList<String>();
+        batches.getAllValues().forEach(deleted::addAll);
+        assertThat(deleted).containsExactlyInAnyOrderElementsOf(keys);
+        assertThat(batches.getAllValues()).allSatisfy(batch -> assertThat(batch.size()).isLessThanOrEqualTo(2));
+
+        verify(s3PurgeService, times(2)).checkpoint(task);
+        assertThat(task.getLastKey()).isEqualTo(keys.get(4));
+        assertThat(task.getDeletedObjects()).isEqualTo(5L);
+        verify(s3PurgeService).complete(task.getId());
+    }
+
+    @Test
+    void purge_ShouldResumeAfterCheckpoint() throws Exception {
+        task.setLastKey(PREFIX + "file-1").setDeletedObjects(2L);
+        when(storageBackend.listObjects(BUCKET_NAME, PREFIX, PREFIX + "file-1"))
+                .thenReturn(objects(List.of(PREFIX + "file-2"), task.getCreatedAt().minusMinutes(1)));
+
+        s3PurgeJob.purge(task);
+
+        verify(storageBackend).removeObjects(BUCKET_NAME, List.of(PREFIX + "file-2"));
+        assertThat(task.getDeletedObjects()).isEqualTo(3L);
+        verify(s3PurgeService).complete(task.getId());
+    }
+
+    @Test
+    void purge_ShouldKeepObjectsWrittenAfterPurgeWasRequested() throws Exception {
+        when(storageBackend.listObjects(BUCKET_NAME, PREFIX, null))
+                .thenReturn(objects(keys(2), task.getCreatedAt().plusMinutes(1)));
+
+        s3PurgeJob.purge(task);
+
+        verify(storageBackend, never()).removeObjects(any(), any());
+        verify(s3PurgeService).complete(task.getId());
+    }
+
+    @Test
+    void purge_ShouldDeleteOnlyTheKey_WhenTaskIsExactKey() throws Exception {
+        var key = "legacy/report.pdf";
+        task.setPrefix(key).setExactKey(true);
+        when(storageBackend.listObjects(BUCKET_NAME, key, null))
+                .thenReturn(objects(List.of(key, key + ".bak"), task.getCreatedAt().minusMinutes(1)));
+
+        s3PurgeJob.purge(task);
+
+        verify(storageBackend).removeObjects(BUCKET_NAME, List.of(key));
+        verify(hotTierStorage).delete(BUCKET_NAME, key);
+        verify(hotTierStorage, never()).deletePrefix(any(), any());
+        verify(s3PurgeService).complete(task.getId());
+    }
+
+    @Test
+    void purge_ShouldNotComplete_WhenDeletionFails() {
+        when(storageBackend.listObjects(BUCKET_NAME, PREFIX, null))
+                .thenReturn(objects(keys(1), task.getCreatedAt().minusMinutes(1)));
+        doThrow(new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, "Error"))
+                .when(storageBackend).removeObjects(any(), any());
+
+        assertThrows(RuntimeException.class, () -> s3PurgeJob.purge(task));
+
+        verify(s3PurgeService, never()).checkpoint(any());
+        verify(s3PurgeService, never()).complete(any());
+    }
+
+    @Test
+    void pollTasks_ShouldClaimUpToConcurrentTaskLimit() {
+        when(s3PurgeService.claimTasks(2)).thenReturn(Collections.emptyList());
+
+        s3PurgeJob.pollTasks();
+
+        verify(s3PurgeService).claimTasks(2);
+    }
+
+    private List<String> keys(int count) {
+        return IntStream.range(0, count).mapToObj(i -> PREFIX + "file-" + i).toList();
+    }
+
+    private List<S3ObjectSummary> objects(List<String> keys, LocalDateTime lastModified) {
+        return keys.stream()
+                .map(key -> new S3ObjectSummary(key, 1L, lastModified.atZone(ZoneId.systemDefault())))
+                .toList();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.mastkey.cloudservice.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.service.StorageConsistencyService;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StorageConsistencyJobTest {
+
+    @Mock
+    private StorageConsistencyService storageConsistencyService;
+
+    @InjectMocks
+    private StorageConsistencyJob storageConsistencyJob;
+
+    @Test
+    void reconcile_ShouldReconcileEveryBucket() {
+        storageConsistencyJob.reconcile();
+
+        verify(storageConsistencyService).reconcileAll();
+    }
+}
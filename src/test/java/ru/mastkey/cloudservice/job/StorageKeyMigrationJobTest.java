@@ -0,0 +1,36 @@
+package ru.mastkey.cloudservice.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.service.StorageKeyMigrationService;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageKeyMigrationJobTest {
+
+    @Mock
+    private StorageKeyMigrationService storageKeyMigrationService;
+
+    @InjectMocks
+    private StorageKeyMigrationJob storageKeyMigrationJob;
+
+    @Test
+    void migrate_ShouldWalkBatchesUntilNothingIsLeft() {
+        var firstCursor = UUID.randomUUID();
+        var secondCursor = UUID.randomUUID();
+        when(storageKeyMigrationService.migrateBatch(new UUID(0L, 0L))).thenReturn(Optional.of(firstCursor));
+        when(storageKeyMigrationService.migrateBatch(firstCursor)).thenReturn(Optional.of(secondCursor));
+        when(storageKeyMigrationService.migrateBatch(secondCursor)).thenReturn(Optional.empty());
+
+        storageKeyMigrationJob.migrate();
+
+        verify(storageKeyMigrationService, times(3)).migrateBatch(any());
+    }
+}
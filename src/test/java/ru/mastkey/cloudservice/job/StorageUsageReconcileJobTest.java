@@ -0,0 +1,34 @@
+package ru.mastkey.cloudservice.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.service.StorageUsageReconcileService;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageUsageReconcileJobTest {
+
+    @Mock
+    private StorageUsageReconcileService storageUsageReconcileService;
+
+    @InjectMocks
+    private StorageUsageReconcileJob storageUsageReconcileJob;
+
+    @Test
+    void reconcile_ShouldWalkBatchesUntilNothingIsLeft() {
+        var cursor = UUID.randomUUID();
+        when(storageUsageReconcileService.reconcileBatch(new UUID(0L, 0L))).thenReturn(Optional.of(cursor));
+        when(storageUsageReconcileService.reconcileBatch(cursor)).thenReturn(Optional.empty());
+
+        storageUsageReconcileJob.reconcile();
+
+        verify(storageUsageReconcileService, times(2)).reconcileBatch(any());
+    }
+}
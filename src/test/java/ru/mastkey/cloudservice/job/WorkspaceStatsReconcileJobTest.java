@@ -0,0 +1,34 @@
+package ru.mastkey.cloudservice.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.service.WorkspaceStatsService;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceStatsReconcileJobTest {
+
+    @Mock
+    private WorkspaceStatsService workspaceStatsService;
+
+    @InjectMocks
+    private WorkspaceStatsReconcileJob workspaceStatsReconcileJob;
+
+    @Test
+    void reconcile_ShouldWalkBatchesUntilNothingIsLeft() {
+        var cursor = UUID.randomUUID();
+        when(workspaceStatsService.reconcileBatch(new UUID(0L, 0L))).thenReturn(Optional.of(cursor));
+        when(workspaceStatsService.reconcileBatch(cursor)).thenReturn(Optional.empty());
+
+        workspaceStatsReconcileJob.reconcile();
+
+        verify(workspaceStatsService, times(2)).reconcileBatch(any());
+    }
+}
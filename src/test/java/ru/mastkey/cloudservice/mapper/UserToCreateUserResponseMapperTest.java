@@ -7,7 +7,7 @@ import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.model.CreateUserResponse;
 
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,7 +29,7 @@ class UserToCreateUserResponseMapperTest {
         User user = User.builder()
                 .id(id)
                 .build();
-        user.setWorkspaces(List.of(testWorkspace));
+        user.setWorkspaces(Set.of(testWorkspace));
 
         CreateUserResponse response = mapper.convert(user);
 
@@ -43,7 +43,7 @@ class UserToCreateUserResponseMapperTest {
         var testWorkspace = new Workspace();
         testWorkspace.setId(id);
         User user = new User();
-        user.setWorkspaces(List.of(testWorkspace));
+        user.setWorkspaces(Set.of(testWorkspace));
 
         CreateUserResponse response = mapper.convert(user);
 
@@ -0,0 +1,183 @@
+package ru.mastkey.cloudservice.quota;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import ru.mastkey.cloudservice.configuration.properties.QuotaProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.WorkspaceStatsRepository;
+import ru.mastkey.cloudservice.repository.model.StorageUsage;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageQuotaManagerTest {
+
+    @Mock
+    private WorkspaceStatsRepository workspaceStatsRepository;
+
+    private QuotaProperties quotaProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private StorageQuotaManager storageQuotaManager;
+
+    private UUID ownerId;
+    private UUID workspaceId;
+
+    @BeforeEach
+    void setUp() {
+        quotaProperties = new QuotaProperties();
+        quotaProperties.setUserMaxBytes(DataSize.ofBytes(1000));
+        quotaProperties.setUserMaxObjects(10L);
+        quotaProperties.setWorkspaceMaxBytes(DataSize.ofBytes(500));
+        quotaProperties.setWorkspaceMaxObjects(5L);
+        meterRegistry = new SimpleMeterRegistry();
+        storageQuotaManager = new StorageQuotaManager(workspaceStatsRepository, quotaProperties, meterRegistry);
+
+        ownerId = UUID.randomUUID();
+        workspaceId = UUID.randomUUID();
+    }
+
+    @Test
+    void reserve_ShouldAdmitUpload_WhenWithinQuotas() {
+        stubUsage(400, 4, 100, 1);
+
+        assertThatCode(() -> storageQuotaManager.reserve(ownerId, workspaceId, 400, 4)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void reserve_ShouldReject_WhenUserBytesWouldBeExceeded() {
+        stubUsage(900, 1, 0, 0);
+
+        var exception = assertThrows(ServiceException.class,
+                () -> storageQuotaManager.reserve(ownerId, workspaceId, 101, 1));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.PAYLOAD_TOO_LARGE.getCode());
+        assertThat(exception.getMessage()).contains(ownerId.toString());
+        assertThat(meterRegistry.get("quota.rejections").tag("scope", "user").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_ShouldReject_WhenWorkspaceObjectsWouldBeExceeded() {
+        stubUsage(0, 5, 0, 5);
+
+        var exception = assertThrows(ServiceException.class,
+                () -> storageQuotaManager.reserve(ownerId, workspaceId, 1, 1));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.PAYLOAD_TOO_LARGE.getCode());
+        assertThat(exception.getMessage()).contains(workspaceId.toString());
+    }
+
+    @Test
+    void reserve_ShouldCountUploadsInFlight() {
+        stubUsage(0, 0, 0, 0);
+        var reservation = storageQuotaManager.reserve(ownerId, workspaceId, 300, 1);
+
+        assertThrows(ServiceException.class, () -> storageQuotaManager.reserve(ownerId, workspaceId, 300, 1));
+
+        reservation.release();
+        assertThatCode(() -> storageQuotaManager.reserve(ownerId, workspaceId, 300, 1)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void reserve_ShouldFreeRoom_WhenRejected() {
+        stubUsage(0, 0, 0, 0);
+
+        assertThrows(ServiceException.class, () -> storageQuotaManager.reserve(ownerId, workspaceId, 600, 1));
+
+        assertThatCode(() -> storageQuotaManager.reserve(ownerId, workspaceId, 500, 1)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void release_ShouldBeIdempotent() {
+        stubUsage(0, 0, 0, 0);
+        var reservation = storageQuotaManager.reserve(ownerId, workspaceId, 500, 1);
+
+        reservation.release();
+        reservation.release();
+
+        assertThatCode(() -> storageQuotaManager.reserve(ownerId, workspaceId, 500, 1)).doesNotThrowAnyException();
+        assertThrows(ServiceException.class, () -> storageQuotaManager.reserve(ownerId, workspaceId, 1, 1));
+    }
+
+    @Test
+    void reserve_ShouldUseCachedUsage_WhenFarFromLimit() {
+        stubUsage(0, 0, 0, 0);
+
+        storageQuotaManager.reserve(ownerId, workspaceId, 10, 1).release();
+        storageQuotaManager.reserve(ownerId, workspaceId, 10, 1).release();
+
+        verify(workspaceStatsRepository, times(1)).findUsage(ownerId, workspaceId);
+    }
+
+    @Test
+    void reserve_ShouldReadStoredUsage_WhenNearLimit() {
+        stubUsage(0, 0, 0, 0);
+        storageQuotaManager.reserve(ownerId, workspaceId, 10, 1).release();
+
+        storageQuotaManager.reserve(ownerId, workspaceId, 450, 1);
+
+        verify(workspaceStatsRepository, times(2)).findUsage(ownerId, workspaceId);
+    }
+
+    @Test
+    void reserve_ShouldCountReleasedUploads_WhenUsageIsCached() {
+        stubUsage(0, 0, 0, 0);
+        storageQuotaManager.reserve(ownerId, workspaceId, 300, 1).release();
+        stubUsage(300, 1, 300, 1);
+
+        assertThrows(ServiceException.class, () -> storageQuotaManager.reserve(ownerId, workspaceId, 300, 1));
+    }
+
+    @Test
+    void invalidate_ShouldReadStoredUsageAgain() {
+        stubUsage(0, 0, 0, 0);
+        storageQuotaManager.reserve(ownerId, workspaceId, 10, 1).release();
+
+        storageQuotaManager.invalidate(ownerId, workspaceId);
+        storageQuotaManager.reserve(ownerId, workspaceId, 10, 1);
+
+        verify(workspaceStatsRepository, times(2)).findUsage(ownerId, workspaceId);
+    }
+
+    @Test
+    void reserve_ShouldSkipChecks_WhenQuotasAreDisabled() {
+        quotaProperties.setEnabled(false);
+
+        assertThatCode(() -> storageQuotaManager.reserve(ownerId, workspaceId, Long.MAX_VALUE, 1)).doesNotThrowAnyException();
+        verifyNoInteractions(workspaceStatsRepository);
+    }
+
+    private void stubUsage(long userBytes, long userObjects, long workspaceBytes, long workspaceObjects) {
+        when(workspaceStatsRepository.findUsage(ownerId, workspaceId)).thenReturn(new StorageUsage() {
+            @Override
+            public long getUserBytes() {
+                return userBytes;
+            }
+
+            @Override
+            public long getUserObjects() {
+                return userObjects;
+            }
+
+            @Override
+            public long getWorkspaceBytes() {
+                return workspaceBytes;
+            }
+
+            @Override
+            public long getWorkspaceObjects() {
+                return workspaceObjects;
+            }
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package ru.mastkey.cloudservice.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.mastkey.cloudservice.configuration.properties.UploadSchedulerProperties;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FairUploadSchedulerTest {
+
+    private UploadSchedulerProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UploadSchedulerProperties();
+        properties.setMaxConcurrentUploads(1);
+        properties.setMaxConcurrentUploadsPerUser(1);
+        properties.setQuantum(DataSize.ofMegabytes(1));
+        properties.setAcquireTimeout(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void acquire_ShouldGrantSlot_WhenNothingIsRunning() {
+        var scheduler = new FairUploadScheduler(properties, meterRegistry);
+
+        var permit = scheduler.acquire(UUID.randomUUID(), DataSize.ofMegabytes(100).toBytes());
+
+        assertThat(scheduler.getActiveUploads()).isEqualTo(1);
+        permit.close();
+        permit.close();
+        assertThat(scheduler.getActiveUploads()).isZero();
+    }
+
+    @Test
+    void acquire_ShouldReject_WhenUserLimitIsHeldPastTimeout() {
+        properties.setMaxConcurrentUploads(2);
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        var scheduler = new FairUploadScheduler(properties, meterRegistry);
+        var userId = UUID.randomUUID();
+        scheduler.acquire(userId, 10);
+
+        var exception = assertThrows(ServiceException.class, () -> scheduler.acquire(userId, 10));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getCode());
+        assertThat(meterRegistry.get("upload.scheduler.rejections").counter().count()).isEqualTo(1);
+        assertThat(scheduler.getWaitingUploads()).isZero();
+        scheduler.acquire(UUID.randomUUID(), 10).close();
+    }
+
+    @Test
+    void acquire_ShouldServeSmallUploadOfAnotherUser_BeforeLargeUploadQueuedEarlier() throws Exception {
+        var scheduler = new FairUploadScheduler(properties, meterRegistry);
+        var running = scheduler.acquire(UUID.randomUUID(), 10);
+
+        var large = CompletableFuture.supplyAsync(
+                () -> scheduler.acquire(UUID.randomUUID(), DataSize.ofMegabytes(10).toBytes()), executor);
+        awaitUntil(() -> scheduler.getWaitingUploads() == 1);
+        var small = CompletableFuture.supplyAsync(
+                () -> scheduler.acquire(UUID.randomUUID(), DataSize.ofKilobytes(100).toBytes()), executor);
+        awaitUntil(() -> scheduler.getWaitingUploads() == 2);
+
+        running.close();
+
+        var smallPermit = small.get(5, TimeUnit.SECONDS);
+        assertThat(large).isNotDone();
+        smallPermit.close();
+        large.get(5, TimeUnit.SECONDS).close();
+        assertThat(scheduler.getActiveUploads()).isZero();
+    }
+
+    @Test
+    void acquire_ShouldAlternateUsers_WhenBothQueueBatches() throws Exception {
+        var scheduler = new FairUploadScheduler(properties, meterRegistry);
+        var running = scheduler.acquire(UUID.randomUUID(), 10);
+        var batchUser = UUID.randomUUID();
+        var otherUser = UUID.randomUUID();
+        var quantum = properties.getQuantum().toBytes();
+
+        var firstOfBatch = CompletableFuture.supplyAsync(() -> scheduler.acquire(batchUser, quantum), executor);
+        awaitUntil(() -> scheduler.getWaitingUploads() == 1);
+        var secondOfBatch = CompletableFuture.supplyAsync(() -> scheduler.acquire(batchUser, quantum), executor);
+        awaitUntil(() -> scheduler.getWaitingUploads() == 2);
+        var other = CompletableFuture.supplyAsync(() -> scheduler.acquire(otherUser, quantum), executor);
+        awaitUntil(() -> scheduler.getWaitingUploads() == 3);
+
+        running.close();
+        firstOfBatch.get(5, TimeUnit.SECONDS).close();
+
+        var otherPermit = other.get(5, TimeUnit.SECONDS);
+        assertThat(secondOfBatch).isNotDone();
+        otherPermit.close();
+        secondOfBatch.get(5, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    void acquire_ShouldNotQueue_WhenDisabled() {
+        properties.setEnabled(false);
+        var scheduler = new FairUploadScheduler(properties, meterRegistry);
+        var userId = UUID.randomUUID();
+
+        scheduler.acquire(userId, 10);
+        scheduler.acquire(userId, 10);
+
+        assertThat(scheduler.getActiveUploads()).isZero();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -4,24 +4,38 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.WorkspaceMembershipCache;
+import ru.mastkey.cloudservice.cache.model.WorkspaceMembership;
+import ru.mastkey.cloudservice.client.ObjectCopier;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.quota.QuotaReservation;
+import ru.mastkey.cloudservice.quota.StorageQuotaManager;
 import ru.mastkey.cloudservice.repository.FileRepository;
 import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
+import ru.mastkey.cloudservice.scheduler.FairUploadScheduler;
+import ru.mastkey.cloudservice.scheduler.UploadPermit;
 import ru.mastkey.cloudservice.service.impl.FileServiceImpl;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
 import ru.mastkey.cloudservice.util.FileUtils;
 import ru.mastkey.model.PageFileResponse;
 
@@ -41,7 +55,7 @@ class FileServiceImplTest {
     private MockedStatic<FileUtils> fileUtilsMockedStatic;
 
     @Mock
-    private S3Client s3Client;
+    private StorageBackend storageBackend;
 
     @Mock
     private FileRepository fileRepository;
@@ -58,12 +72,40 @@ class FileServiceImplTest {
     @Mock
     private HttpContextService httpContextService;
 
+    @Mock
+    private WorkspaceMembershipCache workspaceMembershipCache;
+
+    @Mock
+    private WorkspaceStatsService workspaceStatsService;
+
+    @Mock
+    private StorageQuotaManager storageQuotaManager;
+
+    @Mock
+    private QuotaReservation quotaReservation;
+
+    @Mock
+    private FairUploadScheduler fairUploadScheduler;
+
+    @Mock
+    private UploadPermit uploadPermit;
+
+    @Mock
+    private HotTierStorage hotTierStorage;
+
+    @Mock
+    private ObjectCopier objectCopier;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private FileServiceImpl fileServiceImpl;
 
     private User user;
     private Workspace workspace;
     private UserWorkspace userWorkspace;
+    private WorkspaceMembership membership;
 
     @BeforeEach
     void setUp() {
@@ -80,27 +122,153 @@ class FileServiceImplTest {
         userWorkspace = new UserWorkspace();
         userWorkspace.setUser(user);
         userWorkspace.setWorkspace(workspace);
+
+        membership = new WorkspaceMembership(user.getId(), workspace.getId(), true, user.getBucketName());
+        lenient().when(storageQuotaManager.reserve(any(), any(), anyLong(), anyLong())).thenReturn(quotaReservation);
+        lenient().when(fairUploadScheduler.acquire(any(), anyLong())).thenReturn(uploadPermit);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
-    void uploadFiles_ShouldUploadFilesSuccessfully() {
+    void uploadFiles_ShouldUpsertAllFilesInOneStatement() {
         workspace.setOwner(user);
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+        when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
+        stubFileName("testfile.txt", "testfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenReturn("generated/object/key");
+        when(fileRepository.upsertAll(eq(workspace.getId()), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> List.of(new File()
+                        .setId(invocation.<UUID[]>getArgument(1)[0])
+                        .setFileName("testfile")
+                        .setFileExtension("txt")
+                        .setPath(invocation.<String[]>getArgument(4)[0])));
 
+        fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile));
+
+        var ids = ArgumentCaptor.forClass(UUID[].class);
+        verify(fileRepository).upsertAll(eq(workspace.getId()), ids.capture(),
+                eq(new String[]{"testfile"}), eq(new String[]{"txt"}), eq(new String[]{"generated/object/key"}),
+                eq(new Long[]{0L}), eq("COLD"));
+        assertThat(ids.getValue()).hasSize(1).doesNotContainNull();
+        verify(storageBackend).uploadFile(eq(multipartFile), eq("test_bucket"), eq("generated/object/key"));
+        verify(fileRepository, never()).saveAll(any());
+        verify(storageQuotaManager).reserve(user.getId(), workspace.getId(), 0L, 1L);
+        verify(quotaReservation).release();
+        var order = inOrder(fairUploadScheduler, storageBackend, uploadPermit, fileRepository);
+        order.verify(fairUploadScheduler).acquire(user.getId(), 0L);
+        order.verify(storageBackend).uploadFile(any(), any(), any());
+        order.verify(uploadPermit).close();
+        order.verify(fileRepository).upsertAll(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void uploadFiles_ShouldKeepLastCopy_WhenNameIsRepeated() {
+        var secondFile = mock(MultipartFile.class);
+        var existingFile = new File().setId(UUID.randomUUID()).setFileName("testfile").setFileExtension("txt");
+        var objectKey = workspace.getId() + "/" + existingFile.getId();
+        existingFile.setPath(objectKey);
+        workspace.setOwner(user);
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
         when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
                 .thenReturn(Optional.of(userWorkspace));
-        when(fileRepository.findByWorkspaceAndFileNameAndFileExtension(any(), any(), any())).thenReturn(Optional.empty());
         when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(secondFile.getOriginalFilename()).thenReturn("testfile.txt");
+        stubFileName("testfile.txt", "testfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenReturn(objectKey);
+        when(fileRepository.findByWorkspaceIdAndNames(workspace.getId(), new String[]{"testfile"}, new String[]{"txt"}))
+                .thenReturn(List.of(existingFile));
+        when(fileRepository.upsertAll(eq(workspace.getId()), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(existingFile));
+
+        fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile, secondFile));
+
+        verify(fileRepository).upsertAll(eq(workspace.getId()), argThat(ids -> ids.length == 1),
+                eq(new String[]{"testfile"}), eq(new String[]{"txt"}), any(), any(), any());
+        verify(storageBackend).uploadFile(eq(secondFile), eq("test_bucket"), eq(objectKey));
+        verify(storageBackend, never()).uploadFile(eq(multipartFile), anyString(), anyString());
+    }
 
-        fileUtilsMockedStatic.when(() -> FileUtils.getFileNameWithoutExtension("testfile.txt")).thenReturn("testfile");
-        fileUtilsMockedStatic.when(() -> FileUtils.getFileExtension("testfile.txt")).thenReturn("txt");
-        fileUtilsMockedStatic.when(() -> FileUtils.generateRelativePath(any(), eq("testfile"), eq("txt")))
-                .thenReturn("generated/relative/path/to/testfile.txt");
+    @Test
+    void uploadFiles_ShouldDeleteReplacedObjects_AfterRowsAreMoved() {
+        var secondFile = mock(MultipartFile.class);
+        var firstLegacy = new File().setId(UUID.randomUUID()).setFileName("first").setFileExtension("txt")
+                .setPath("test_workspace/first.txt");
+        var secondLegacy = new File().setId(UUID.randomUUID()).setFileName("second").setFileExtension("txt")
+                .setPath("test_workspace/second.txt");
+        workspace.setOwner(user);
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+        when(multipartFile.getOriginalFilename()).thenReturn("first.txt");
+        when(secondFile.getOriginalFilename()).thenReturn("second.txt");
+        stubFileName("first.txt", "first", "txt");
+        stubFileName("second.txt", "second", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenAnswer(invocation -> workspace.getId() + "/" + invocation.getArgument(1));
+        when(fileRepository.findByWorkspaceIdAndNames(any(), any(), any())).thenReturn(List.of(firstLegacy, secondLegacy));
+        when(fileRepository.lockPathsByWorkspaceIdAndNames(workspace.getId(), new String[]{"first", "second"},
+                new String[]{"txt", "txt"}))
+                .thenReturn(List.of(firstLegacy.getPath(), secondLegacy.getPath()));
+        when(fileRepository.upsertAll(eq(workspace.getId()), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(firstLegacy, secondLegacy));
+
+        fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile, secondFile));
+
+        verify(fileRepository, never()).saveAll(any());
+        var order = inOrder(fileRepository, storageBackend);
+        order.verify(fileRepository).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        order.verify(storageBackend).deleteFile(user.getBucketName(), "test_workspace/first.txt");
+        order.verify(storageBackend).deleteFile(user.getBucketName(), "test_workspace/second.txt");
+        verify(hotTierStorage).delete(user.getBucketName(), "test_workspace/first.txt");
+        verify(hotTierStorage).delete(user.getBucketName(), "test_workspace/second.txt");
+    }
 
-        fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile));
+    @Test
+    void uploadFiles_ShouldDeleteWrittenObjects_WhenNameIsTakenByConcurrentUpload() {
+        var concurrentFile = new File().setId(UUID.randomUUID()).setFileName("testfile").setFileExtension("txt");
+        workspace.setOwner(user);
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+        when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
+        stubFileName("testfile.txt", "testfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenReturn("generated/object/key");
+        when(fileRepository.upsertAll(eq(workspace.getId()), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(concurrentFile));
+
+        var exception = assertThrows(ServiceException.class,
+                () -> fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile)));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.CONFLICT.getCode());
+        verify(storageBackend).deleteFile("test_bucket", "generated/object/key");
+        verify(fileRepository, never()).saveAll(any());
+        verify(quotaReservation).release();
+    }
 
-        verify(fileRepository).save(any(File.class));
-        verify(s3Client).uploadFile(eq(multipartFile), eq("test_bucket"), eq("generated/relative/path/to/testfile.txt"));
+    @Test
+    void uploadFiles_ShouldRejectBeforeTouchingStorage_WhenQuotaIsExceeded() {
+        workspace.setOwner(user);
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+        when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(multipartFile.getSize()).thenReturn(2048L);
+        stubFileName("testfile.txt", "testfile", "txt");
+        when(storageQuotaManager.reserve(user.getId(), workspace.getId(), 2048L, 1L))
+                .thenThrow(new ServiceException(ErrorType.PAYLOAD_TOO_LARGE, "quota"));
+
+        var exception = assertThrows(ServiceException.class,
+                () -> fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile)));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.PAYLOAD_TOO_LARGE.getCode());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(storageBackend);
     }
 
     @Test
@@ -112,8 +280,8 @@ class FileServiceImplTest {
                 () -> fileServiceImpl.uploadFiles(workspace.getId(), List.of(multipartFile)));
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
-        verify(fileRepository, never()).save(any(File.class));
-        verify(s3Client, never()).uploadFile(any(), anyString(), anyString());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verify(storageBackend, never()).uploadFile(any(), anyString(), anyString());
     }
 
     @Test
@@ -127,13 +295,13 @@ class FileServiceImplTest {
 
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
-        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
-                .thenReturn(Optional.of(userWorkspace));
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
 
         fileServiceImpl.deleteFile(fileId, workspace.getId());
 
         verify(fileRepository).findById(fileId);
-        verify(s3Client).deleteFile(eq(user.getBucketName()), eq(file.getPath()));
+        verify(storageBackend).deleteFile(eq(user.getBucketName()), eq(file.getPath()));
         verify(fileRepository).delete(file);
     }
 
@@ -153,7 +321,7 @@ class FileServiceImplTest {
                 () -> fileServiceImpl.deleteFile(fileId, workspace.getId()));
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
-        verify(s3Client, never()).deleteFile(anyString(), anyString());
+        verify(storageBackend, never()).deleteFile(anyString(), anyString());
         verify(fileRepository, never()).delete(file);
     }
 
@@ -168,9 +336,9 @@ class FileServiceImplTest {
 
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
-        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
-                .thenReturn(Optional.of(userWorkspace));
-        when(s3Client.getFileStream(user.getBucketName(), "path/to/testfile.txt"))
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+        when(storageBackend.getFileStream(user.getBucketName(), "path/to/testfile.txt"))
                 .thenReturn(new ByteArrayInputStream("file content".getBytes()));
 
         var result = fileServiceImpl.downloadFile(fileId, workspace.getId());
@@ -179,7 +347,71 @@ class FileServiceImplTest {
         assertThat(result.file()).isEqualTo(file);
         assertThat(result.inputStream()).isNotNull();
         verify(fileRepository).findById(fileId);
-        verify(s3Client).getFileStream(eq(user.getBucketName()), eq(file.getPath()));
+        verify(storageBackend).getFileStream(eq(user.getBucketName()), eq(file.getPath()));
+    }
+
+    @Test
+    void downloadFile_ShouldReadHotTier_WhenFileIsResident() {
+        var fileId = UUID.randomUUID();
+        var file = new File()
+                .setId(fileId)
+                .setPath("path/to/testfile.txt")
+                .setStorageTier(StorageTier.REPLICATED)
+                .setWorkspace(workspace);
+        var hotStream = new ByteArrayInputStream("file content".getBytes());
+
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+        when(hotTierStorage.open(file, user.getBucketName())).thenReturn(Optional.of(hotStream));
+
+        var result = fileServiceImpl.downloadFile(fileId, workspace.getId());
+
+        assertThat(result.inputStream()).isSameAs(hotStream);
+        verify(storageBackend, never()).getFileStream(any(), any());
+    }
+
+    @Test
+    void getDownloadUrl_ShouldReturnEmpty_WhenFileIsNotReplicatedYet() {
+        var fileId = UUID.randomUUID();
+        var file = new File()
+                .setId(fileId)
+                .setPath("path/to/testfile.txt")
+                .setStorageTier(StorageTier.HOT)
+                .setWorkspace(workspace);
+
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+
+        assertThat(fileServiceImpl.getDownloadUrl(fileId, workspace.getId())).isEmpty();
+        verify(storageBackend, never()).getPresignedDownloadUrl(any(), any(), any());
+    }
+
+    @Test
+    void getDownloadUrl_ShouldSignObjectOfOwnerBucket() {
+        var fileId = UUID.randomUUID();
+        var file = new File()
+                .setId(fileId)
+                .setFileName("testfile")
+                .setFileExtension("txt")
+                .setPath("path/to/testfile.txt")
+                .setWorkspace(workspace);
+
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+        fileUtilsMockedStatic.when(() -> FileUtils.getFullFileName("testfile", "txt")).thenReturn("testfile.txt");
+        when(storageBackend.getPresignedDownloadUrl(user.getBucketName(), "path/to/testfile.txt", "testfile.txt"))
+                .thenReturn(Optional.of("http://minio/signed"));
+
+        var url = fileServiceImpl.getDownloadUrl(fileId, workspace.getId());
+
+        assertThat(url).contains("http://minio/signed");
+        verify(storageBackend, never()).getFileStream(any(), any());
     }
 
     @Test
@@ -192,14 +424,14 @@ class FileServiceImplTest {
 
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
-        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
                 .thenReturn(Optional.empty());
 
         var exception = assertThrows(ServiceException.class,
                 () -> fileServiceImpl.downloadFile(fileId, workspace.getId()));
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
-        verify(s3Client, never()).getFileStream(anyString(), anyString());
+        verify(storageBackend, never()).getFileStream(anyString(), anyString());
     }
 
     @Test
@@ -215,7 +447,7 @@ class FileServiceImplTest {
         assertThat(exception.getCode()).isEqualTo(ErrorType.BAD_REQUEST.getCode());
         assertThat(exception.getMessage()).isEqualTo("File with id " + fileId + " not found");
         verify(fileRepository).findById(fileId);
-        verify(s3Client, never()).deleteFile(anyString(), anyString());
+        verify(storageBackend, never()).deleteFile(anyString(), anyString());
     }
 
     @Test
@@ -227,7 +459,7 @@ class FileServiceImplTest {
 
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
-        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
                 .thenReturn(Optional.empty());
 
         var exception = assertThrows(ServiceException.class,
@@ -235,7 +467,7 @@ class FileServiceImplTest {
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
         verify(fileRepository).findById(fileId);
-        verify(s3Client, never()).deleteFile(anyString(), anyString());
+        verify(storageBackend, never()).deleteFile(anyString(), anyString());
     }
 
     @Test
@@ -253,7 +485,31 @@ class FileServiceImplTest {
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
         verify(fileRepository).findById(fileId);
-        verify(s3Client, never()).getFileStream(anyString(), anyString());
+        verify(storageBackend, never()).getFileStream(anyString(), anyString());
+    }
+
+    @Test
+    void getFilesInfo_ShouldTakeTotalFromWorkspaceStats() {
+        var pageRequest = PageRequest.of(0, 2);
+        var first = new File().setId(UUID.randomUUID());
+        var second = new File().setId(UUID.randomUUID());
+        var pageResponse = new PageFileResponse();
+
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+        when(fileRepository.findByWorkspaceId(workspace.getId(), pageRequest)).thenReturn(List.of(first, second));
+        when(workspaceStatsService.getFileCount(workspace.getId())).thenReturn(5L);
+        when(conversionService.convert(any(Page.class), eq(PageFileResponse.class))).thenReturn(pageResponse);
+
+        var response = fileServiceImpl.getFilesInfo(workspace.getId(), pageRequest);
+
+        assertThat(response).isSameAs(pageResponse);
+        var page = ArgumentCaptor.forClass(Page.class);
+        verify(conversionService).convert(page.capture(), eq(PageFileResponse.class));
+        assertThat(page.getValue().getTotalElements()).isEqualTo(5L);
+        assertThat(page.getValue().getTotalPages()).isEqualTo(3);
+        verify(fileRepository, never()).findAll(any(Specification.class), any(Pageable.class));
     }
 
     @Test
@@ -261,7 +517,7 @@ class FileServiceImplTest {
         var pageRequest = PageRequest.of(0, 10);
 
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
-        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
                 .thenReturn(Optional.empty());
 
         var exception = assertThrows(ServiceException.class,
@@ -278,37 +534,117 @@ class FileServiceImplTest {
         when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
         fileUtilsMockedStatic.when(() -> FileUtils.getFileNameWithoutExtension("testfile.txt")).thenReturn("testfile");
         fileUtilsMockedStatic.when(() -> FileUtils.getFileExtension("testfile.txt")).thenReturn("txt");
-        fileUtilsMockedStatic.when(() -> FileUtils.generateRelativePath(workspace.getName(), "testfile", "txt"))
-                .thenReturn("generated/relative/path/to/testfile.txt");
-
-        doThrow(new RuntimeException("S3 upload failed")).when(s3Client)
-                .uploadFile(eq(multipartFile), eq(user.getBucketName()), eq("generated/relative/path/to/testfile.txt"));
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenReturn("generated/object/key");
+        doThrow(new RuntimeException("S3 upload failed")).when(storageBackend)
+                .uploadFile(eq(multipartFile), eq(user.getBucketName()), eq("generated/object/key"));
 
         var exception = assertThrows(RuntimeException.class,
                 () -> fileServiceImpl.uploadFile(multipartFile, workspace, user));
 
         assertThat(exception.getMessage()).isEqualTo("S3 upload failed");
-        verify(fileRepository, never()).save(any(File.class));
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verify(quotaReservation).release();
     }
 
     @Test
-    void uploadFile_ShouldReplaceExistingFile() {
-        var existingFile = new File();
-        existingFile.setPath("path/to/existingfile.txt");
+    void uploadFile_ShouldWriteOverwriteToNewKey_AndDeleteReplacedObjectAfterwards() {
+        var existingFile = new File().setId(UUID.randomUUID()).setFileName("existingfile").setFileExtension("txt");
+        var replacedKey = workspace.getId() + "/" + existingFile.getId();
+        existingFile.setPath(replacedKey);
         workspace.setOwner(user);
 
         when(multipartFile.getOriginalFilename()).thenReturn("existingfile.txt");
-        fileUtilsMockedStatic.when(() -> FileUtils.getFileNameWithoutExtension("existingfile.txt")).thenReturn("existingfile");
-        fileUtilsMockedStatic.when(() -> FileUtils.getFileExtension("existingfile.txt")).thenReturn("txt");
-        fileUtilsMockedStatic.when(() -> FileUtils.generateRelativePath(workspace.getName(), "existingfile", "txt"))
-                .thenReturn("path/to/existingfile.txt");
-        when(fileRepository.findByWorkspaceAndFileNameAndFileExtension(workspace, "existingfile", "txt"))
-                .thenReturn(Optional.of(existingFile));
+        stubFileName("existingfile.txt", "existingfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenAnswer(invocation -> workspace.getId() + "/" + invocation.getArgument(1));
+        when(fileRepository.findByWorkspaceIdAndNames(workspace.getId(), new String[]{"existingfile"}, new String[]{"txt"}))
+                .thenReturn(List.of(existingFile));
+        when(fileRepository.lockPathsByWorkspaceIdAndNames(workspace.getId(), new String[]{"existingfile"}, new String[]{"txt"}))
+                .thenReturn(List.of(replacedKey));
+        when(fileRepository.upsertAll(eq(workspace.getId()), eq(new UUID[]{existingFile.getId()}), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(existingFile));
 
         fileServiceImpl.uploadFile(multipartFile, workspace, user);
 
-        verify(s3Client).uploadFile(eq(multipartFile), eq(user.getBucketName()), eq(existingFile.getPath()));
-        verify(fileRepository, never()).save(any(File.class));
+        var paths = ArgumentCaptor.forClass(String[].class);
+        verify(fileRepository).upsertAll(any(), any(), any(), any(), paths.capture(), any(), any());
+        var newKey = paths.getValue()[0];
+        assertThat(newKey).startsWith(workspace.getId() + "/").isNotEqualTo(replacedKey);
+        var order = inOrder(storageBackend, fileRepository);
+        order.verify(storageBackend).uploadFile(multipartFile, user.getBucketName(), newKey);
+        order.verify(fileRepository).lockPathsByWorkspaceIdAndNames(any(), any(), any());
+        order.verify(fileRepository).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        order.verify(storageBackend).deleteFile(user.getBucketName(), replacedKey);
+        verify(storageBackend, never()).deleteFile(user.getBucketName(), newKey);
+        verify(fileRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void uploadFile_ShouldKeepReplacedObject_WhenRowUpdateFails() {
+        var existingFile = new File().setId(UUID.randomUUID()).setFileName("existingfile").setFileExtension("txt");
+        var replacedKey = workspace.getId() + "/" + existingFile.getId();
+        existingFile.setPath(replacedKey);
+        workspace.setOwner(user);
+
+        when(multipartFile.getOriginalFilename()).thenReturn("existingfile.txt");
+        stubFileName("existingfile.txt", "existingfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenAnswer(invocation -> workspace.getId() + "/" + invocation.getArgument(1));
+        when(fileRepository.findByWorkspaceIdAndNames(workspace.getId(), new String[]{"existingfile"}, new String[]{"txt"}))
+                .thenReturn(List.of(existingFile));
+        when(fileRepository.upsertAll(any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        assertThrows(RuntimeException.class, () -> fileServiceImpl.uploadFile(multipartFile, workspace, user));
+
+        var written = ArgumentCaptor.forClass(String.class);
+        verify(storageBackend).uploadFile(eq(multipartFile), eq(user.getBucketName()), written.capture());
+        verify(storageBackend).deleteFile(user.getBucketName(), written.getValue());
+        verify(storageBackend, never()).deleteFile(user.getBucketName(), replacedKey);
+        verify(quotaReservation).release();
+    }
+
+    @Test
+    void uploadFile_ShouldWriteHotTier_WhenTieringIsEnabled() {
+        workspace.setOwner(user);
+
+        when(hotTierStorage.acceptsWrites()).thenReturn(true);
+        when(multipartFile.getOriginalFilename()).thenReturn("testfile.txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.getFileNameWithoutExtension("testfile.txt")).thenReturn("testfile");
+        fileUtilsMockedStatic.when(() -> FileUtils.getFileExtension("testfile.txt")).thenReturn("txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any())).thenReturn("generated/object/key");
+        when(fileRepository.upsertAll(eq(workspace.getId()), any(), any(), any(), any(), any(), eq("HOT")))
+                .thenAnswer(invocation -> List.of(new File().setId(invocation.<UUID[]>getArgument(1)[0]).setPath("generated/object/key")));
+
+        fileServiceImpl.uploadFile(multipartFile, workspace, user);
+
+        verify(hotTierStorage).write(multipartFile, user.getBucketName(), "generated/object/key");
+        verify(storageBackend, never()).uploadFile(any(), anyString(), anyString());
+    }
+
+    @Test
+    void uploadFile_ShouldDeleteLegacyObject_WhenOverwrittenFileHadLegacyKey() {
+        var existingFile = new File().setId(UUID.randomUUID()).setFileName("existingfile").setFileExtension("txt");
+        existingFile.setPath("test_workspace/existingfile.txt");
+        workspace.setOwner(user);
+
+        when(multipartFile.getOriginalFilename()).thenReturn("existingfile.txt");
+        stubFileName("existingfile.txt", "existingfile", "txt");
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(workspace.getId()), any(UUID.class)))
+                .thenAnswer(invocation -> workspace.getId() + "/" + invocation.getArgument(1));
+        when(fileRepository.findByWorkspaceIdAndNames(workspace.getId(), new String[]{"existingfile"}, new String[]{"txt"}))
+                .thenReturn(List.of(existingFile));
+        when(fileRepository.lockPathsByWorkspaceIdAndNames(workspace.getId(), new String[]{"existingfile"}, new String[]{"txt"}))
+                .thenReturn(List.of("test_workspace/existingfile.txt"));
+        when(fileRepository.upsertAll(eq(workspace.getId()), eq(new UUID[]{existingFile.getId()}), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(existingFile));
+
+        fileServiceImpl.uploadFile(multipartFile, workspace, user);
+
+        verify(storageBackend).uploadFile(eq(multipartFile), eq(user.getBucketName()), startsWith(workspace.getId() + "/"));
+        verify(fileRepository, never()).saveAll(any());
+        verify(storageBackend).deleteFile(user.getBucketName(), "test_workspace/existingfile.txt");
     }
 
     @Test
@@ -320,8 +656,8 @@ class FileServiceImplTest {
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.BAD_REQUEST.getCode());
         assertThat(exception.getMessage()).isEqualTo("Invalid file name");
-        verify(fileRepository, never()).save(any(File.class));
-        verify(s3Client, never()).uploadFile(any(), anyString(), anyString());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verify(storageBackend, never()).uploadFile(any(), anyString(), anyString());
     }
 
     @Test
@@ -333,8 +669,231 @@ class FileServiceImplTest {
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.BAD_REQUEST.getCode());
         assertThat(exception.getMessage()).isEqualTo("Invalid file name");
-        verify(fileRepository, never()).save(any(File.class));
-        verify(s3Client, never()).uploadFile(any(), anyString(), anyString());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verify(storageBackend, never()).uploadFile(any(), anyString(), anyString());
+    }
+
+    @Test
+    void appendToFile_ShouldExtendObjectAndRow_WhenFileIsInS3() {
+        workspace.setOwner(user);
+        var file = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setPath("path/to/log.txt")
+                .setSize(100L).setStorageTier(StorageTier.REPLICATED);
+        stubAppend(file);
+        when(multipartFile.getSize()).thenReturn(20L);
+
+        fileServiceImpl.appendToFile(file.getId(), workspace.getId(), multipartFile);
+
+        assertThat(file.getSize()).isEqualTo(120L);
+        assertThat(file.getStorageTier()).isEqualTo(StorageTier.COLD);
+        var order = inOrder(fileRepository, storageBackend);
+        order.verify(fileRepository).saveAndFlush(file);
+        order.verify(storageBackend).appendObject(eq("test_bucket"), eq("path/to/log.txt"), argThat(segment -> segment.getSize() == 20L));
+        verify(hotTierStorage).delete("test_bucket", "path/to/log.txt");
+        verify(storageQuotaManager).reserve(user.getId(), workspace.getId(), 20L, 0L);
+        verify(quotaReservation).release();
+        var lockOrder = inOrder(fairUploadScheduler, transactionTemplate, uploadPermit);
+        lockOrder.verify(fairUploadScheduler).acquire(user.getId(), 20L);
+        lockOrder.verify(transactionTemplate).execute(any());
+        lockOrder.verify(uploadPermit).close();
+    }
+
+    @Test
+    void appendToFile_ShouldAppendOnHotTier_WhenFileIsNotReplicatedYet() {
+        workspace.setOwner(user);
+        var file = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setPath("path/to/log.txt")
+                .setSize(100L).setStorageTier(StorageTier.HOT);
+        stubAppend(file);
+        when(hotTierStorage.isEnabled()).thenReturn(true);
+        when(multipartFile.getSize()).thenReturn(20L);
+
+        fileServiceImpl.appendToFile(file.getId(), workspace.getId(), multipartFile);
+
+        assertThat(file.getStorageTier()).isEqualTo(StorageTier.HOT);
+        verify(hotTierStorage).append(eq("test_bucket"), eq("path/to/log.txt"), argThat(segment -> segment.getSize() == 20L));
+        verify(storageBackend, never()).appendObject(any(), any(), any());
+    }
+
+    @Test
+    void appendToFile_ShouldThrowException_WhenFileNotInWorkspace() {
+        workspace.setOwner(user);
+        var file = new File().setId(UUID.randomUUID()).setWorkspace(new Workspace().setId(UUID.randomUUID()));
+        stubAppend(file);
+
+        var exception = assertThrows(ServiceException.class,
+                () -> fileServiceImpl.appendToFile(file.getId(), workspace.getId(), multipartFile));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
+        verify(storageBackend, never()).appendObject(any(), any(), any());
+        verify(fileRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void copyFiles_ShouldCopyObjectsOnStorageSide_WhenTargetBelongsToOtherOwner() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.COLD);
+        stubCopy(target, source);
+
+        var result = fileServiceImpl.copyFiles(workspace.getId(), List.of(source.getId()), target.getId());
+
+        assertThat(result).hasSize(1);
+        verify(fileRepository).upsertAll(eq(target.getId()), any(), eq(new String[]{"report"}), eq(new String[]{"pdf"}),
+                eq(new String[]{"target/key"}), eq(new Long[]{10L}), eq("COLD"));
+        verify(objectCopier).copyAll(List.of(
+                new ObjectCopier.ObjectCopy("test_bucket", "source/key", "target_bucket", "target/key")));
+        verify(storageQuotaManager).reserve(target.getOwner().getId(), target.getId(), 10L, 1L);
+        verify(quotaReservation).release();
+        verify(storageBackend, never()).uploadFile(any(), anyString(), anyString());
+        verify(fileRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void copyFiles_ShouldCopyOnHotTier_WhenSourceIsNotReplicatedYet() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.HOT);
+        stubCopy(target, source);
+        when(hotTierStorage.isEnabled()).thenReturn(true);
+
+        fileServiceImpl.copyFiles(workspace.getId(), List.of(source.getId()), target.getId());
+
+        verify(hotTierStorage).copy("test_bucket", "source/key", "target_bucket", "target/key");
+        verify(objectCopier, never()).copyAll(any());
+        var saved = ArgumentCaptor.forClass(List.class);
+        verify(fileRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement()
+                .satisfies(file -> assertThat(((File) file).getStorageTier()).isEqualTo(StorageTier.HOT));
+    }
+
+    @Test
+    void copyFiles_ShouldCopyInS3_WhenHotTierIsDisabled() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.HOT);
+        stubCopy(target, source);
+
+        fileServiceImpl.copyFiles(workspace.getId(), List.of(source.getId()), target.getId());
+
+        verify(objectCopier).copyAll(List.of(
+                new ObjectCopier.ObjectCopy("test_bucket", "source/key", "target_bucket", "target/key")));
+        verify(hotTierStorage, never()).copy(any(), any(), any(), any());
+    }
+
+    @Test
+    void moveFiles_ShouldDeleteSourceRowsAndObjects_AfterCopying() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.COLD);
+        stubCopy(target, source);
+
+        fileServiceImpl.moveFiles(workspace.getId(), List.of(source.getId()), target.getId());
+
+        var order = inOrder(objectCopier, transactionTemplate, fileRepository, storageBackend);
+        order.verify(objectCopier).copyAll(any());
+        order.verify(transactionTemplate).execute(any());
+        order.verify(fileRepository).deleteByIdsAndPaths(new UUID[]{source.getId()}, new String[]{"source/key"});
+        order.verify(storageBackend).removeObjects("test_bucket", List.of("source/key"));
+    }
+
+    @Test
+    void copyFiles_ShouldDeleteCopiedObjects_WhenCopyFails() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.COLD);
+        stubCopy(target, source);
+        doThrow(new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, "copy failed"))
+                .when(objectCopier).copyAll(any());
+
+        assertThrows(ServiceException.class,
+                () -> fileServiceImpl.copyFiles(workspace.getId(), List.of(source.getId()), target.getId()));
+
+        verify(storageBackend).removeObjects("target_bucket", List.of("target/key"));
+        verify(transactionTemplate, never()).execute(any());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+        verify(quotaReservation).release();
+    }
+
+    @Test
+    void copyFiles_ShouldKeepTargetRowsUnlocked_WhileObjectsAreCopied() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var source = new File().setId(UUID.randomUUID()).setWorkspace(workspace).setFileName("report")
+                .setFileExtension("pdf").setPath("source/key").setSize(10L).setStorageTier(StorageTier.COLD);
+        stubCopy(target, source);
+
+        fileServiceImpl.copyFiles(workspace.getId(), List.of(source.getId()), target.getId());
+
+        var order = inOrder(objectCopier, transactionTemplate, fileRepository);
+        order.verify(objectCopier).copyAll(any());
+        order.verify(transactionTemplate).execute(any());
+        order.verify(fileRepository).lockPathsByWorkspaceIdAndNames(eq(target.getId()), any(), any());
+        order.verify(fileRepository).upsertAll(eq(target.getId()), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void copyFiles_ShouldThrowException_WhenTargetIsSourceWorkspace() {
+        var exception = assertThrows(ServiceException.class,
+                () -> fileServiceImpl.copyFiles(workspace.getId(), List.of(UUID.randomUUID()), workspace.getId()));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.BAD_REQUEST.getCode());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void copyFiles_ShouldThrowException_WhenFileNotInWorkspace() {
+        workspace.setOwner(user);
+        var target = stubTargetWorkspace();
+        var foreign = new File().setId(UUID.randomUUID()).setWorkspace(new Workspace().setId(UUID.randomUUID()));
+        when(fileRepository.findAllById(List.of(foreign.getId()))).thenReturn(List.of(foreign));
+
+        var exception = assertThrows(ServiceException.class,
+                () -> fileServiceImpl.copyFiles(workspace.getId(), List.of(foreign.getId()), target.getId()));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
+        verify(objectCopier, never()).copyAll(any());
+        verify(fileRepository, never()).upsertAll(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    private void stubAppend(File file) {
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(userWorkspace));
+        when(fileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+    }
+
+    private Workspace stubTargetWorkspace() {
+        var owner = new User().setId(UUID.randomUUID()).setBucketName("target_bucket");
+        var target = new Workspace().setId(UUID.randomUUID()).setOwner(owner);
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(workspaceMembershipCache.getMembership(user.getId(), workspace.getId()))
+                .thenReturn(Optional.of(membership));
+        when(userWorkspaceRepository.findByUserIdAndWorkspaceId(user.getId(), target.getId()))
+                .thenReturn(Optional.of(UserWorkspace.builder().user(user).workspace(target).build()));
+        return target;
+    }
+
+    private void stubCopy(Workspace target, File source) {
+        when(fileRepository.findAllById(List.of(source.getId()))).thenReturn(List.of(source));
+        fileUtilsMockedStatic.when(() -> FileUtils.generateObjectKey(eq(target.getId()), any(UUID.class)))
+                .thenReturn("target/key");
+        when(fileRepository.upsertAll(eq(target.getId()), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> List.of(new File()
+                        .setId(invocation.<UUID[]>getArgument(1)[0])
+                        .setFileName(source.getFileName())
+                        .setFileExtension(source.getFileExtension())
+                        .setPath(invocation.<String[]>getArgument(4)[0])
+                        .setSize(source.getSize())
+                        .setStorageTier(StorageTier.COLD)));
+    }
+
+    private void stubFileName(String fileName, String name, String extension) {
+        fileUtilsMockedStatic.when(() -> FileUtils.getFileNameWithoutExtension(fileName)).thenReturn(name);
+        fileUtilsMockedStatic.when(() -> FileUtils.getFileExtension(fileName)).thenReturn(extension);
     }
 
     @AfterEach
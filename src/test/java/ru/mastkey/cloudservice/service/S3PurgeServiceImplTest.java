@@ -0,0 +1,81 @@
+package ru.mastkey.cloudservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.S3PurgeTask;
+import ru.mastkey.cloudservice.repository.S3PurgeTaskRepository;
+import ru.mastkey.cloudservice.service.impl.S3PurgeServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3PurgeServiceImplTest {
+
+    @Mock
+    private S3PurgeTaskRepository s3PurgeTaskRepository;
+
+    private S3PurgeServiceImpl s3PurgeService;
+
+    @BeforeEach
+    void setUp() {
+        s3PurgeService = new S3PurgeServiceImpl(s3PurgeTaskRepository, new S3Properties());
+    }
+
+    @Test
+    void enqueue_ShouldSaveTask() {
+        when(s3PurgeTaskRepository.save(any(S3PurgeTask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        s3PurgeService.enqueue("bucket", "workspace/");
+
+        var captor = ArgumentCaptor.forClass(S3PurgeTask.class);
+        verify(s3PurgeTaskRepository).save(captor.capture());
+        assertThat(captor.getValue().getBucketName()).isEqualTo("bucket");
+        assertThat(captor.getValue().getPrefix()).isEqualTo("workspace/");
+        assertThat(captor.getValue().getDeletedObjects()).isZero();
+    }
+
+    @Test
+    void claimTasks_ShouldLeaseClaimedTasks() {
+        var task = S3PurgeTask.builder().id(UUID.randomUUID()).build();
+        when(s3PurgeTaskRepository.findAvailableForUpdate(any(LocalDateTime.class), eq(2))).thenReturn(List.of(task));
+
+        var claimed = s3PurgeService.claimTasks(2);
+
+        assertThat(claimed).containsExactly(task);
+        assertThat(task.getLockedUntil()).isAfter(LocalDateTime.now().plusMinutes(4));
+        assertThat(task.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void checkpoint_ShouldStoreProgressAndExtendLease() {
+        var task = S3PurgeTask.builder()
+                .id(UUID.randomUUID())
+                .lastKey("workspace/file")
+                .deletedObjects(10L)
+                .build();
+
+        s3PurgeService.checkpoint(task);
+
+        verify(s3PurgeTaskRepository).checkpoint(eq(task.getId()), eq("workspace/file"), eq(10L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void complete_ShouldDeleteTask() {
+        var taskId = UUID.randomUUID();
+
+        s3PurgeService.complete(taskId);
+
+        verify(s3PurgeTaskRepository).deleteById(taskId);
+    }
+}
@@ -0,0 +1,266 @@
+package ru.mastkey.cloudservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageReconcileCheckpoint;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.repository.StorageReconcileCheckpointRepository;
+import ru.mastkey.cloudservice.repository.UserRepository;
+import ru.mastkey.cloudservice.repository.WorkspaceRepository;
+import ru.mastkey.cloudservice.service.impl.StorageConsistencyServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageConsistencyServiceImplTest {
+
+    private static final String BUCKET_NAME = "bucket";
+    private static final UUID WORKSPACE_ID = UUID.fromString("00000000-0000-7000-8000-000000000001");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private StorageReconcileCheckpointRepository checkpointRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    private StorageProperties storageProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private StorageConsistencyServiceImpl storageConsistencyService;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        storageProperties.getReconcile().setParallelism(2);
+        meterRegistry = new SimpleMeterRegistry();
+        storageConsistencyService = new StorageConsistencyServiceImpl(userRepository, workspaceRepository, fileRepository,
+                checkpointRepository, storageBackend, storageProperties, meterRegistry);
+        when(userRepository.findAllBucketNames()).thenReturn(List.of(BUCKET_NAME));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageConsistencyService.shutdown();
+    }
+
+    @Test
+    void reconcileAll_ShouldOnlyReportDiscrepancies_WhenRepairIsDisabled() {
+        claim(null);
+        stubObjects(null, object("a", 10L), object("b", 10L), object("d", 5L));
+        stubRows(null, row("a", 10L), row("c", 10L), row("d", 7L));
+
+        storageConsistencyService.reconcileAll();
+
+        assertThat(discrepancies("orphan_object")).isEqualTo(1.0);
+        assertThat(discrepancies("dangling_row")).isEqualTo(1.0);
+        assertThat(discrepancies("size_mismatch")).isEqualTo(1.0);
+        verify(storageBackend, never()).removeObjects(any(), any());
+        verify(fileRepository, never()).deleteByIdsAndPaths(any(), any());
+        verify(fileRepository, never()).correctSizes(any(), any(), any(), any());
+        verify(checkpointRepository).complete(eq(BUCKET_NAME), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldRepairDiscrepancies_WhenRepairIsEnabled() {
+        storageProperties.getReconcile().setRepair(true);
+        claim(null);
+        var dangling = row("c", 10L);
+        var drifted = row("d", 7L);
+        stubObjects(null, object("b", 10L), object("d", 5L));
+        stubRows(null, dangling, drifted);
+        when(fileRepository.findPathsInBucket(BUCKET_NAME, new String[]{key("b")})).thenReturn(List.of());
+        when(storageBackend.stat(BUCKET_NAME, key("c"))).thenReturn(Optional.empty());
+        when(fileRepository.deleteByIdsAndPaths(new UUID[]{dangling.getId()}, new String[]{key("c")})).thenReturn(1);
+        when(fileRepository.correctSizes(new UUID[]{drifted.getId()}, new String[]{key("d")}, new Long[]{7L},
+                new Long[]{5L}))
+                .thenReturn(1);
+
+        storageConsistencyService.reconcileAll();
+
+        verify(storageBackend).removeObjects(BUCKET_NAME, List.of(key("b")));
+        assertThat(meterRegistry.get("storage.reconcile.repairs").tag("type", "dangling_row").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("storage.reconcile.repairs").tag("type", "size_mismatch").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void reconcileAll_ShouldKeepObject_WhenRowAppearedSinceListing() {
+        storageProperties.getReconcile().setRepair(true);
+        claim(null);
+        stubObjects(null, object("b", 10L));
+        stubRows(null);
+        when(fileRepository.findPathsInBucket(BUCKET_NAME, new String[]{key("b")})).thenReturn(List.of(key("b")));
+
+        storageConsistencyService.reconcileAll();
+
+        verify(storageBackend, never()).removeObjects(any(), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldNotReportObject_WhenItsRowIsOnLegacyKey() {
+        claim(null);
+        var legacy = new S3ObjectSummary("docs/report.pdf", 10L, ZonedDateTime.now().minusDays(1));
+        stubObjects(null, object("a", 10L), legacy);
+        stubRows(null, row("a", 10L));
+        when(fileRepository.findPathsInBucket(BUCKET_NAME, new String[]{"docs/report.pdf"}))
+                .thenReturn(List.of("docs/report.pdf"));
+
+        storageConsistencyService.reconcileAll();
+
+        assertThat(meterRegistry.find("storage.reconcile.discrepancies").counters()).isEmpty();
+        verify(checkpointRepository).complete(eq(BUCKET_NAME), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldSkipRecentObjectsHotRowsAndFolderMarkers() {
+        claim(null);
+        var recent = new S3ObjectSummary(key("a"), 10L, ZonedDateTime.now());
+        var hot = row("b", 10L).setStorageTier(StorageTier.HOT);
+        stubObjects(null, recent, object("c/", 0L));
+        stubRows(null, hot);
+
+        storageConsistencyService.reconcileAll();
+
+        assertThat(meterRegistry.find("storage.reconcile.discrepancies").counters()).isEmpty();
+    }
+
+    @Test
+    void reconcileAll_ShouldCompareKeysInByteOrder() {
+        claim(null);
+        // U+FFFF sorts before a surrogate pair in UTF-8, but after it in UTF-16
+        stubObjects(null, object("a\uFFFF", 10L), object("a\uD83D\uDE00", 10L));
+        stubRows(null, row("a\uFFFF", 10L), row("a\uD83D\uDE00", 10L));
+
+        storageConsistencyService.reconcileAll();
+
+        assertThat(meterRegistry.find("storage.reconcile.discrepancies").counters()).isEmpty();
+        verify(checkpointRepository).complete(eq(BUCKET_NAME), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldResumeAfterCheckpointAndCheckpoint_WhenLeaseIsHalfElapsed() {
+        storageProperties.getReconcile().setLeaseDuration(Duration.ZERO);
+        claim(key("b"));
+        stubObjects(key("b"), object("c", 10L), object("d", 10L), object("e", 10L));
+        stubRows("b", row("c", 10L), row("d", 10L), row("e", 10L));
+
+        storageConsistencyService.reconcileAll();
+
+        verify(checkpointRepository).checkpoint(eq(BUCKET_NAME), eq(key("d")), notNull());
+        verify(checkpointRepository).complete(eq(BUCKET_NAME), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldKeepPositionAndReleaseLease_WhenListingIsOutOfOrder() {
+        claim(key("0"));
+        stubObjects(key("0"), object("a", 10L), object("c", 10L), object("b", 10L));
+        stubRows("0", row("a", 10L), row("c", 10L));
+
+        storageConsistencyService.reconcileAll();
+
+        verify(checkpointRepository).checkpoint(BUCKET_NAME, key("0"), null);
+        verify(checkpointRepository, never()).complete(any(), any());
+    }
+
+    @Test
+    void reconcileAll_ShouldSkipBucket_WhenItIsClaimedElsewhere() {
+        when(checkpointRepository.claim(eq(BUCKET_NAME), any(), any(), any())).thenReturn(Optional.empty());
+
+        storageConsistencyService.reconcileAll();
+
+        verifyNoInteractions(storageBackend, workspaceRepository, fileRepository);
+    }
+
+    @Test
+    void reconcileAll_ShouldRenewLease_WhileDanglingRowsAreChecked() {
+        storageProperties.getReconcile().setRepair(true);
+        storageProperties.getReconcile().setLeaseDuration(Duration.ZERO);
+        claim(null);
+        stubObjects(null);
+        stubRows(null, row("c", 10L));
+        when(storageBackend.stat(BUCKET_NAME, key("c"))).thenReturn(Optional.of(object("c", 10L)));
+
+        storageConsistencyService.reconcileAll();
+
+        var inOrder = inOrder(checkpointRepository, storageBackend);
+        inOrder.verify(checkpointRepository).checkpoint(eq(BUCKET_NAME), isNull(), notNull());
+        inOrder.verify(storageBackend).stat(BUCKET_NAME, key("c"));
+        inOrder.verify(checkpointRepository).checkpoint(eq(BUCKET_NAME), eq(key("c")), notNull());
+    }
+
+    private void claim(String lastKey) {
+        when(checkpointRepository.claim(eq(BUCKET_NAME), any(), any(), any()))
+                .thenReturn(Optional.of(StorageReconcileCheckpoint.builder()
+                        .bucketName(BUCKET_NAME)
+                        .lastKey(lastKey)
+                        .build()));
+    }
+
+    private void stubObjects(String startAfter, S3ObjectSummary... objects) {
+        var listing = startAfter == null
+                ? when(storageBackend.listObjects(eq(BUCKET_NAME), eq(""), isNull()))
+                : when(storageBackend.listObjects(BUCKET_NAME, "", startAfter));
+        listing.thenReturn(List.of(objects));
+    }
+
+    private void stubRows(String afterName, File... rows) {
+        when(workspaceRepository.findIdsByOwnerBucketName(BUCKET_NAME)).thenReturn(List.of(WORKSPACE_ID));
+        var afterPath = afterName == null ? WORKSPACE_ID + "/" : key(afterName);
+        when(fileRepository.findByWorkspaceAfterPath(eq(WORKSPACE_ID), eq(afterPath), eq(WORKSPACE_ID + "0"), anyInt()))
+                .thenReturn(List.of(rows));
+    }
+
+    private double discrepancies(String type) {
+        return meterRegistry.get("storage.reconcile.discrepancies").tag("type", type).counter().count();
+    }
+
+    private S3ObjectSummary object(String key, long size) {
+        return new S3ObjectSummary(key(key), size, ZonedDateTime.now().minusDays(1));
+    }
+
+    private String key(String name) {
+        return WORKSPACE_ID + "/" + name;
+    }
+
+    private File row(String path, long size) {
+        return File.builder()
+                .id(UUID.randomUUID())
+                .path(key(path))
+                .size(size)
+                .storageTier(StorageTier.COLD)
+                .createdAt(LocalDateTime.now().minusDays(1))
+                .build();
+    }
+}
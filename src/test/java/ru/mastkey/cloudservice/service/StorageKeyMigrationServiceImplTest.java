@@ -0,0 +1,115 @@
+package ru.mastkey.cloudservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.configuration.properties.S3Properties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.service.impl.StorageKeyMigrationServiceImpl;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageKeyMigrationServiceImplTest {
+
+    private static final String BUCKET_NAME = "bucket";
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    private StorageKeyMigrationServiceImpl storageKeyMigrationService;
+    private Workspace workspace;
+    private UUID afterId;
+
+    @BeforeEach
+    void setUp() {
+        storageKeyMigrationService = new StorageKeyMigrationServiceImpl(fileRepository, storageBackend, new S3Properties());
+        workspace = new Workspace()
+                .setId(UUID.randomUUID())
+                .setName("docs")
+                .setOwner(new User().setBucketName(BUCKET_NAME));
+        afterId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageKeyMigrationService.shutdown();
+    }
+
+    @Test
+    void migrateBatch_ShouldReturnEmpty_WhenNothingToMigrate() {
+        when(fileRepository.findWithLegacyKeysForUpdate(afterId, 100)).thenReturn(List.of());
+
+        assertThat(storageKeyMigrationService.migrateBatch(afterId)).isEmpty();
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void migrateBatch_ShouldCopyObjectsUpdatePathsAndDeleteLegacyKeys() {
+        var first = legacyFile("a.txt");
+        var second = legacyFile("b.txt");
+        when(fileRepository.findWithLegacyKeysForUpdate(afterId, 100)).thenReturn(List.of(first, second));
+        when(storageBackend.objectExists(eq(BUCKET_NAME), any())).thenReturn(false);
+
+        var cursor = storageKeyMigrationService.migrateBatch(afterId);
+
+        assertThat(cursor).contains(second.getId());
+        verify(storageBackend).copyObject(BUCKET_NAME, "docs/a.txt", workspace.getId() + "/" + first.getId());
+        verify(storageBackend).copyObject(BUCKET_NAME, "docs/b.txt", workspace.getId() + "/" + second.getId());
+        assertThat(first.getPath()).isEqualTo(workspace.getId() + "/" + first.getId());
+        assertThat(second.getPath()).isEqualTo(workspace.getId() + "/" + second.getId());
+        verify(storageBackend).removeObjects(BUCKET_NAME, List.of("docs/a.txt", "docs/b.txt"));
+    }
+
+    @Test
+    void migrateBatch_ShouldNotOverwriteIdKey_WhenItAlreadyExists() {
+        var file = legacyFile("a.txt");
+        when(fileRepository.findWithLegacyKeysForUpdate(afterId, 100)).thenReturn(List.of(file));
+        when(storageBackend.objectExists(BUCKET_NAME, workspace.getId() + "/" + file.getId())).thenReturn(true);
+
+        storageKeyMigrationService.migrateBatch(afterId);
+
+        verify(storageBackend, never()).copyObject(any(), any(), any());
+        assertThat(file.getPath()).isEqualTo(workspace.getId() + "/" + file.getId());
+        verify(storageBackend).removeObjects(BUCKET_NAME, List.of("docs/a.txt"));
+    }
+
+    @Test
+    void migrateBatch_ShouldKeepLegacyKey_WhenCopyFails() {
+        var file = legacyFile("a.txt");
+        when(fileRepository.findWithLegacyKeysForUpdate(afterId, 100)).thenReturn(List.of(file));
+        when(storageBackend.objectExists(eq(BUCKET_NAME), any())).thenReturn(false);
+        doThrow(new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, "Error"))
+                .when(storageBackend).copyObject(any(), any(), any());
+
+        var cursor = storageKeyMigrationService.migrateBatch(afterId);
+
+        assertThat(cursor).contains(file.getId());
+        assertThat(file.getPath()).isEqualTo("docs/a.txt");
+        verify(storageBackend, never()).removeObjects(any(), any());
+    }
+
+    private File legacyFile(String name) {
+        return new File()
+                .setId(UUID.randomUUID())
+                .setWorkspace(workspace)
+                .setPath("docs/" + name);
+    }
+}
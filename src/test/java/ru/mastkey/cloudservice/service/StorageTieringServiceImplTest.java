@@ -0,0 +1,179 @@
+package ru.mastkey.cloudservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.service.impl.StorageTieringServiceImpl;
+import ru.mastkey.cloudservice.tiering.HotTierStorage;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageTieringServiceImplTest {
+
+    private static final String BUCKET_NAME = "bucket";
+    private static final ZonedDateTime MODIFIED_AT = ZonedDateTime.now();
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private HotTierStorage hotTierStorage;
+
+    private StorageTieringServiceImpl storageTieringService;
+    private Workspace workspace;
+    private UUID afterId;
+
+    @BeforeEach
+    void setUp() {
+        storageTieringService = new StorageTieringServiceImpl(fileRepository, storageBackend, hotTierStorage,
+                new StorageProperties());
+        workspace = new Workspace()
+                .setId(UUID.randomUUID())
+                .setOwner(new User().setBucketName(BUCKET_NAME));
+        afterId = UUID.randomUUID();
+    }
+
+    @Test
+    void replicateBatch_ShouldReturnEmpty_WhenNothingIsHot() {
+        when(fileRepository.findHot(afterId, PageRequest.of(0, 100))).thenReturn(List.of());
+
+        assertThat(storageTieringService.replicateBatch(afterId)).isEmpty();
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void replicateBatch_ShouldUploadHotCopy_AndMarkFileReplicated() {
+        var file = file(StorageTier.HOT);
+        when(fileRepository.findHot(afterId, PageRequest.of(0, 100))).thenReturn(List.of(file));
+        when(hotTierStorage.stat(BUCKET_NAME, file.getPath())).thenReturn(Optional.of(hotCopy(file, 1)));
+        when(hotTierStorage.read(BUCKET_NAME, file.getPath())).thenReturn(new ByteArrayInputStream("content".getBytes()));
+
+        var cursor = storageTieringService.replicateBatch(afterId);
+
+        assertThat(cursor).contains(file.getId());
+        var order = inOrder(storageBackend, fileRepository);
+        order.verify(storageBackend).uploadFile(any(), eq(BUCKET_NAME), eq(file.getPath()));
+        order.verify(fileRepository).markReplicated(file.getId(), file.getPath(), 7L);
+    }
+
+    @Test
+    void replicateBatch_ShouldKeepFileHot_WhenUploadFails() {
+        var failing = file(StorageTier.HOT);
+        var replicated = file(StorageTier.HOT);
+        when(fileRepository.findHot(afterId, PageRequest.of(0, 100))).thenReturn(List.of(failing, replicated));
+        when(hotTierStorage.stat(eq(BUCKET_NAME), any())).thenAnswer(invocation -> Optional.of(
+                new S3ObjectSummary(invocation.getArgument(1), 7L, MODIFIED_AT)));
+        when(hotTierStorage.read(eq(BUCKET_NAME), any())).thenAnswer(invocation -> new ByteArrayInputStream(new byte[0]));
+        doThrow(new ServiceException(ErrorType.INTERNAL_SERVER_ERROR, "S3 is down"))
+                .when(storageBackend).uploadFile(any(), eq(BUCKET_NAME), eq(failing.getPath()));
+
+        storageTieringService.replicateBatch(afterId);
+
+        verify(fileRepository, never()).markReplicated(eq(failing.getId()), any(), anyLong());
+        verify(fileRepository).markReplicated(replicated.getId(), replicated.getPath(), 7L);
+    }
+
+    @Test
+    void replicateBatch_ShouldKeepFileHot_WhenHotCopyChangesDuringCopy() {
+        var file = file(StorageTier.HOT);
+        when(fileRepository.findHot(afterId, PageRequest.of(0, 100))).thenReturn(List.of(file));
+        when(hotTierStorage.stat(BUCKET_NAME, file.getPath()))
+                .thenReturn(Optional.of(hotCopy(file, 1)), Optional.of(hotCopy(file, 2)));
+        when(hotTierStorage.read(BUCKET_NAME, file.getPath())).thenReturn(new ByteArrayInputStream("content".getBytes()));
+
+        storageTieringService.replicateBatch(afterId);
+
+        verify(storageBackend).uploadFile(any(), eq(BUCKET_NAME), eq(file.getPath()));
+        verify(fileRepository, never()).markReplicated(any(), any(), anyLong());
+    }
+
+    @Test
+    void demoteBatch_ShouldMarkFilesCold_AndRemoveHotCopies() {
+        var file = file(StorageTier.REPLICATED);
+        when(fileRepository.findIdleReplicatedForUpdate(any(LocalDateTime.class), eq(afterId), eq(100)))
+                .thenReturn(List.of(file));
+
+        var cursor = storageTieringService.demoteBatch(afterId);
+
+        assertThat(cursor).contains(file.getId());
+        assertThat(file.getStorageTier()).isEqualTo(StorageTier.COLD);
+        verify(hotTierStorage).delete(BUCKET_NAME, file.getPath());
+    }
+
+    @Test
+    void demoteBatch_ShouldOnlyPickFilesIdleLongerThanThreshold() {
+        when(fileRepository.findIdleReplicatedForUpdate(any(LocalDateTime.class), eq(afterId), eq(100)))
+                .thenReturn(List.of());
+        var before = LocalDateTime.now().minusDays(7);
+
+        storageTieringService.demoteBatch(afterId);
+
+        var idleSince = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(fileRepository).findIdleReplicatedForUpdate(idleSince.capture(), eq(afterId), eq(100));
+        assertThat(idleSince.getValue()).isAfterOrEqualTo(before).isBefore(before.plusMinutes(1));
+    }
+
+    @Test
+    void flushAccesses_ShouldWriteRecordedReads() {
+        var fileId = UUID.randomUUID();
+        var accessedAt = LocalDateTime.now();
+        when(hotTierStorage.drainAccesses()).thenReturn(Map.of(fileId, accessedAt));
+
+        storageTieringService.flushAccesses();
+
+        verify(fileRepository).updateLastAccessedAt(new UUID[]{fileId}, new LocalDateTime[]{accessedAt});
+    }
+
+    @Test
+    void flushAccesses_ShouldSkipUpdate_WhenNothingWasRead() {
+        when(hotTierStorage.drainAccesses()).thenReturn(Map.of());
+
+        storageTieringService.flushAccesses();
+
+        verifyNoInteractions(fileRepository);
+    }
+
+    private static S3ObjectSummary hotCopy(File file, int secondsAfter) {
+        return new S3ObjectSummary(file.getPath(), file.getSize(), MODIFIED_AT.plusSeconds(secondsAfter));
+    }
+
+    private File file(StorageTier storageTier) {
+        var id = UUID.randomUUID();
+        return new File()
+                .setId(id)
+                .setFileName("report")
+                .setFileExtension("pdf")
+                .setPath(workspace.getId() + "/" + id)
+                .setSize(7L)
+                .setStorageTier(storageTier)
+                .setWorkspace(workspace);
+    }
+}
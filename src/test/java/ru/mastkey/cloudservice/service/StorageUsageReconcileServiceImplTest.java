@@ -0,0 +1,113 @@
+package ru.mastkey.cloudservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.client.StorageBackend;
+import ru.mastkey.cloudservice.client.model.S3ObjectSummary;
+import ru.mastkey.cloudservice.configuration.properties.QuotaProperties;
+import ru.mastkey.cloudservice.entity.User;
+import ru.mastkey.cloudservice.entity.Workspace;
+import ru.mastkey.cloudservice.quota.StorageQuotaManager;
+import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.repository.WorkspaceRepository;
+import ru.mastkey.cloudservice.service.impl.StorageUsageReconcileServiceImpl;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageUsageReconcileServiceImplTest {
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private StorageBackend storageBackend;
+
+    @Mock
+    private StorageQuotaManager storageQuotaManager;
+
+    private StorageUsageReconcileServiceImpl storageUsageReconcileService;
+
+    private QuotaProperties quotaProperties;
+    private Workspace workspace;
+
+    @BeforeEach
+    void setUp() {
+        quotaProperties = new QuotaProperties();
+        quotaProperties.getReconcile().setBatchSize(10);
+        storageUsageReconcileService = new StorageUsageReconcileServiceImpl(
+                workspaceRepository, fileRepository, storageBackend, quotaProperties, storageQuotaManager);
+
+        workspace = new Workspace()
+                .setId(UUID.randomUUID())
+                .setOwner(new User().setId(UUID.randomUUID()).setBucketName("bucket"));
+    }
+
+    @Test
+    void reconcileBatch_ShouldCorrectSizesFromStoredObjects_WhenUsageDrifted() {
+        var drifted = workspace.getId() + "/" + UUID.randomUUID();
+        var accurate = workspace.getId() + "/" + UUID.randomUUID();
+        var afterId = new UUID(0L, 0L);
+        when(workspaceRepository.findBatchAfter(afterId, 10)).thenReturn(List.of(workspace));
+        when(fileRepository.sumStoredSize(workspace.getId())).thenReturn(20L);
+        when(storageBackend.listObjects("bucket", workspace.getId() + "/", null)).thenReturn(List.of(
+                new S3ObjectSummary(drifted, 10L, ZonedDateTime.now()),
+                new S3ObjectSummary(accurate, 20L, ZonedDateTime.now())));
+        when(fileRepository.correctSizesByPath(workspace.getId(), new String[]{drifted, accurate}, new Long[]{10L, 20L}))
+                .thenReturn(1);
+
+        var cursor = storageUsageReconcileService.reconcileBatch(afterId);
+
+        assertThat(cursor).contains(workspace.getId());
+        verify(fileRepository).correctSizesByPath(workspace.getId(), new String[]{drifted, accurate}, new Long[]{10L, 20L});
+        verify(storageQuotaManager).invalidate(workspace.getOwner().getId(), workspace.getId());
+    }
+
+    @Test
+    void reconcileBatch_ShouldCorrectInPages_WhenWorkspaceIsLarge() {
+        quotaProperties.getReconcile().setPageSize(2);
+        var objects = IntStream.range(0, 3)
+                .mapToObj(i -> new S3ObjectSummary(workspace.getId() + "/" + i, 1L, ZonedDateTime.now()))
+                .toList();
+        when(workspaceRepository.findBatchAfter(any(), anyInt())).thenReturn(List.of(workspace));
+        when(fileRepository.sumStoredSize(workspace.getId())).thenReturn(0L);
+        when(storageBackend.listObjects("bucket", workspace.getId() + "/", null)).thenReturn(objects);
+
+        storageUsageReconcileService.reconcileBatch(new UUID(0L, 0L));
+
+        verify(fileRepository, times(2)).correctSizesByPath(eq(workspace.getId()), any(), any());
+    }
+
+    @Test
+    void reconcileBatch_ShouldNotUpdateRows_WhenUsageMatches() {
+        when(workspaceRepository.findBatchAfter(any(), anyInt())).thenReturn(List.of(workspace));
+        when(fileRepository.sumStoredSize(workspace.getId())).thenReturn(30L);
+        when(storageBackend.listObjects("bucket", workspace.getId() + "/", null)).thenReturn(List.of(
+                new S3ObjectSummary(workspace.getId() + "/a", 10L, ZonedDateTime.now()),
+                new S3ObjectSummary(workspace.getId() + "/b", 20L, ZonedDateTime.now())));
+
+        storageUsageReconcileService.reconcileBatch(new UUID(0L, 0L));
+
+        verify(storageBackend, times(1)).listObjects(any(), any(), any());
+        verify(fileRepository, never()).correctSizesByPath(any(), any(), any());
+    }
+
+    @Test
+    void reconcileBatch_ShouldReturnEmpty_WhenNothingIsLeft() {
+        when(workspaceRepository.findBatchAfter(any(), anyInt())).thenReturn(List.of());
+
+        assertThat(storageUsageReconcileService.reconcileBatch(workspace.getId())).isEmpty();
+    }
+}
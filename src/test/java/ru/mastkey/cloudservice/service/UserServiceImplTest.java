@@ -11,7 +11,9 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.CacheInvalidationBus;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
@@ -27,7 +29,7 @@ import ru.mastkey.model.CreateUserRequest;
 import ru.mastkey.model.CreateUserResponse;
 import ru.mastkey.model.TokenResponse;
 
-import java.util.List;
+import java.util.Set;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -63,7 +65,10 @@ class UserServiceImplTest {
     private WorkspaceRepository workspaceRepository;
 
     @Mock
-    private S3Client s3Client;
+    private StorageBackend storageBackend;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -105,6 +110,7 @@ class UserServiceImplTest {
 
         assertThat(response).isNotNull();
         verify(userRepository).save(user);
+        verify(cacheInvalidationBus).publish(CacheInvalidationEvent.user(user.getId()));
     }
 
     @Test
@@ -152,6 +158,7 @@ class UserServiceImplTest {
         userService.addNewWorkspaceById(workspaceId);
 
         verify(userWorkspaceRepository).save(any(UserWorkspace.class));
+        verify(cacheInvalidationBus).publish(CacheInvalidationEvent.membership(user.getId(), workspaceId));
     }
 
     @Test
@@ -187,7 +194,7 @@ class UserServiceImplTest {
         when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
 
         Workspace existingWorkspace = new Workspace().setName("Test Workspace").setId(workspaceId);
-        user.setWorkspaces(List.of(existingWorkspace));
+        user.setWorkspaces(Set.of(existingWorkspace));
         when(userRepository.findByUserIdWithWorkspaces(user.getId())).thenReturn(Optional.of(user));
 
         ServiceException exception = assertThrows(ServiceException.class,
@@ -195,5 +202,6 @@ class UserServiceImplTest {
 
         assertThat(exception.getCode()).isEqualTo(ErrorType.CONFLICT.getCode());
         verify(userWorkspaceRepository, never()).save(any(UserWorkspace.class));
+        verify(cacheInvalidationBus, never()).publish(any());
     }
 }
\ No newline at end of file
@@ -8,12 +8,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.PageRequest;
-import ru.mastkey.cloudservice.client.S3Client;
+import ru.mastkey.cloudservice.cache.CacheInvalidationBus;
+import ru.mastkey.cloudservice.cache.model.CacheInvalidationEvent;
+import ru.mastkey.cloudservice.client.StorageBackend;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.exception.ErrorType;
 import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.S3PurgeTaskRepository;
 import ru.mastkey.cloudservice.repository.UserRepository;
 import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
 import ru.mastkey.cloudservice.repository.WorkspaceRepository;
@@ -40,7 +43,7 @@ class WorkspaceServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private S3Client s3Client;
+    private StorageBackend storageBackend;
 
     @Mock
     private ConversionService conversionService;
@@ -51,6 +54,15 @@ class WorkspaceServiceImplTest {
     @Mock
     private HttpContextService httpContextService;
 
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private S3PurgeService s3PurgeService;
+
+    @Mock
+    private S3PurgeTaskRepository s3PurgeTaskRepository;
+
     @InjectMocks
     private WorkspaceServiceImpl workspaceService;
 
@@ -102,8 +114,9 @@ class WorkspaceServiceImplTest {
 
         verify(userRepository, times(1)).findByUserIdWithWorkspaces(user.getId());
         verify(workspaceRepository, times(1)).save(any(Workspace.class));
-        verify(s3Client, times(1)).createFolder(user.getBucketName(), createWorkspaceRequest.getName());
+        verify(storageBackend, times(1)).createFolder(user.getBucketName(), workspace.getId().toString());
         verify(userWorkspaceRepository, times(1)).save(any(UserWorkspace.class));
+        verify(cacheInvalidationBus, times(1)).publish(CacheInvalidationEvent.membership(user.getId(), workspace.getId()));
     }
 
 
@@ -124,7 +137,7 @@ class WorkspaceServiceImplTest {
 
         verify(userRepository, times(1)).findByUserIdWithWorkspaces(user.getId());
         verify(workspaceRepository, never()).save(any(Workspace.class));
-        verify(s3Client, never()).createFolder(anyString(), anyString());
+        verify(storageBackend, never()).createFolder(anyString(), anyString());
         verify(userWorkspaceRepository, never()).save(any(UserWorkspace.class));
     }
 
@@ -142,7 +155,7 @@ class WorkspaceServiceImplTest {
 
         verify(userRepository, times(1)).findByUserIdWithWorkspaces(user.getId());
         verify(workspaceRepository, never()).save(any(Workspace.class));
-        verify(s3Client, never()).createFolder(anyString(), anyString());
+        verify(storageBackend, never()).createFolder(anyString(), anyString());
         verify(userWorkspaceRepository, never()).save(any(UserWorkspace.class));
     }
 
@@ -203,6 +216,7 @@ class WorkspaceServiceImplTest {
 
         verify(userRepository).findByUserIdWithWorkspaces(userId);
         verify(workspaceRepository).save(workspace);
+        verify(cacheInvalidationBus).publish(CacheInvalidationEvent.workspace(workspaceId));
         verify(conversionService).convert(updatedWorkspace, WorkspaceResponse.class);
     }
 
@@ -286,8 +300,32 @@ class WorkspaceServiceImplTest {
         workspaceService.deleteWorkspace(workspace.getId());
 
         verify(userWorkspaceRepository, times(1)).deleteByWorkspaceId(workspace.getId());
-        verify(workspaceRepository, times(1)).delete(workspace);
-        verify(s3Client, times(1)).deleteFolder(user.getBucketName(), workspace.getName());
+        verify(cacheInvalidationBus, times(1)).publish(CacheInvalidationEvent.workspace(workspace.getId()));
+        verify(workspaceRepository, times(1)).deleteWorkspaceById(workspace.getId());
+        verify(workspaceRepository, never()).delete(any(Workspace.class));
+        verify(s3PurgeService, times(1)).enqueue(user.getBucketName(), workspace.getId() + "/");
+        verify(s3PurgeService, never()).enqueue(user.getBucketName(), workspace.getName() + "/");
+        verifyNoInteractions(storageBackend);
+    }
+
+    @Test
+    void deleteWorkspace_ShouldEnqueueExactLegacyKeys_BeforeFilesAreDeleted() {
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(user.getId());
+        when(userRepository.findByUserIdWithWorkspaces(user.getId()))
+                .thenReturn(Optional.of(user));
+        workspace.setOwner(user);
+        user.getWorkspaces().add(workspace);
+        when(s3PurgeTaskRepository.enqueueLegacyKeys(eq(user.getBucketName()), eq(workspace.getId()), any()))
+                .thenReturn(2);
+
+        workspaceService.deleteWorkspace(workspace.getId());
+
+        var inOrder = inOrder(s3PurgeTaskRepository, workspaceRepository);
+        inOrder.verify(s3PurgeTaskRepository).enqueueLegacyKeys(eq(user.getBucketName()), eq(workspace.getId()), any());
+        inOrder.verify(workspaceRepository).deleteWorkspaceById(workspace.getId());
+        verify(s3PurgeService, times(1)).enqueue(user.getBucketName(), workspace.getId() + "/");
+        verifyNoMoreInteractions(s3PurgeService);
+        verifyNoInteractions(storageBackend);
     }
 
     @Test
@@ -304,8 +342,8 @@ class WorkspaceServiceImplTest {
         assertThat(exception.getMessage()).contains("not linked to user");
 
         verify(userWorkspaceRepository, never()).deleteByWorkspaceId(any());
-        verify(workspaceRepository, never()).deleteById(idToDelete);
-        verify(s3Client, never()).deleteFolder(anyString(), anyString());
+        verify(workspaceRepository, never()).deleteWorkspaceById(idToDelete);
+        verify(s3PurgeService, never()).enqueue(anyString(), anyString());
     }
 
     @Test
@@ -321,8 +359,8 @@ class WorkspaceServiceImplTest {
         assertThat(exception.getMessage()).isEqualTo("User with id %s not found".formatted(user.getId()));
 
         verify(userWorkspaceRepository, never()).deleteByWorkspaceId(any());
-        verify(workspaceRepository, never()).deleteById(any());
-        verify(s3Client, never()).deleteFolder(anyString(), anyString());
+        verify(workspaceRepository, never()).deleteWorkspaceById(any());
+        verify(s3PurgeService, never()).enqueue(anyString(), anyString());
     }
 
     @Test
@@ -339,8 +377,9 @@ class WorkspaceServiceImplTest {
         workspaceService.deleteWorkspace(workspaceId);
 
         verify(userWorkspaceRepository).deleteByUserIdAndWorkspaceId(user.getId(), workspaceId);
-        verify(workspaceRepository, never()).deleteById(any());
-        verify(s3Client, never()).deleteFolder(anyString(), anyString());
+        verify(cacheInvalidationBus).publish(CacheInvalidationEvent.membership(user.getId(), workspaceId));
+        verify(workspaceRepository, never()).deleteWorkspaceById(any());
+        verify(s3PurgeService, never()).enqueue(anyString(), anyString());
     }
 
     @Test
@@ -0,0 +1,117 @@
+package ru.mastkey.cloudservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mastkey.cloudservice.cache.WorkspaceMembershipCache;
+import ru.mastkey.cloudservice.cache.model.WorkspaceMembership;
+import ru.mastkey.cloudservice.configuration.properties.WorkspaceStatsProperties;
+import ru.mastkey.cloudservice.entity.WorkspaceStats;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+import ru.mastkey.cloudservice.repository.WorkspaceStatsRepository;
+import ru.mastkey.cloudservice.service.impl.WorkspaceStatsServiceImpl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceStatsServiceImplTest {
+
+    @Mock
+    private WorkspaceStatsRepository workspaceStatsRepository;
+
+    @Mock
+    private HttpContextService httpContextService;
+
+    @Mock
+    private WorkspaceMembershipCache workspaceMembershipCache;
+
+    private WorkspaceStatsServiceImpl workspaceStatsService;
+
+    private UUID userId;
+    private UUID workspaceId;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new WorkspaceStatsProperties();
+        properties.getReconcile().setBatchSize(2);
+        workspaceStatsService = new WorkspaceStatsServiceImpl(
+                workspaceStatsRepository, httpContextService, workspaceMembershipCache, properties);
+
+        userId = UUID.randomUUID();
+        workspaceId = UUID.randomUUID();
+    }
+
+    @Test
+    void getStats_ShouldReturnStoredStats() {
+        stubMembership(true);
+        when(workspaceStatsRepository.findById(workspaceId)).thenReturn(Optional.of(WorkspaceStats.builder()
+                .workspaceId(workspaceId)
+                .fileCount(3L)
+                .totalBytes(1024L)
+                .build()));
+
+        var stats = workspaceStatsService.getStats(workspaceId);
+
+        assertThat(stats.workspaceId()).isEqualTo(workspaceId);
+        assertThat(stats.fileCount()).isEqualTo(3L);
+        assertThat(stats.totalBytes()).isEqualTo(1024L);
+    }
+
+    @Test
+    void getStats_ShouldReturnZeros_WhenWorkspaceHasNoFilesYet() {
+        stubMembership(true);
+        when(workspaceStatsRepository.findById(workspaceId)).thenReturn(Optional.empty());
+
+        var stats = workspaceStatsService.getStats(workspaceId);
+
+        assertThat(stats.fileCount()).isZero();
+        assertThat(stats.totalBytes()).isZero();
+    }
+
+    @Test
+    void getStats_ShouldThrowForbidden_WhenUserNotLinkedToWorkspace() {
+        stubMembership(false);
+
+        var exception = assertThrows(ServiceException.class, () -> workspaceStatsService.getStats(workspaceId));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.FORBIDDEN.getCode());
+        verifyNoInteractions(workspaceStatsRepository);
+    }
+
+    @Test
+    void reconcileBatch_ShouldRecountLockedWorkspacesAndReturnCursor() {
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        var afterId = new UUID(0L, 0L);
+        when(workspaceStatsRepository.lockBatch(afterId, 2)).thenReturn(List.of(first, second));
+
+        var cursor = workspaceStatsService.reconcileBatch(afterId);
+
+        assertThat(cursor).contains(second);
+        verify(workspaceStatsRepository).recount(new UUID[]{first, second});
+    }
+
+    @Test
+    void reconcileBatch_ShouldReturnEmpty_WhenNothingIsLeft() {
+        when(workspaceStatsRepository.lockBatch(workspaceId, 2)).thenReturn(List.of());
+
+        assertThat(workspaceStatsService.reconcileBatch(workspaceId)).isEmpty();
+        verify(workspaceStatsRepository, never()).recount(any());
+    }
+
+    private void stubMembership(boolean linked) {
+        when(httpContextService.getUserIdFromJwtToken()).thenReturn(userId);
+        when(workspaceMembershipCache.getMembership(userId, workspaceId)).thenReturn(linked
+                ? Optional.of(new WorkspaceMembership(userId, workspaceId, true, "bucket"))
+                : Optional.empty());
+    }
+}
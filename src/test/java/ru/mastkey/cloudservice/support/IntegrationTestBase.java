@@ -15,15 +15,17 @@ import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
 import ru.mastkey.cloudservice.repository.FileRepository;
+import ru.mastkey.cloudservice.repository.S3PurgeTaskRepository;
 import ru.mastkey.cloudservice.repository.UserRepository;
 import ru.mastkey.cloudservice.repository.UserWorkspaceRepository;
 import ru.mastkey.cloudservice.repository.WorkspaceRepository;
 import ru.mastkey.cloudservice.security.JwtService;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"spring.profiles.active=test"})
@@ -45,6 +47,9 @@ public class IntegrationTestBase {
     @Autowired
     protected FileRepository fileRepository;
 
+    @Autowired
+    protected S3PurgeTaskRepository s3PurgeTaskRepository;
+
     @Autowired
     protected S3Client s3Client;
 
@@ -66,7 +71,7 @@ public class IntegrationTestBase {
     protected Workspace createWorkspaceWithUser() {
         var user = userRepository.save(User.builder()
                 .bucketName("mastkey-1")
-                .workspaces(new ArrayList<>())
+                .workspaces(new HashSet<>())
                 .username("mastkey")
                 .password(passwordEncoder.encode("mastkey"))
                 .build());
@@ -77,7 +82,7 @@ public class IntegrationTestBase {
                 .build();
 
         workspace = workspaceRepository.save(workspace);
-        workspace.setUsers(List.of(user));
+        workspace.setUsers(Set.of(user));
 
         userRepository.save(user);
 
@@ -107,5 +112,6 @@ public class IntegrationTestBase {
         fileRepository.deleteAll();
         workspaceRepository.deleteAll();
         userRepository.deleteAll();
+        s3PurgeTaskRepository.deleteAll();
     }
 }
@@ -22,6 +22,7 @@ public class MinioInitializer implements ApplicationContextInitializer<Configura
 
         TestPropertyValues.of(
                 "s3.url=" + minioServer.getS3URL(),
+                "s3.public-url=" + minioServer.getS3URL(),
                 "s3.accessKey=" + accessKey,
                 "s3.secretKey=" + secretKey
         ).applyTo(applicationContext.getEnvironment());
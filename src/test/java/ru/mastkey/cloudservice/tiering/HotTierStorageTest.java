@@ -0,0 +1,106 @@
+package ru.mastkey.cloudservice.tiering;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.mastkey.cloudservice.configuration.properties.StorageProperties;
+import ru.mastkey.cloudservice.entity.File;
+import ru.mastkey.cloudservice.entity.StorageTier;
+import ru.mastkey.cloudservice.exception.ErrorType;
+import ru.mastkey.cloudservice.exception.ServiceException;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HotTierStorageTest {
+    private static final String BUCKET_NAME = "bucket";
+
+    @TempDir
+    Path root;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HotTierStorage hotTierStorage;
+
+    @BeforeEach
+    void setUp() {
+        var storageProperties = new StorageProperties();
+        storageProperties.getTiering().setEnabled(true);
+        storageProperties.getTiering().setRoot(root);
+        meterRegistry = new SimpleMeterRegistry();
+        hotTierStorage = new HotTierStorage(storageProperties, meterRegistry);
+    }
+
+    @Test
+    void open_ShouldReadHotCopy_AndRecordAccess() throws Exception {
+        var file = file(StorageTier.HOT);
+        hotTierStorage.write(new MockMultipartFile("file", "a.txt", null, "hello".getBytes()), BUCKET_NAME, file.getPath());
+
+        try (var stream = hotTierStorage.open(file, BUCKET_NAME).orElseThrow()) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+
+        assertThat(hotTierStorage.drainAccesses()).containsOnlyKeys(file.getId());
+        assertThat(hotTierStorage.drainAccesses()).isEmpty();
+    }
+
+    @Test
+    void open_ShouldReturnEmpty_WhenFileIsCold() {
+        assertThat(hotTierStorage.open(file(StorageTier.COLD), BUCKET_NAME)).isEmpty();
+    }
+
+    @Test
+    void open_ShouldReturnEmpty_WhenHotCopyIsGone() {
+        assertThat(hotTierStorage.open(file(StorageTier.REPLICATED), BUCKET_NAME)).isEmpty();
+        assertThat(meterRegistry.get("storage.tier.hot.reads").tag("outcome", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void open_ShouldReturnEmpty_WhenTieringIsDisabled() {
+        var disabled = new HotTierStorage(new StorageProperties(), new SimpleMeterRegistry());
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.open(file(StorageTier.HOT), BUCKET_NAME)).isEmpty();
+    }
+
+    @Test
+    void append_ShouldFailWithServiceException_WhenTieringIsDisabled() {
+        var disabled = new HotTierStorage(new StorageProperties(), new SimpleMeterRegistry());
+        var segment = new MockMultipartFile("segment", "a.txt", null, "tail".getBytes());
+
+        var exception = assertThrows(ServiceException.class, () -> disabled.append(BUCKET_NAME, "key", segment));
+
+        assertThat(exception.getCode()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getCode());
+        assertThrows(ServiceException.class, () -> disabled.copy(BUCKET_NAME, "key", BUCKET_NAME, "copy"));
+        assertThrows(ServiceException.class, () -> disabled.read(BUCKET_NAME, "key"));
+    }
+
+    @Test
+    void acceptsWrites_ShouldBeFalse_WhenTierIsDraining() throws Exception {
+        var storageProperties = new StorageProperties();
+        storageProperties.getTiering().setEnabled(true);
+        storageProperties.getTiering().setDrain(true);
+        storageProperties.getTiering().setRoot(root);
+        var draining = new HotTierStorage(storageProperties, new SimpleMeterRegistry());
+        var file = file(StorageTier.HOT);
+        hotTierStorage.write(new MockMultipartFile("file", "a.txt", null, "hello".getBytes()), BUCKET_NAME, file.getPath());
+
+        assertThat(draining.acceptsWrites()).isFalse();
+        try (var stream = draining.read(BUCKET_NAME, file.getPath())) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("hello");
+        }
+    }
+
+    private static File file(StorageTier storageTier) {
+        var workspaceId = UUID.randomUUID();
+        var id = UUID.randomUUID();
+        return new File()
+                .setId(id)
+                .setPath(workspaceId + "/" + id)
+                .setStorageTier(storageTier);
+    }
+}
@@ -1,7 +1,8 @@
 package ru.mastkey.cloudservice.util;
 
 import org.junit.jupiter.api.Test;
-import ru.mastkey.cloudservice.entity.Workspace;
+
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -56,24 +57,19 @@ class FileUtilsTest {
     }
 
     @Test
-    void generateRelativePath_ShouldReturnFormattedPath() {
-        Workspace workspace = new Workspace();
-        workspace.setName("project");
-        String fileName = "document";
-        String fileExtension = "txt";
+    void generateObjectKey_ShouldUseWorkspaceAndFileIds() {
+        var workspaceId = UUID.fromString("0190c5e1-7c4f-7a2b-9d3e-5f6a7b8c9d0e");
+        var fileId = UUID.fromString("0190c5e1-7c50-7b3c-8e4f-6a7b8c9d0e1f");
 
-        String result = FileUtils.generateRelativePath(workspace.getName(), fileName, fileExtension);
-        assertThat(result).isEqualTo("project/document.txt");
+        String result = FileUtils.generateObjectKey(workspaceId, fileId);
+        assertThat(result).isEqualTo("0190c5e1-7c4f-7a2b-9d3e-5f6a7b8c9d0e/0190c5e1-7c50-7b3c-8e4f-6a7b8c9d0e1f");
     }
 
     @Test
-    void generateRelativePath_ShouldHandleEmptyFileExtension() {
-        Workspace workspace = new Workspace();
-        workspace.setName("project");
-        String fileName = "document";
-        String fileExtension = "";
+    void getWorkspacePrefix_ShouldEndWithSlash() {
+        var workspaceId = UUID.fromString("0190c5e1-7c4f-7a2b-9d3e-5f6a7b8c9d0e");
 
-        String result = FileUtils.generateRelativePath(workspace.getName(), fileName, fileExtension);
-        assertThat(result).isEqualTo("project/document.");
+        String result = FileUtils.getWorkspacePrefix(workspaceId);
+        assertThat(result).isEqualTo("0190c5e1-7c4f-7a2b-9d3e-5f6a7b8c9d0e/");
     }
-}
\ No newline at end of file
+}
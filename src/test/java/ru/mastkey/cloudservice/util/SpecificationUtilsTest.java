@@ -6,7 +6,6 @@ import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.jpa.domain.Specification;
-import ru.mastkey.cloudservice.entity.File;
 import ru.mastkey.cloudservice.entity.User;
 import ru.mastkey.cloudservice.entity.UserWorkspace;
 import ru.mastkey.cloudservice.entity.Workspace;
@@ -44,22 +43,4 @@ class SpecificationUtilsTest {
         verify(root).join("users");
         verify(criteriaBuilder).equal(userJoin.get("id"), userId);
     }
-
-    @Test
-    void getFilesSpecification_ShouldCreateSpecificationSuccessfully() {
-        UUID workspaceId = UUID.randomUUID();
-        Root<File> root = mock(Root.class);
-        CriteriaQuery<?> query = mock(CriteriaQuery.class);
-        CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
-        Join<File, Workspace> join = mock(Join.class);
-
-        when(root.<File, Workspace>join("workspace")).thenReturn(join);
-        when(criteriaBuilder.equal(join.get("id"), workspaceId)).thenReturn(mock(jakarta.persistence.criteria.Predicate.class));
-
-        Specification<File> specification = SpecificationUtils.getFilesSpecification(workspaceId);
-        specification.toPredicate(root, query, criteriaBuilder);
-
-        verify(root).join("workspace");
-        verify(criteriaBuilder).equal(join.get("id"), workspaceId);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package ru.mastkey.cloudservice.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionUtilsTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void runAfterCommit_ShouldRunImmediately_WhenNoTransactionIsActive() {
+        var executed = new AtomicBoolean();
+
+        TransactionUtils.runAfterCommit(() -> executed.set(true));
+
+        assertThat(executed).isTrue();
+    }
+
+    @Test
+    void runAfterCommit_ShouldDeferAction_WhenTransactionIsActive() {
+        var executed = new AtomicBoolean();
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionUtils.runAfterCommit(() -> executed.set(true));
+        assertThat(executed).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(executed).isTrue();
+    }
+
+    @Test
+    void runAfterCompletion_ShouldRunAction_WhenTransactionRollsBack() {
+        var executed = new AtomicBoolean();
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionUtils.runAfterCompletion(() -> executed.set(true));
+        assertThat(executed).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(executed).isTrue();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.mastkey.cloudservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidUtilsTest {
+
+    @Test
+    void randomV7_ShouldSetVersionAndVariant() {
+        var uuid = UuidUtils.randomV7();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void randomV7_ShouldEncodeTimestamp() {
+        var epochMillis = 1_700_000_000_123L;
+
+        var uuid = UuidUtils.randomV7(epochMillis);
+
+        assertThat(UuidUtils.getTimestamp(uuid)).isEqualTo(epochMillis);
+        assertThat(uuid.toString()).startsWith("018bcfe5-687b-7");
+    }
+
+    @Test
+    void randomV7_ShouldSortByCreationTime_WhenMillisDiffer() {
+        var ids = new ArrayList<UUID>();
+        for (long millis = 1_700_000_000_000L; millis < 1_700_000_001_000L; millis++) {
+            ids.add(UuidUtils.randomV7(millis));
+        }
+
+        assertThat(ids).isSortedAccordingTo(UuidUtilsTest::compareUnsigned);
+    }
+
+    @Test
+    void randomV7_ShouldNotCollide_WithinSameMillisecond() {
+        var ids = new HashSet<UUID>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(UuidUtils.randomV7(1_700_000_000_000L));
+        }
+
+        assertThat(ids).hasSize(100_000);
+    }
+
+    // UUID.compareTo compares signed longs, Postgres compares bytes
+    private static int compareUnsigned(UUID first, UUID second) {
+        var result = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        return result != 0
+                ? result
+                : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+}